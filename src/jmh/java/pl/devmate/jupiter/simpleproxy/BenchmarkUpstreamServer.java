@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Fields;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process upstream server for benchmarks, responds to every request with body of {@code size} bytes
+ * (query parameter). Plain connector accepts HTTP/1.1 and h2c, TLS connector accepts HTTP/1.1
+ * (certificate from WireMock test keystore), optional unix domain socket connector accepts HTTP/1.1.
+ */
+class BenchmarkUpstreamServer {
+
+    private final Server server = new Server();
+    private final ServerConnector httpConnector;
+    private final ServerConnector tlsConnector;
+    private final Map<Integer, byte[]> bodies = new ConcurrentHashMap<>();
+
+    BenchmarkUpstreamServer() {
+        this(null);
+    }
+
+    /**
+     * @param unixSocketPath path of unix domain socket connector, {@code null} when not needed
+     */
+    BenchmarkUpstreamServer(Path unixSocketPath) {
+        HttpConfiguration httpConfig = new HttpConfiguration();
+        httpConnector = new ServerConnector(server, new HttpConnectionFactory(httpConfig), new HTTP2CServerConnectionFactory(httpConfig));
+        httpConnector.setHost(SimpleProxyExtension.LOCALHOST);
+        server.addConnector(httpConnector);
+
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStoreResource(ResourceFactory.of(server).newClassLoaderResource("keystore"));
+        sslContextFactory.setKeyStorePassword("password");
+        HttpConfiguration httpsConfig = new HttpConfiguration(httpConfig);
+        httpsConfig.addCustomizer(new SecureRequestCustomizer(false));
+        tlsConnector = new ServerConnector(server, new SslConnectionFactory(sslContextFactory, "http/1.1"), new HttpConnectionFactory(httpsConfig));
+        tlsConnector.setHost(SimpleProxyExtension.LOCALHOST);
+        server.addConnector(tlsConnector);
+
+        if (unixSocketPath != null) {
+            UnixDomainServerConnector unixConnector = new UnixDomainServerConnector(server, new HttpConnectionFactory(httpConfig));
+            unixConnector.setUnixDomainPath(unixSocketPath);
+            server.addConnector(unixConnector);
+        }
+
+        server.setHandler(new Handler.Abstract.NonBlocking() {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) {
+                Fields query = Request.extractQueryParameters(request);
+                String size = query.getValue("size");
+                byte[] body = bodies.computeIfAbsent(size != null ? Integer.parseInt(size) : 0, BenchmarkUpstreamServer::newBody);
+                response.setStatus(HttpStatus.OK_200);
+                response.getHeaders().put(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+                response.getHeaders().put(HttpHeader.CONTENT_LENGTH, body.length);
+                response.write(true, ByteBuffer.wrap(body), callback);
+                return true;
+            }
+        });
+    }
+
+    private static byte[] newBody(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'x');
+        return body;
+    }
+
+    void start() throws Exception {
+        server.start();
+    }
+
+    void stop() throws Exception {
+        server.stop();
+    }
+
+    String httpUrl(int size) {
+        return "http://" + SimpleProxyExtension.LOCALHOST + ":" + httpConnector.getLocalPort() + "/bytes?size=" + size;
+    }
+
+    int httpsPort() {
+        return tlsConnector.getLocalPort();
+    }
+
+    String httpsUrl(int size) {
+        return "https://" + SimpleProxyExtension.LOCALHOST + ":" + tlsConnector.getLocalPort() + "/bytes?size=" + size;
+    }
+
+}
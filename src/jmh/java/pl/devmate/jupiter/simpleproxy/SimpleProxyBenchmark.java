@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.client.ContentResponse;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpProxy;
+import org.eclipse.jetty.client.Origin;
+import org.eclipse.jetty.client.transport.HttpClientConnectionFactory;
+import org.eclipse.jetty.client.transport.HttpClientTransportDynamic;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.ClientConnectionFactoryOverHTTP2;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency of requests sent through {@link SimpleProxyServer} to in-process upstream server.<br>
+ * Run with {@code -prof gc} to report allocation rate per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SimpleProxyBenchmark {
+
+    private static final int CAPTURED_EVENTS_RESET_INTERVAL = 1024;
+
+    public enum Protocol {
+        HTTP_1_1, H2C, HTTPS_CONNECT
+    }
+
+    @Param({"HTTP_1_1", "H2C", "HTTPS_CONNECT"})
+    public Protocol protocol;
+
+    @Param({"256", "262144"})
+    public int bodySize;
+
+    @Param({"false", "true"})
+    public boolean capture;
+
+    private BenchmarkUpstreamServer upstream;
+    private SimpleProxyServer proxy;
+    private HttpClient client;
+    private String url;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        upstream = new BenchmarkUpstreamServer();
+        upstream.start();
+
+        proxy = new SimpleProxyServer(SimpleProxyConfig.builder()
+                .storeEvents(capture)
+                .storeRequestBody(capture)
+                .storeResponseBody(capture)
+                .build());
+        proxy.start();
+
+        client = newClient(proxy.runtimeInfo().httpPort());
+        url = protocol == Protocol.HTTPS_CONNECT ? upstream.httpsUrl(bodySize) : upstream.httpUrl(bodySize);
+    }
+
+    private HttpClient newClient(int proxyPort) throws Exception {
+        ClientConnector clientConnector = new ClientConnector();
+        clientConnector.setSslContextFactory(new SslContextFactory.Client(true));
+        HttpClient httpClient = new HttpClient(new HttpClientTransportDynamic(clientConnector,
+                HttpClientConnectionFactory.HTTP11,
+                new ClientConnectionFactoryOverHTTP2.HTTP2(new HTTP2Client(clientConnector))));
+        Origin.Address proxyAddress = new Origin.Address(SimpleProxyExtension.LOCALHOST, proxyPort);
+        httpClient.getProxyConfiguration().addProxy(protocol == Protocol.H2C
+                ? new HttpProxy(proxyAddress, false, new Origin.Protocol(List.of("h2c"), false))
+                : new HttpProxy(proxyAddress, false));
+        httpClient.start();
+        return httpClient;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.stop();
+        proxy.stop();
+        upstream.stop();
+    }
+
+    @Benchmark
+    public byte[] proxiedGet() throws Exception {
+        ContentResponse response = client.newRequest(url)
+                .timeout(10, TimeUnit.SECONDS)
+                .send();
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Unexpected response status " + response.getStatus());
+        }
+        if (capture && requests.incrementAndGet() % CAPTURED_EVENTS_RESET_INTERVAL == 0) {
+            // captured bodies are retained until reset
+            proxy.resetCapturedEvents();
+        }
+        return response.getContent();
+    }
+
+}
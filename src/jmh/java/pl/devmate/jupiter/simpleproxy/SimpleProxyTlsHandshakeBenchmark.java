@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of new TLS connection to upstream server, with full handshake or resumed session,
+ * using client SSL context shared by proxy servers ({@link SimpleProxySslContexts}).<br>
+ * Each operation connects, sends one request and reads the response, so TLS 1.3 session tickets are received.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimpleProxyTlsHandshakeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean resumeSession;
+
+    private BenchmarkUpstreamServer upstream;
+    private SSLContext sslContext;
+    private byte[] request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        upstream = new BenchmarkUpstreamServer();
+        upstream.start();
+        sslContext = SimpleProxySslContexts.trustAllClient(1024, Duration.ofHours(1));
+        String authority = SimpleProxyExtension.LOCALHOST + ":" + upstream.httpsPort();
+        request = ("GET /bytes?size=0 HTTP/1.1\r\nHost: " + authority + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        upstream.stop();
+    }
+
+    @Benchmark
+    public int newConnection() throws Exception {
+        try (SSLSocket socket = (SSLSocket) sslContext.getSocketFactory().createSocket(SimpleProxyExtension.LOCALHOST, upstream.httpsPort())) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            out.write(request);
+            out.flush();
+            return readResponseHead(socket.getInputStream());
+        } finally {
+            if (!resumeSession) {
+                invalidateCachedSessions();
+            }
+        }
+    }
+
+    /**
+     * Drop cached sessions (with TLS 1.3 tickets received after handshake), so next connection makes full handshake
+     */
+    private void invalidateCachedSessions() {
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        for (byte[] id : Collections.list(sessionContext.getIds())) {
+            SSLSession session = sessionContext.getSession(id);
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Read response head (body is empty), without waiting for connection close
+     */
+    private static int readResponseHead(InputStream in) throws Exception {
+        int read = 0;
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalStateException("Connection closed before response head");
+            }
+            read++;
+            matched = b == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        return read;
+    }
+
+}
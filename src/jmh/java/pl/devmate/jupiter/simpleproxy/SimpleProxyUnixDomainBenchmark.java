@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.client.ContentResponse;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpProxy;
+import org.eclipse.jetty.client.Request;
+import org.eclipse.jetty.io.Transport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of small requests sent through {@link SimpleProxyServer} over unix domain sockets compared to TCP loopback,
+ * on client side (proxy listener) and on upstream side (stand-in reached through unix socket).
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class SimpleProxyUnixDomainBenchmark {
+
+    private static final String STAND_IN_HOST = "stand-in.simple-proxy.benchmark";
+
+    public enum Link {
+        TCP, UNIX
+    }
+
+    @Param({"TCP", "UNIX"})
+    public Link clientLink;
+
+    @Param({"TCP", "UNIX"})
+    public Link upstreamLink;
+
+    @Param({"256"})
+    public int bodySize;
+
+    private Path socketsDir;
+    private BenchmarkUpstreamServer upstream;
+    private SimpleProxyServer proxy;
+    private HttpClient client;
+    private Transport clientTransport;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        socketsDir = Files.createTempDirectory("simple-proxy");
+        Path upstreamSocket = socketsDir.resolve("upstream.sock");
+        Path proxySocket = socketsDir.resolve("proxy.sock");
+        upstream = new BenchmarkUpstreamServer(upstreamSocket);
+        upstream.start();
+
+        SimpleProxyConfigBuilder config = SimpleProxyConfig.builder()
+                .storeEvents(false)
+                .unixSocketPath(proxySocket);
+        if (upstreamLink == Link.UNIX) {
+            config.upstreamUnixSocket(STAND_IN_HOST, 80, upstreamSocket);
+            url = "http://" + STAND_IN_HOST + "/bytes?size=" + bodySize;
+        } else {
+            url = upstream.httpUrl(bodySize);
+        }
+        proxy = new SimpleProxyServer(config.build());
+        proxy.start();
+
+        client = new HttpClient();
+        if (clientLink == Link.UNIX) {
+            // origin-form request sent to proxy socket, proxy takes upstream from Host header
+            clientTransport = new Transport.TCPUnix(proxySocket);
+        } else {
+            client.getProxyConfiguration().addProxy(new HttpProxy(SimpleProxyExtension.LOCALHOST, proxy.runtimeInfo().httpPort()));
+        }
+        client.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.stop();
+        proxy.stop();
+        upstream.stop();
+        try (var sockets = Files.list(socketsDir)) {
+            for (Path socket : sockets.toList()) {
+                Files.deleteIfExists(socket);
+            }
+        }
+        Files.deleteIfExists(socketsDir);
+    }
+
+    @Benchmark
+    public byte[] proxiedGet() throws Exception {
+        Request request = client.newRequest(url).timeout(10, TimeUnit.SECONDS);
+        if (clientTransport != null) {
+            request.transport(clientTransport);
+        }
+        ContentResponse response = request.send();
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Unexpected response status " + response.getStatus());
+        }
+        return response.getContent();
+    }
+
+}
@@ -16,6 +16,7 @@
 package pl.devmate.jupiter.simpleproxy;
 
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStats;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
@@ -49,6 +50,10 @@ public class SimpleProxy {
         return runningSimpleProxyServer().eventsCaptured();
     }
 
+    public static ProxyEventsStats eventsStats() {
+        return runningSimpleProxyServer().eventsStats();
+    }
+
     static void currentProxyServer(SimpleProxyServer simpleProxyServer) {
         defaultInstance.set(new SimpleProxy(simpleProxyServer));
     }
@@ -74,6 +79,10 @@ public class SimpleProxy {
         return runningSimpleProxyServer().buildTlsInetSocketAddress();
     }
 
+    public static Proxy buildSocksProxy() {
+        return runningSimpleProxyServer().buildSocksProxy();
+    }
+
 
     private static SimpleProxyServer runningSimpleProxyServer() {
         SimpleProxyServer simpleProxyServerInstance = defaultInstance.get().simpleProxyServer;
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyDer.*;
+
+/**
+ * Certificate authority generated for proxy server running in TLS interception mode.
+ * Intercepted hosts are served with leaf certificates signed by this authority,
+ * so clients must trust its {@link #certificate()}, e.g., with {@link #clientSslContext()}.<br>
+ * Keys are EC (P-256), certificates are signed with SHA256withECDSA.
+ */
+public final class SimpleProxyCertificateAuthority {
+
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+    private static final String OID_ECDSA_WITH_SHA256 = "1.2.840.10045.4.3.2";
+    private static final String OID_BASIC_CONSTRAINTS = "2.5.29.19";
+    private static final String OID_KEY_USAGE = "2.5.29.15";
+    private static final String OID_EXTENDED_KEY_USAGE = "2.5.29.37";
+    private static final String OID_SUBJECT_ALT_NAME = "2.5.29.17";
+    private static final String OID_SERVER_AUTH = "1.3.6.1.5.5.7.3.1";
+    private static final byte KEY_USAGE_DIGITAL_SIGNATURE = (byte) 0x80;
+    private static final byte KEY_USAGE_KEY_CERT_SIGN_AND_CRL_SIGN = (byte) 0x06;
+
+    private final SecureRandom random = new SecureRandom();
+    private final PrivateKey privateKey;
+    private final X509Certificate certificate;
+
+    private SimpleProxyCertificateAuthority(KeyPair keyPair, String name) {
+        this.privateKey = keyPair.getPrivate();
+        X500Principal subject = new X500Principal("CN=" + name + ", O=SimpleProxy");
+        ZonedDateTime now = ZonedDateTime.now();
+        this.certificate = sign(subject, subject, keyPair.getPublic(), now.minusDays(1), now.plusYears(10),
+                extension(OID_BASIC_CONSTRAINTS, true, sequence(bool(true))),
+                extension(OID_KEY_USAGE, true, bitString(new byte[]{KEY_USAGE_KEY_CERT_SIGN_AND_CRL_SIGN}, 1)));
+    }
+
+    /**
+     * Generate new certificate authority with fresh key pair
+     * @param name common name of the authority
+     */
+    static SimpleProxyCertificateAuthority generate(String name) {
+        return new SimpleProxyCertificateAuthority(SimpleProxyKeyPairPool.generateKeyPair(), name);
+    }
+
+    /**
+     * Self-signed certificate of the authority, to be trusted by clients of intercepting proxy
+     */
+    public X509Certificate certificate() {
+        return certificate;
+    }
+
+    /**
+     * Certificate of the authority in PEM format
+     */
+    public String certificatePem() {
+        try {
+            return "-----BEGIN CERTIFICATE-----\n"
+                    + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(certificate.getEncoded())
+                    + "\n-----END CERTIFICATE-----\n";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encode certificate", e);
+        }
+    }
+
+    /**
+     * In-memory trust store with the authority certificate
+     */
+    public KeyStore trustStore() {
+        try {
+            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            trustStore.load(null, null);
+            trustStore.setCertificateEntry("simple-proxy-ca", certificate);
+            return trustStore;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create trust store", e);
+        }
+    }
+
+    /**
+     * Client SSL context trusting only the authority (certificates minted for intercepted hosts)
+     */
+    public SSLContext clientSslContext() {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore());
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create client SSL context", e);
+        }
+    }
+
+    /**
+     * Mint leaf certificate for host name or ip address, valid for TLS server authentication
+     * @param host host name (or ip address) requested by client
+     * @param keyPair key pair of the leaf certificate
+     */
+    X509Certificate issue(String host, KeyPair keyPair) {
+        Objects.requireNonNull(host, "host cannot be null");
+        ZonedDateTime now = ZonedDateTime.now();
+        return sign(certificate.getSubjectX500Principal(), new X500Principal("CN=" + host), keyPair.getPublic(),
+                now.minusDays(1), now.plusYears(1),
+                extension(OID_KEY_USAGE, true, bitString(new byte[]{KEY_USAGE_DIGITAL_SIGNATURE}, 7)),
+                extension(OID_EXTENDED_KEY_USAGE, false, sequence(oid(OID_SERVER_AUTH))),
+                extension(OID_SUBJECT_ALT_NAME, false, sequence(subjectAltName(host))));
+    }
+
+    private X509Certificate sign(X500Principal issuer, X500Principal subject, PublicKey publicKey,
+                                 ZonedDateTime notBefore, ZonedDateTime notAfter, byte[]... extensions) {
+        byte[] signatureAlgorithm = sequence(oid(OID_ECDSA_WITH_SHA256));
+        byte[] tbsCertificate = sequence(
+                explicit(0, integer(BigInteger.TWO)),
+                integer(new BigInteger(127, random).add(BigInteger.ONE)),
+                signatureAlgorithm,
+                issuer.getEncoded(),
+                sequence(utcTime(notBefore), utcTime(notAfter)),
+                subject.getEncoded(),
+                publicKey.getEncoded(),
+                explicit(3, sequence(extensions)));
+        try {
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initSign(privateKey);
+            signature.update(tbsCertificate);
+            byte[] encoded = sequence(tbsCertificate, signatureAlgorithm, bitString(signature.sign(), 0));
+            return (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign certificate for " + subject.getName(), e);
+        }
+    }
+
+    private static byte[] extension(String oid, boolean critical, byte[] value) {
+        return critical
+                ? sequence(oid(oid), bool(true), octetString(value))
+                : sequence(oid(oid), octetString(value));
+    }
+
+    private static byte[] subjectAltName(String host) {
+        if (isIpAddress(host)) {
+            try {
+                return implicit(7, InetAddress.getByName(host).getAddress());
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid ip address: " + host, e);
+            }
+        }
+        return implicit(2, ia5String(host));
+    }
+
+    private static boolean isIpAddress(String host) {
+        return host.indexOf(':') >= 0 || host.chars().allMatch(c -> c == '.' || Character.isDigit(c));
+    }
+
+}
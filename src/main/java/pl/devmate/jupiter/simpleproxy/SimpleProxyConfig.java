@@ -15,26 +15,166 @@
  */
 package pl.devmate.jupiter.simpleproxy;
 
+import org.eclipse.jetty.util.SocketAddressResolver;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStreamSinkConfig;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Configuration parameters for SimpleProxy
  * @param port port for http proxy, default {@code 0} (random port)
  * @param addProxyResponseHeader should add header to response {@link SimpleProxy#SIMPLE_PROXY_VISITED_HEADER}, default {@code true}
  * @param storeRequestBody should request body be captured in proxy events, default {@code false}
  * @param storeResponseBody should response body be captured in proxy events, default {@code false}
+ * @param storeEvents should proxy events be retained, when disabled only statistics are collected, default {@code true}
+ * @param hostOverrides upstream host names redirected to other addresses (port {@code 0} keeps requested port), default empty
+ * @param socketAddressResolver resolver used to find upstream addresses, default {@code null} (jetty asynchronous resolver)
+ * @param dnsCacheTtl how long resolved upstream addresses are cached, {@link Duration#ZERO} disables cache, default 30 seconds
+ * @param destinationLimits limits enforced for every upstream destination, default {@link SimpleProxyDestinationLimits#UNLIMITED}
+ * @param limitsPerDestination limits for selected upstream destinations ({@code host:port}), default empty
+ * @param metricsEndpoint should metrics be served in Prometheus format on separate local port, default {@code false}
+ * @param tlsInterception should CONNECT tunnels be terminated with certificates minted by generated
+ *                        {@link SimpleProxyCertificateAuthority}, so HTTPS requests are captured, default {@code false}
+ * @param tlsInterceptionCacheSize max number of minted certificates kept in cache, default {@code 256}
+ * @param tlsSessionCacheSize max number of TLS sessions cached for resumption, per shared SSL context, default {@code 1024}
+ * @param tlsSessionTimeout how long cached TLS sessions can be resumed, at least 1 second, default 1 hour
+ * @param upstreamProtocol protocol used to send requests to every upstream destination, default {@link SimpleProxyUpstreamProtocol#AUTO}
+ * @param protocolsPerDestination protocols used for selected upstream destinations ({@code host:port}), default empty
+ * @param upstreamMaxConnectionsPerDestination max number of connections opened to upstream destination, default {@code 64}
+ * @param upstreamMaxStreamsPerConnection max number of concurrent HTTP/2 streams (requests) per upstream connection,
+ *                                        {@code 0} means limit advertised by upstream server, default {@code 0}
+ * @param webSocketFrameCapture should frames relayed through proxied WebSocket connections be captured in proxy events,
+ *                              default {@code false}
+ * @param webSocketFramePayloadLimit max number of payload bytes captured per WebSocket frame, default {@code 1024}
+ * @param streamingCapture should streamed responses (Server-Sent Events, responses without content length) be captured
+ *                         chunk by chunk, with event published when response headers arrive, default {@code false}
+ * @param streamingCaptureWindowBytes max number of latest streamed response bytes retained per event, default {@code 65536}
+ * @param socksProxy should SOCKS5 proxy connector be started, default {@code false}
+ * @param socksPort port for SOCKS5 proxy, default {@code 0} (random port)
+ * @param unixSocketPath path of unix domain socket on which proxy listens, next to http port, for clients on the same host,
+ *                       default {@code null} (disabled)
+ * @param upstreamUnixSockets unix domain sockets used to reach selected upstream destinations ({@code host:port}), default empty
+ * @param reverseProxy reverse proxy mode with backends balanced by proxy http port, default {@code null} (forward proxy)
+ * @param eventsSink stream of registered events to events aggregator (e.g., in another JVM),
+ *                   default {@code null} (disabled)
+ * @param captureFile columnar file to which registered events are appended, default {@code null} (disabled)
+ * @param bodyCompressionThreshold captured bodies of at least this many bytes are kept compressed in memory,
+ *                                 {@code -1} disables compression, default {@code -1}
+ * @param deduplicateBodies should identical captured bodies be stored once (shared by events), default {@code false}
  */
 public record SimpleProxyConfig(
         int port,
         boolean addProxyResponseHeader,
         boolean storeRequestBody,
-        boolean storeResponseBody) {
+        boolean storeResponseBody,
+        boolean storeEvents,
+        Map<String, InetSocketAddress> hostOverrides,
+        SocketAddressResolver socketAddressResolver,
+        Duration dnsCacheTtl,
+        SimpleProxyDestinationLimits destinationLimits,
+        Map<String, SimpleProxyDestinationLimits> limitsPerDestination,
+        boolean metricsEndpoint,
+        boolean tlsInterception,
+        int tlsInterceptionCacheSize,
+        int tlsSessionCacheSize,
+        Duration tlsSessionTimeout,
+        SimpleProxyUpstreamProtocol upstreamProtocol,
+        Map<String, SimpleProxyUpstreamProtocol> protocolsPerDestination,
+        int upstreamMaxConnectionsPerDestination,
+        int upstreamMaxStreamsPerConnection,
+        boolean webSocketFrameCapture,
+        int webSocketFramePayloadLimit,
+        boolean streamingCapture,
+        int streamingCaptureWindowBytes,
+        boolean socksProxy,
+        int socksPort,
+        SimpleProxyReverseProxy reverseProxy,
+        Path unixSocketPath,
+        Map<String, Path> upstreamUnixSockets,
+        ProxyEventsStreamSinkConfig eventsSink,
+        Path captureFile,
+        int bodyCompressionThreshold,
+        boolean deduplicateBodies) {
 
     public static final SimpleProxyConfig DEFAULT = new SimpleProxyConfig(
             0,
             true,
             false,
+            false,
+            true,
+            Map.of(),
+            null,
+            Duration.ofSeconds(30),
+            SimpleProxyDestinationLimits.UNLIMITED,
+            Map.of(),
+            false,
+            false,
+            256,
+            1024,
+            Duration.ofHours(1),
+            SimpleProxyUpstreamProtocol.AUTO,
+            Map.of(),
+            64,
+            0,
+            false,
+            1024,
+            false,
+            65536,
+            false,
+            0,
+            null,
+            null,
+            Map.of(),
+            null,
+            null,
+            ProxyEventsCollectorConfig.BODY_COMPRESSION_DISABLED,
             false
     );
 
+    public SimpleProxyConfig {
+        hostOverrides = Map.copyOf(hostOverrides);
+        Objects.requireNonNull(dnsCacheTtl, "dnsCacheTtl cannot be null");
+        Objects.requireNonNull(destinationLimits, "destinationLimits cannot be null");
+        limitsPerDestination = Map.copyOf(limitsPerDestination);
+        if (tlsInterceptionCacheSize < 1) {
+            throw new IllegalArgumentException("tlsInterceptionCacheSize must be positive");
+        }
+        if (tlsSessionCacheSize < 0) {
+            throw new IllegalArgumentException("tlsSessionCacheSize cannot be negative");
+        }
+        Objects.requireNonNull(tlsSessionTimeout, "tlsSessionTimeout cannot be null");
+        // session contexts take timeout in whole seconds, where 0 means sessions never expire
+        if (tlsSessionTimeout.toSeconds() < 1) {
+            throw new IllegalArgumentException("tlsSessionTimeout must be at least 1 second");
+        }
+        Objects.requireNonNull(upstreamProtocol, "upstreamProtocol cannot be null");
+        protocolsPerDestination = Map.copyOf(protocolsPerDestination);
+        if (upstreamMaxConnectionsPerDestination < 1) {
+            throw new IllegalArgumentException("upstreamMaxConnectionsPerDestination must be positive");
+        }
+        if (upstreamMaxStreamsPerConnection < 0) {
+            throw new IllegalArgumentException("upstreamMaxStreamsPerConnection cannot be negative");
+        }
+        if (webSocketFramePayloadLimit < 0) {
+            throw new IllegalArgumentException("webSocketFramePayloadLimit cannot be negative");
+        }
+        if (streamingCaptureWindowBytes < 0) {
+            throw new IllegalArgumentException("streamingCaptureWindowBytes cannot be negative");
+        }
+        if (socksPort < 0 || socksPort > 65535) {
+            throw new IllegalArgumentException("socksPort must be between 0 and 65535");
+        }
+        upstreamUnixSockets = Map.copyOf(upstreamUnixSockets);
+        if (bodyCompressionThreshold < ProxyEventsCollectorConfig.BODY_COMPRESSION_DISABLED) {
+            throw new IllegalArgumentException("bodyCompressionThreshold must be -1 (disabled) or not negative");
+        }
+    }
+
     public static SimpleProxyConfigBuilder builder() {
         return new SimpleProxyConfigBuilder();
     }
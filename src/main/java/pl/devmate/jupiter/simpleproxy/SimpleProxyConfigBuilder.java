@@ -15,12 +15,54 @@
  */
 package pl.devmate.jupiter.simpleproxy;
 
+import org.eclipse.jetty.util.SocketAddressResolver;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsAggregator;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureReader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStreamSinkConfig;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class SimpleProxyConfigBuilder {
 
     private int port = 0;
     private boolean addProxyResponseHeader = true;
     private boolean storeRequestBody = false;
     private boolean storeResponseBody = false;
+    private boolean storeEvents = true;
+    private final Map<String, InetSocketAddress> hostOverrides = new LinkedHashMap<>();
+    private SocketAddressResolver socketAddressResolver = null;
+    private Duration dnsCacheTtl = Duration.ofSeconds(30);
+    private SimpleProxyDestinationLimits destinationLimits = SimpleProxyDestinationLimits.UNLIMITED;
+    private final Map<String, SimpleProxyDestinationLimits> limitsPerDestination = new LinkedHashMap<>();
+    private boolean metricsEndpoint = false;
+    private boolean tlsInterception = false;
+    private int tlsInterceptionCacheSize = 256;
+    private int tlsSessionCacheSize = 1024;
+    private Duration tlsSessionTimeout = Duration.ofHours(1);
+    private SimpleProxyUpstreamProtocol upstreamProtocol = SimpleProxyUpstreamProtocol.AUTO;
+    private final Map<String, SimpleProxyUpstreamProtocol> protocolsPerDestination = new LinkedHashMap<>();
+    private int upstreamMaxConnectionsPerDestination = 64;
+    private int upstreamMaxStreamsPerConnection = 0;
+    private boolean webSocketFrameCapture = false;
+    private int webSocketFramePayloadLimit = 1024;
+    private boolean streamingCapture = false;
+    private int streamingCaptureWindowBytes = 65536;
+    private boolean socksProxy = false;
+    private int socksPort = 0;
+    private SimpleProxyReverseProxy reverseProxy = null;
+    private Path unixSocketPath = null;
+    private final Map<String, Path> upstreamUnixSockets = new LinkedHashMap<>();
+    private ProxyEventsStreamSinkConfig eventsSink = null;
+    private Path captureFile = null;
+    private int bodyCompressionThreshold = ProxyEventsCollectorConfig.BODY_COMPRESSION_DISABLED;
+    private boolean deduplicateBodies = false;
 
     /**
      * Local port for http proxy, {@code 0} means random port.
@@ -58,12 +100,329 @@ public class SimpleProxyConfigBuilder {
         return this;
     }
 
+    /**
+     * Whether to retain captured proxy events. When disabled, only statistics are collected.
+     * @param storeEvents true if proxy events to be retained
+     */
+    public SimpleProxyConfigBuilder storeEvents(boolean storeEvents) {
+        this.storeEvents = storeEvents;
+        return this;
+    }
+
+    /**
+     * Redirect upstream host to another address, e.g., to a local stand-in server.
+     * Requested port is kept, only the host is replaced.
+     * @param host upstream host name requested by client
+     * @param address host name or ip address used instead
+     */
+    public SimpleProxyConfigBuilder overrideHost(String host, String address) {
+        return overrideHost(host, address, 0);
+    }
+
+    /**
+     * Redirect upstream host to another address and port, e.g., to a local stand-in server on random port.
+     * @param host upstream host name requested by client
+     * @param address host name or ip address used instead
+     * @param port port used instead, {@code 0} means requested port
+     */
+    public SimpleProxyConfigBuilder overrideHost(String host, String address, int port) {
+        this.hostOverrides.put(host, InetSocketAddress.createUnresolved(address, port));
+        return this;
+    }
+
+    /**
+     * Custom resolver of upstream server addresses, {@code null} means default jetty asynchronous resolver.
+     * @param socketAddressResolver resolver used for hosts that are not overridden
+     */
+    public SimpleProxyConfigBuilder socketAddressResolver(SocketAddressResolver socketAddressResolver) {
+        this.socketAddressResolver = socketAddressResolver;
+        return this;
+    }
+
+    /**
+     * How long resolved upstream addresses are cached, {@link Duration#ZERO} disables cache.
+     * @param dnsCacheTtl time to live of resolved addresses
+     */
+    public SimpleProxyConfigBuilder dnsCacheTtl(Duration dnsCacheTtl) {
+        this.dnsCacheTtl = dnsCacheTtl;
+        return this;
+    }
+
+    /**
+     * Limits of concurrent requests and request rate, enforced for every upstream destination separately.
+     * @param destinationLimits limits for each destination
+     */
+    public SimpleProxyConfigBuilder destinationLimits(SimpleProxyDestinationLimits destinationLimits) {
+        this.destinationLimits = destinationLimits;
+        return this;
+    }
+
+    /**
+     * Limits of concurrent requests and request rate for selected upstream destination.
+     * @param host upstream host name requested by client
+     * @param port upstream port requested by client
+     * @param destinationLimits limits for the destination
+     */
+    public SimpleProxyConfigBuilder destinationLimits(String host, int port, SimpleProxyDestinationLimits destinationLimits) {
+        this.limitsPerDestination.put(SimpleProxyDestinationLimiter.destination(host, port), destinationLimits);
+        return this;
+    }
+
+    /**
+     * Whether to serve metrics and endpoint statistics in Prometheus text format, at {@code /metrics}
+     * on separate port bound to localhost (see {@link SimpleProxyRuntimeInfo#metricsPort()}).
+     * @param metricsEndpoint true if metrics endpoint to be started
+     */
+    public SimpleProxyConfigBuilder metricsEndpoint(boolean metricsEndpoint) {
+        this.metricsEndpoint = metricsEndpoint;
+        return this;
+    }
+
+    /**
+     * Whether to terminate CONNECT tunnels with certificates minted on the fly, signed by certificate authority
+     * generated at proxy start (see {@link SimpleProxyRuntimeInfo#certificateAuthority()}).
+     * Decrypted requests are captured like plain http requests, clients must trust the authority.
+     * @param tlsInterception true if TLS traffic in CONNECT tunnels to be intercepted
+     */
+    public SimpleProxyConfigBuilder tlsInterception(boolean tlsInterception) {
+        this.tlsInterception = tlsInterception;
+        return this;
+    }
+
+    /**
+     * Max number of certificates minted for intercepted hosts kept in cache, least recently used are evicted.
+     * @param tlsInterceptionCacheSize cache size, must be positive
+     */
+    public SimpleProxyConfigBuilder tlsInterceptionCacheSize(int tlsInterceptionCacheSize) {
+        this.tlsInterceptionCacheSize = tlsInterceptionCacheSize;
+        return this;
+    }
+
+    /**
+     * Max number of TLS sessions cached for resumption. SSL contexts are shared by all proxies (in JVM)
+     * with the same session cache settings, {@code 0} means no limit.
+     * @param tlsSessionCacheSize session cache size
+     */
+    public SimpleProxyConfigBuilder tlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+        return this;
+    }
+
+    /**
+     * How long cached TLS sessions can be resumed, at least 1 second.
+     * @param tlsSessionTimeout session timeout
+     */
+    public SimpleProxyConfigBuilder tlsSessionTimeout(Duration tlsSessionTimeout) {
+        this.tlsSessionTimeout = tlsSessionTimeout;
+        return this;
+    }
+
+    /**
+     * Protocol used to send requests to every upstream destination.
+     * @param upstreamProtocol protocol for each destination
+     */
+    public SimpleProxyConfigBuilder upstreamProtocol(SimpleProxyUpstreamProtocol upstreamProtocol) {
+        this.upstreamProtocol = upstreamProtocol;
+        return this;
+    }
+
+    /**
+     * Protocol used to send requests to selected upstream destination,
+     * e.g., {@link SimpleProxyUpstreamProtocol#HTTP_2} for local stand-in server known to accept h2c.
+     * @param host upstream host name requested by client
+     * @param port upstream port requested by client
+     * @param upstreamProtocol protocol for the destination
+     */
+    public SimpleProxyConfigBuilder upstreamProtocol(String host, int port, SimpleProxyUpstreamProtocol upstreamProtocol) {
+        this.protocolsPerDestination.put(SimpleProxyDestinationLimiter.destination(host, port), upstreamProtocol);
+        return this;
+    }
+
+    /**
+     * Max number of connections opened to every upstream destination.
+     * @param upstreamMaxConnectionsPerDestination max connections per destination
+     */
+    public SimpleProxyConfigBuilder upstreamMaxConnectionsPerDestination(int upstreamMaxConnectionsPerDestination) {
+        this.upstreamMaxConnectionsPerDestination = upstreamMaxConnectionsPerDestination;
+        return this;
+    }
+
+    /**
+     * Max number of concurrent requests multiplexed over single HTTP/2 upstream connection (capped by limit
+     * advertised by upstream server), {@code 0} means limit advertised by upstream server.
+     * @param upstreamMaxStreamsPerConnection max concurrent streams per connection
+     */
+    public SimpleProxyConfigBuilder upstreamMaxStreamsPerConnection(int upstreamMaxStreamsPerConnection) {
+        this.upstreamMaxStreamsPerConnection = upstreamMaxStreamsPerConnection;
+        return this;
+    }
+
+    /**
+     * Whether to capture frames relayed through proxied WebSocket connections (opcode, size, timestamp and payload),
+     * available in {@link pl.devmate.jupiter.simpleproxy.events.ProxyEvent#webSocket()} of upgrade request.
+     * @param webSocketFrameCapture true if WebSocket frames to be captured
+     */
+    public SimpleProxyConfigBuilder webSocketFrameCapture(boolean webSocketFrameCapture) {
+        this.webSocketFrameCapture = webSocketFrameCapture;
+        return this;
+    }
+
+    /**
+     * Max number of payload bytes captured per WebSocket frame, longer payloads are truncated.
+     * @param webSocketFramePayloadLimit payload limit, {@code 0} captures frame headers only
+     */
+    public SimpleProxyConfigBuilder webSocketFramePayloadLimit(int webSocketFramePayloadLimit) {
+        this.webSocketFramePayloadLimit = webSocketFramePayloadLimit;
+        return this;
+    }
+
+    /**
+     * Whether to capture streamed responses (Server-Sent Events, chunked responses without content length) chunk by chunk.
+     * Event is published as soon as response headers arrive (see {@link pl.devmate.jupiter.simpleproxy.events.ProxyEvent#inProgress()}),
+     * and replaced by the final event when response is complete. Streamed body is not buffered in full.
+     * @param streamingCapture true if streamed responses to be captured incrementally
+     */
+    public SimpleProxyConfigBuilder streamingCapture(boolean streamingCapture) {
+        this.streamingCapture = streamingCapture;
+        return this;
+    }
+
+    /**
+     * Max number of the latest streamed response bytes retained per event, older chunks are evicted.
+     * @param streamingCaptureWindowBytes window size in bytes
+     */
+    public SimpleProxyConfigBuilder streamingCaptureWindowBytes(int streamingCaptureWindowBytes) {
+        this.streamingCaptureWindowBytes = streamingCaptureWindowBytes;
+        return this;
+    }
+
+    /**
+     * Whether to start SOCKS5 proxy connector (CONNECT command, no authentication), for clients unable to use http proxy.
+     * Tunnels are captured like CONNECT tunnels, port is available in {@link SimpleProxyRuntimeInfo#socksPort()}.
+     * @param socksProxy true if SOCKS5 connector to be started
+     */
+    public SimpleProxyConfigBuilder socksProxy(boolean socksProxy) {
+        this.socksProxy = socksProxy;
+        return this;
+    }
+
+    /**
+     * Local port for SOCKS5 proxy, {@code 0} means random port.
+     * @param socksPort local port
+     */
+    public SimpleProxyConfigBuilder socksPort(int socksPort) {
+        this.socksPort = socksPort;
+        return this;
+    }
+
+    /**
+     * Run as reverse proxy: requests sent directly to http proxy port (e.g., {@code http://localhost:<port>/path})
+     * are forwarded to backends chosen by load balancer, captured events contain uri of chosen backend.
+     * @param reverseProxy backends and load balancing, {@code null} means forward proxy
+     */
+    public SimpleProxyConfigBuilder reverseProxy(SimpleProxyReverseProxy reverseProxy) {
+        this.reverseProxy = reverseProxy;
+        return this;
+    }
+
+    /**
+     * Listen also on unix domain socket, for clients on the same host (e.g., Jetty http client with unix transport).
+     * Requests received on the socket are handled like requests received on http port.
+     * @param unixSocketPath path of socket file, created on start and deleted on stop
+     */
+    public SimpleProxyConfigBuilder unixSocketPath(Path unixSocketPath) {
+        this.unixSocketPath = unixSocketPath;
+        return this;
+    }
+
+    /**
+     * Reach upstream destination through unix domain socket (e.g., local stand-in server), instead of TCP.
+     * Destination host name is not resolved then.
+     * @param host host name of the destination
+     * @param port port of the destination
+     * @param unixSocketPath path of socket on which destination server listens
+     */
+    public SimpleProxyConfigBuilder upstreamUnixSocket(String host, int port, Path unixSocketPath) {
+        this.upstreamUnixSockets.put(SimpleProxyDestinationLimiter.destination(host, port), unixSocketPath);
+        return this;
+    }
+
+    /**
+     * Stream registered events (and tunnels) in batches to {@link ProxyEventsAggregator}, e.g., started by build
+     * in another JVM, to get one view of traffic and latency of all forked test JVMs.
+     * @param eventsSink aggregator address and batching, {@code null} disables streaming
+     */
+    public SimpleProxyConfigBuilder eventsSink(ProxyEventsStreamSinkConfig eventsSink) {
+        this.eventsSink = eventsSink;
+        return this;
+    }
+
+    /**
+     * Append registered events to columnar capture file, e.g., to keep captures of long runs for analysis.
+     * File is read with {@link ProxyEventsCaptureReader}, without loading all events to memory.
+     * @param captureFile path of capture file, appended to if it exists, {@code null} disables capture file
+     */
+    public SimpleProxyConfigBuilder captureFile(Path captureFile) {
+        this.captureFile = captureFile;
+        return this;
+    }
+
+    /**
+     * Keep captured bodies compressed in memory, to reduce heap retained by large text (e.g., JSON) bodies.
+     * Bodies are compressed in background after event is registered, {@link ProxyEventRequest#requestBytes()}
+     * and {@link ProxyEventResponse#responseBytes()} decompress them on access.
+     * @param bodyCompressionThreshold bodies of at least this many bytes are compressed, {@code -1} disables compression
+     */
+    public SimpleProxyConfigBuilder bodyCompressionThreshold(int bodyCompressionThreshold) {
+        this.bodyCompressionThreshold = bodyCompressionThreshold;
+        return this;
+    }
+
+    /**
+     * Store identical captured bodies (e.g., fixtures, tokens repeated by many requests) once. Bodies are hashed
+     * in background after event is registered, and the stored copy is shared by all events with the same body.
+     * Shared copy is released with the last event referencing it (on reset).
+     * @param deduplicateBodies true if identical bodies to be stored once
+     */
+    public SimpleProxyConfigBuilder deduplicateBodies(boolean deduplicateBodies) {
+        this.deduplicateBodies = deduplicateBodies;
+        return this;
+    }
+
     public SimpleProxyConfig build() {
         return new SimpleProxyConfig(
                 port,
                 addProxyResponseHeader,
                 storeRequestBody,
-                storeResponseBody
+                storeResponseBody,
+                storeEvents,
+                hostOverrides,
+                socketAddressResolver,
+                dnsCacheTtl,
+                destinationLimits,
+                limitsPerDestination,
+                metricsEndpoint,
+                tlsInterception,
+                tlsInterceptionCacheSize,
+                tlsSessionCacheSize,
+                tlsSessionTimeout,
+                upstreamProtocol,
+                protocolsPerDestination,
+                upstreamMaxConnectionsPerDestination,
+                upstreamMaxStreamsPerConnection,
+                webSocketFrameCapture,
+                webSocketFramePayloadLimit,
+                streamingCapture,
+                streamingCaptureWindowBytes,
+                socksProxy,
+                socksPort,
+                reverseProxy,
+                unixSocketPath,
+                upstreamUnixSockets,
+                eventsSink,
+                captureFile,
+                bodyCompressionThreshold,
+                deduplicateBodies
         );
     }
 
@@ -16,47 +16,234 @@
 package pl.devmate.jupiter.simpleproxy;
 
 import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ConnectHandler;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventStream;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocket;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
 
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyExtension.LOCALHOST;
 import static pl.devmate.jupiter.simpleproxy.SimpleProxyHandler.*;
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyServer.SIMPLE_PROXY_MITM_CONNECTOR_NAME;
 import static pl.devmate.jupiter.simpleproxy.SimpleProxyHeaderMapper.toEventProxyHeaders;
 
 class SimpleProxyConnectHandler extends ConnectHandler {
 
     private static final Logger log = LoggerFactory.getLogger(SimpleProxyConnectHandler.class);
+    private static final String SIMPLE_PROXY_TUNNEL = "simple-proxy-tunnel";
     private final ProxyEventsCollector proxyEventsCollector;
     private final SimpleProxyConfig simpleProxyConfig;
+    private final SimpleProxyMetrics metrics;
+    private final SimpleProxyMitmKeyManager mitmKeyManager;
 
-    public SimpleProxyConnectHandler(ProxyEventsCollector proxyEventsCollector, SimpleProxyConfig simpleProxyConfig) {
+    /**
+     * @param mitmKeyManager key manager of TLS interception connector, {@code null} when TLS interception is disabled
+     */
+    public SimpleProxyConnectHandler(ProxyEventsCollector proxyEventsCollector, SimpleProxyConfig simpleProxyConfig,
+                                     SimpleProxyMetrics metrics, SimpleProxyMitmKeyManager mitmKeyManager) {
         this.proxyEventsCollector = proxyEventsCollector;
         this.simpleProxyConfig = simpleProxyConfig;
+        this.metrics = metrics;
+        this.mitmKeyManager = mitmKeyManager;
     }
 
     @Override
     public boolean handle(Request request, Response response, Callback callback) throws Exception {
-        if (HttpMethod.CONNECT.is(request.getMethod())) {
-            log.trace("SimpleProxy will not capture events (requests) sent through connect tunnel. Only HTTP traffic is observed.");
+        SimpleProxyTimings.of(request);
+        metrics.requestReceived();
+        boolean webSocketUpgrade = SimpleProxyHandler.isWebSocketUpgrade(request);
+        if (HttpMethod.CONNECT.is(request.getMethod()) && !webSocketUpgrade) {
+            log.trace(mitmKeyManager != null
+                    ? "SimpleProxy will intercept TLS traffic sent through connect tunnel."
+                    : "SimpleProxy will not capture events (requests) sent through connect tunnel, only tunnel traffic is counted.");
         }
         if (simpleProxyConfig.addProxyResponseHeader()) {
             response.getHeaders().add(SimpleProxy.SIMPLE_PROXY_VISITED_HEADER, "true");
         }
         Callback simpleProxyConnectCallback = new SimpleProxyConnectCallback(request, response, callback);
+        if (webSocketUpgrade) {
+            // extended CONNECT (RFC 8441) opens WebSocket, not tunnel, pass it to proxy handler
+            return getHandler().handle(request, response, simpleProxyConnectCallback);
+        }
         return super.handle(request, response, simpleProxyConnectCallback);
     }
 
+    @Override
+    protected void connectToServer(Request request, String host, int port, Promise<SocketChannel> promise) {
+        SimpleProxyTimings timings = SimpleProxyTimings.of(request);
+        timings.upstreamQueued();
+        if (mitmKeyManager != null) {
+            // terminate tunnel at local interception connector instead of target server
+            host = LOCALHOST;
+            port = mitmConnectorPort();
+        }
+        super.connectToServer(request, host, port, Promise.from(
+                channel -> {
+                    timings.upstreamConnected(false);
+                    promise.succeeded(channel);
+                },
+                promise::failed));
+    }
+
+    @Override
+    protected UpstreamConnection newUpstreamConnection(EndPoint endPoint, ConnectContext connectContext) {
+        SimpleProxyTunnel tunnel = new SimpleProxyTunnel(
+                connectContext.getRequest().getHttpURI().getAuthority(),
+                collector(connectContext.getRequest())::registerTunnel);
+        connectContext.getContext().put(SIMPLE_PROXY_TUNNEL, tunnel);
+        if (mitmKeyManager != null) {
+            mitmKeyManager.registerTunnel(localPort(endPoint), connectContext.getRequest().getHttpURI().getHost());
+        }
+        return new CountingUpstreamConnection(endPoint, connectContext, tunnel);
+    }
+
+    private int mitmConnectorPort() {
+        return Arrays.stream(getServer().getConnectors())
+                .filter(ServerConnector.class::isInstance)
+                .map(ServerConnector.class::cast)
+                .filter(connector -> SIMPLE_PROXY_MITM_CONNECTOR_NAME.equals(connector.getName()))
+                .mapToInt(ServerConnector::getLocalPort)
+                .findAny()
+                .orElseThrow(() -> new IllegalStateException("Could not find TLS interception port"));
+    }
+
+    private static int localPort(EndPoint endPoint) {
+        return endPoint.getLocalSocketAddress() instanceof InetSocketAddress address ? address.getPort() : -1;
+    }
+
+    @Override
+    protected DownstreamConnection newDownstreamConnection(EndPoint endPoint, ConcurrentMap<String, Object> context) {
+        if (context.get(SIMPLE_PROXY_TUNNEL) instanceof SimpleProxyTunnel tunnel) {
+            return new CountingDownstreamConnection(endPoint, context, tunnel);
+        }
+        return super.newDownstreamConnection(endPoint, context);
+    }
+
+    /**
+     * Tunnel connection to target server, counts bytes received from target
+     */
+    private class CountingUpstreamConnection extends UpstreamConnection {
+        private final SimpleProxyTunnel tunnel;
+
+        private CountingUpstreamConnection(EndPoint endPoint, ConnectContext connectContext, SimpleProxyTunnel tunnel) {
+            super(endPoint, SimpleProxyConnectHandler.this.getExecutor(), SimpleProxyConnectHandler.this.getByteBufferPool(), connectContext);
+            this.tunnel = tunnel;
+        }
+
+        @Override
+        protected int read(EndPoint endPoint, ByteBuffer buffer) throws IOException {
+            int read = super.read(endPoint, buffer);
+            if (read > 0) {
+                tunnel.downstream(read);
+            }
+            return read;
+        }
+
+        @Override
+        public void onClose(Throwable cause) {
+            super.onClose(cause);
+            tunnel.close();
+            if (mitmKeyManager != null) {
+                mitmKeyManager.releaseTunnel(localPort(getEndPoint()));
+            }
+        }
+    }
+
+    /**
+     * Tunnel connection to client, counts bytes received from client (including bytes read together with CONNECT request)
+     */
+    private class CountingDownstreamConnection extends DownstreamConnection {
+        private final SimpleProxyTunnel tunnel;
+
+        private CountingDownstreamConnection(EndPoint endPoint, ConcurrentMap<String, Object> context, SimpleProxyTunnel tunnel) {
+            super(endPoint, SimpleProxyConnectHandler.this.getExecutor(), SimpleProxyConnectHandler.this.getByteBufferPool(), context);
+            this.tunnel = tunnel;
+        }
+
+        @Override
+        public void onUpgradeTo(ByteBuffer buffer) {
+            if (buffer != null && buffer.hasRemaining()) {
+                tunnel.upstream(buffer, buffer.remaining());
+            }
+            super.onUpgradeTo(buffer);
+        }
+
+        @Override
+        protected int read(EndPoint endPoint, ByteBuffer buffer) throws IOException {
+            int read = super.read(endPoint, buffer);
+            if (read > 0) {
+                tunnel.upstream(buffer, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void onClose(Throwable cause) {
+            super.onClose(cause);
+            tunnel.close();
+        }
+    }
+
+    /**
+     * Client-to-proxy request event, with request body bytes if captured (in SimpleProxyHandler)
+     */
+    static ProxyEventRequest clientToProxyRequestEvent(Request clientToProxyRequest) {
+        byte[] clientToProxyRequestContentBytes = clientToProxyRequest.getAttribute(SIMPLE_PROXY_REQUEST_CONTENT)
+                instanceof SimpleProxyHandler.BufferingProxyRequestContent clientToProxyRequestContent
+                ? clientToProxyRequestContent.requestContent()
+                : null;
+        return new ProxyEventRequest(
+                Instant.ofEpochMilli(Request.getTimeStamp(clientToProxyRequest)),
+                clientToProxyRequestUri(clientToProxyRequest),
+                clientToProxyRequest.getMethod(),
+                toEventProxyHeaders(clientToProxyRequest.getHeaders()),
+                clientToProxyRequestContentBytes
+        );
+    }
+
+    /**
+     * Collector of events received by connector of the request, partition collector for partition connectors
+     * (opened for clients attached to daemon)
+     */
+    static ProxyEventsCollector collector(ProxyEventsCollector proxyEventsCollector, Request clientToProxyRequest) {
+        Connector connector = clientToProxyRequest.getConnectionMetaData().getConnector();
+        return proxyEventsCollector.partition(connector != null ? connector.getName() : null);
+    }
+
+    private ProxyEventsCollector collector(Request clientToProxyRequest) {
+        return collector(proxyEventsCollector, clientToProxyRequest);
+    }
+
+    /**
+     * Requested uri, in reverse proxy mode rewritten to backend the request was sent to
+     */
+    private static URI clientToProxyRequestUri(Request clientToProxyRequest) {
+        SimpleProxyLoadBalancer.Lease lease = SimpleProxyLoadBalancer.lease(clientToProxyRequest);
+        return lease != null ? lease.target().toURI() : clientToProxyRequest.getHttpURI().toURI();
+    }
+
     private class SimpleProxyConnectCallback implements Callback {
         private final Response response;
         private final Callback callback;
@@ -95,23 +282,19 @@ class SimpleProxyConnectHandler extends ConnectHandler {
          - response body captured while handing server response (server response to proxy)
          */
         private void storeSimpleProxyEventInCollector(Request clientToProxyRequest, Response proxyToClientResponse) {
+            SimpleProxyTimings timings = SimpleProxyTimings.of(clientToProxyRequest);
+            timings.clientWriteComplete(proxyToClientResponse.getStatus());
+            SimpleProxyJfrEvents.EventCapture captureEvent = SimpleProxyJfrEvents.eventCapture();
+            if (captureEvent != null) {
+                captureEvent.begin();
+            }
             try {
                 // try to find server-to-proxy response stored as attribute (in SimpleProxyHandler)
                 org.eclipse.jetty.client.Response serverToProxyResponse = storedServerToProxyResponse(clientToProxyRequest)
                         .orElse(null);
 
-                // fill request body bytes if available
-                byte[] clientToProxyRequestContentBytes = bufferingProxyRequestContentAttribute(clientToProxyRequest)
-                        .map(SimpleProxyHandler.BufferingProxyRequestContent::requestContent)
-                        .orElse(null);
-
-                ProxyEventRequest finalClientToProxyRequestEvent = new ProxyEventRequest(
-                        Instant.ofEpochMilli(Request.getTimeStamp(clientToProxyRequest)),
-                        clientToProxyRequest.getHttpURI().toURI(),
-                        clientToProxyRequest.getMethod(),
-                        toEventProxyHeaders(clientToProxyRequest.getHeaders()),
-                        clientToProxyRequestContentBytes
-                );
+                ProxyEventRequest finalClientToProxyRequestEvent = clientToProxyRequestEvent(clientToProxyRequest);
+                byte[] clientToProxyRequestContentBytes = finalClientToProxyRequestEvent.requestBytes();
 
                 // fill response body bytes if available
                 byte[] responseBodyBytes = bufferingProxyResponseListenerAttribute(clientToProxyRequest)
@@ -137,17 +320,40 @@ class SimpleProxyConnectHandler extends ConnectHandler {
                     );
                 }
 
-                // store proxy event in collector
-                proxyEventsCollector.register(new ProxyEvent(
+                // WebSocket frames log, when request was upgraded (in SimpleProxyHandler)
+                ProxyEventWebSocket webSocket = clientToProxyRequest.getAttribute(SIMPLE_PROXY_WEBSOCKET) instanceof ProxyEventWebSocket frames
+                        ? frames
+                        : null;
+
+                // streamed response chunks, when event in progress was published (in SimpleProxyHandler)
+                ProxyEventStream responseStream = clientToProxyRequest.getAttribute(SIMPLE_PROXY_RESPONSE_STREAM) instanceof ProxyEventStream stream
+                        ? stream
+                        : null;
+
+                // store proxy event in collector (replacing event in progress)
+                collector(clientToProxyRequest).register(new ProxyEvent(
                         finalClientToProxyRequestEvent,
-                        serverToProxyResponseEvent
+                        serverToProxyResponseEvent,
+                        timings.toEventTimings(),
+                        webSocket,
+                        responseStream
                 ));
+
+                if (captureEvent != null && captureEvent.shouldCommit()) {
+                    captureEvent.url = timings.url();
+                    captureEvent.capturedBytes = length(clientToProxyRequestContentBytes) + length(responseBodyBytes);
+                    captureEvent.commit();
+                }
             } catch (Exception e) {
                 log.warn("Could not store simple proxy event in collector", e);
             }
             clearSimpleProxyAttributes(clientToProxyRequest);
         }
 
+        private static long length(byte[] bytes) {
+            return bytes != null ? bytes.length : 0;
+        }
+
         private Optional<SimpleProxyHandler.BufferingProxyResponseListener> bufferingProxyResponseListenerAttribute(Request clientToProxyRequest) {
             Object attribute = clientToProxyRequest.getAttribute(SIMPLE_PROXY_RESPONSE_LISTENER);
             if (attribute instanceof SimpleProxyHandler.BufferingProxyResponseListener clientToProxyResponseListener) {
@@ -156,14 +362,6 @@ class SimpleProxyConnectHandler extends ConnectHandler {
             return Optional.empty();
         }
 
-        private Optional<SimpleProxyHandler.BufferingProxyRequestContent> bufferingProxyRequestContentAttribute(Request clientToProxyRequest) {
-            Object attribute = clientToProxyRequest.getAttribute(SIMPLE_PROXY_REQUEST_CONTENT);
-            if (attribute instanceof SimpleProxyHandler.BufferingProxyRequestContent clientToProxyRequestContent) {
-                return Optional.of(clientToProxyRequestContent);
-            }
-            return Optional.empty();
-        }
-
         private Optional<org.eclipse.jetty.client.Response> storedServerToProxyResponse(Request clientToProxyRequest) {
             Object attribute = clientToProxyRequest.getAttribute(SIMPLE_PROXY_RESPONSE_FROM_SERVER);
             if (attribute instanceof org.eclipse.jetty.client.Response serverToProxyResponse) {
@@ -177,6 +375,9 @@ class SimpleProxyConnectHandler extends ConnectHandler {
             clientToProxyRequest.removeAttribute(SIMPLE_PROXY_REQUEST_CONTENT);
             clientToProxyRequest.removeAttribute(SIMPLE_PROXY_REQUEST_TO_SERVER);
             clientToProxyRequest.removeAttribute(SIMPLE_PROXY_RESPONSE_FROM_SERVER);
+            clientToProxyRequest.removeAttribute(SIMPLE_PROXY_WEBSOCKET);
+            clientToProxyRequest.removeAttribute(SIMPLE_PROXY_RESPONSE_STREAM);
+            clientToProxyRequest.removeAttribute(SimpleProxyTimings.SIMPLE_PROXY_TIMINGS);
         }
 
     }
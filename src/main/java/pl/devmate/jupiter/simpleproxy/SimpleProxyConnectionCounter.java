@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.ssl.SslConnection;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts open connections and transferred bytes of a connector.<br>
+ * Only connections on network end points are counted, connections over decrypted TLS end points are skipped,
+ * so every socket and every byte on the wire is counted once.
+ */
+class SimpleProxyConnectionCounter implements Connection.Listener {
+
+    private final Set<Connection> openConnections = ConcurrentHashMap.newKeySet();
+    private final LongAdder openedConnections = new LongAdder();
+    private final LongAdder closedBytesIn = new LongAdder();
+    private final LongAdder closedBytesOut = new LongAdder();
+
+    @Override
+    public void onOpened(Connection connection) {
+        if (counted(connection) && openConnections.add(connection)) {
+            openedConnections.increment();
+        }
+    }
+
+    @Override
+    public void onClosed(Connection connection) {
+        if (openConnections.remove(connection)) {
+            closedBytesIn.add(Math.max(connection.getBytesIn(), 0));
+            closedBytesOut.add(Math.max(connection.getBytesOut(), 0));
+        }
+    }
+
+    int activeConnections() {
+        return openConnections.size();
+    }
+
+    long openedConnections() {
+        return openedConnections.sum();
+    }
+
+    long bytesIn() {
+        long openBytesIn = openConnections.stream()
+                .mapToLong(connection -> Math.max(connection.getBytesIn(), 0))
+                .sum();
+        return closedBytesIn.sum() + openBytesIn;
+    }
+
+    long bytesOut() {
+        long openBytesOut = openConnections.stream()
+                .mapToLong(connection -> Math.max(connection.getBytesOut(), 0))
+                .sum();
+        return closedBytesOut.sum() + openBytesOut;
+    }
+
+    private static boolean counted(Connection connection) {
+        return !(connection.getEndPoint() instanceof SslConnection.SslEndPoint);
+    }
+
+}
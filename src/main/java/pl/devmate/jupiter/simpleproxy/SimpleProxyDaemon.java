@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyExtension.LOCALHOST;
+
+/**
+ * Simple proxy running as long-lived local daemon, shared by many test JVMs (e.g., surefire forks).<br>
+ * Clients attach with {@link SimpleProxyDaemonClient} over local control endpoint. Each attached client gets its own
+ * partition - http proxy port with separate captured events, while upstream connections are shared by all clients.
+ * <p>
+ * Control endpoint (plain http on localhost):
+ * <ul>
+ *     <li>{@code POST /partitions} - open partition, its id and proxy port are returned in response headers</li>
+ *     <li>{@code GET /partitions/{id}/events} - events captured in partition, encoded with {@link ProxyEventsCodec}</li>
+ *     <li>{@code DELETE /partitions/{id}/events} - reset events captured in partition</li>
+ *     <li>{@code DELETE /partitions/{id}} - close partition</li>
+ * </ul>
+ */
+public final class SimpleProxyDaemon {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxyDaemon.class);
+    public static final int DEFAULT_CONTROL_PORT = 17071;
+    public static final String PARTITION_HEADER = "Simple-Proxy-Partition";
+    public static final String PARTITION_PORT_HEADER = "Simple-Proxy-Partition-Port";
+    static final String PARTITIONS_PATH = "/partitions";
+    static final String EVENTS_PATH = "/events";
+    private static final String USAGE = """
+            Usage: SimpleProxyDaemon [options]
+              --control-port <port>   control endpoint port (default %d, 0 for any free port)
+              --port <port>           shared http proxy port (default any free port)
+              --store-request-body    capture request bodies
+              --store-response-body   capture response bodies
+              --no-store-events       collect statistics only
+              --metrics-endpoint      expose Prometheus metrics endpoint
+              --unix-socket <path>    also listen on unix domain socket
+            """.formatted(DEFAULT_CONTROL_PORT);
+
+    private final SimpleProxyServer simpleProxyServer;
+    private final int controlPort;
+    private final AtomicLong partitionIds = new AtomicLong();
+    private Server controlServer = null;
+
+    public SimpleProxyDaemon(SimpleProxyConfig simpleProxyConfig, int controlPort) {
+        Objects.requireNonNull(simpleProxyConfig, "simpleProxyConfig cannot be null");
+        if (controlPort < 0 || controlPort > 65535) {
+            throw new IllegalArgumentException("controlPort must be between 0 and 65535");
+        }
+        this.simpleProxyServer = new SimpleProxyServer(simpleProxyConfig);
+        this.controlPort = controlPort;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.print(USAGE);
+            return;
+        }
+        SimpleProxyDaemon daemon;
+        try {
+            daemon = fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        daemon.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.stop();
+            } catch (Exception e) {
+                log.warn("Could not stop simple proxy daemon", e);
+            }
+        }, "simple-proxy-daemon-shutdown"));
+        System.out.println("Simple proxy daemon started, control port: " + daemon.controlPort()
+                + ", proxy port: " + daemon.runtimeInfo().httpPort());
+        daemon.controlServer.join();
+    }
+
+    static SimpleProxyDaemon fromArgs(String... args) {
+        SimpleProxyConfigBuilder builder = SimpleProxyConfig.builder();
+        int controlPort = DEFAULT_CONTROL_PORT;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--control-port" -> controlPort = intArg(args, ++i);
+                case "--port" -> builder.port(intArg(args, ++i));
+                case "--store-request-body" -> builder.storeRequestBody(true);
+                case "--store-response-body" -> builder.storeResponseBody(true);
+                case "--no-store-events" -> builder.storeEvents(false);
+                case "--metrics-endpoint" -> builder.metricsEndpoint(true);
+                case "--unix-socket" -> builder.unixSocketPath(Path.of(stringArg(args, ++i)));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        return new SimpleProxyDaemon(builder.build(), controlPort);
+    }
+
+    private static String stringArg(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value of option: " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static int intArg(String[] args, int i) {
+        String value = stringArg(args, i);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of option " + args[i - 1] + ": " + value);
+        }
+    }
+
+    public void start() throws Exception {
+        if (controlServer != null) {
+            throw new IllegalStateException("Simple proxy daemon already started");
+        }
+        simpleProxyServer.start();
+
+        QueuedThreadPool controlThreads = new QueuedThreadPool(8, 2);
+        controlThreads.setName("simple-proxy-daemon");
+        Server server = new Server(controlThreads);
+        ServerConnector controlConnector = new ServerConnector(server, 1, 1, new HttpConnectionFactory());
+        controlConnector.setHost(LOCALHOST);
+        controlConnector.setPort(controlPort);
+        server.addConnector(controlConnector);
+        server.setHandler(new ControlHandler());
+        server.start();
+        controlServer = server;
+        log.info("Started simple proxy daemon, control port: {}", controlPort());
+    }
+
+    public void stop() throws Exception {
+        if (controlServer != null && controlServer.isRunning()) {
+            controlServer.stop();
+        }
+        simpleProxyServer.stop();
+    }
+
+    public int controlPort() {
+        if (controlServer == null || !controlServer.isRunning()) {
+            throw new IllegalStateException("Simple proxy daemon not started");
+        }
+        return ((ServerConnector) controlServer.getConnectors()[0]).getLocalPort();
+    }
+
+    public SimpleProxyRuntimeInfo runtimeInfo() {
+        return simpleProxyServer.runtimeInfo();
+    }
+
+    private class ControlHandler extends Handler.Abstract {
+
+        @Override
+        public boolean handle(Request request, Response response, Callback callback) throws Exception {
+            String path = Request.getPathInContext(request);
+            String method = request.getMethod();
+            if (PARTITIONS_PATH.equals(path) && HttpMethod.POST.is(method)) {
+                String partition = "p" + partitionIds.incrementAndGet();
+                int port = simpleProxyServer.openPartition(partition);
+                response.setStatus(HttpStatus.CREATED_201);
+                response.getHeaders().put(PARTITION_HEADER, partition);
+                response.getHeaders().put(PARTITION_PORT_HEADER, String.valueOf(port));
+                callback.succeeded();
+                return true;
+            }
+            if (!path.startsWith(PARTITIONS_PATH + "/")) {
+                Response.writeError(request, response, callback, HttpStatus.NOT_FOUND_404);
+                return true;
+            }
+
+            String resource = path.substring(PARTITIONS_PATH.length() + 1);
+            boolean events = resource.endsWith(EVENTS_PATH);
+            String partition = events ? resource.substring(0, resource.length() - EVENTS_PATH.length()) : resource;
+            try {
+                if (events && HttpMethod.GET.is(method)) {
+                    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                    ProxyEventsCodec.write(simpleProxyServer.eventsCaptured(partition), new DataOutputStream(encoded));
+                    response.setStatus(HttpStatus.OK_200);
+                    response.getHeaders().put(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+                    response.write(true, ByteBuffer.wrap(encoded.toByteArray()), callback);
+                } else if (events && HttpMethod.DELETE.is(method)) {
+                    simpleProxyServer.resetCapturedEvents(partition);
+                    response.setStatus(HttpStatus.NO_CONTENT_204);
+                    callback.succeeded();
+                } else if (!events && HttpMethod.DELETE.is(method)) {
+                    simpleProxyServer.closePartition(partition);
+                    response.setStatus(HttpStatus.NO_CONTENT_204);
+                    callback.succeeded();
+                } else {
+                    Response.writeError(request, response, callback, HttpStatus.METHOD_NOT_ALLOWED_405);
+                }
+            } catch (IllegalArgumentException e) {
+                Response.writeError(request, response, callback, HttpStatus.NOT_FOUND_404, e.getMessage());
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyDaemon.EVENTS_PATH;
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyDaemon.PARTITIONS_PATH;
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyExtension.LOCALHOST;
+
+/**
+ * Client of {@link SimpleProxyDaemon}, attached to its own partition of the daemon:
+ * requests sent through {@link #buildHttpProxy()} are captured in the partition only.
+ * Closing the client closes the partition. Uses JDK http client only, so it is cheap to create in every test JVM.
+ */
+public final class SimpleProxyDaemonClient implements AutoCloseable {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final URI partitionUri;
+    private final String partition;
+    private final int proxyPort;
+
+    private SimpleProxyDaemonClient(HttpClient httpClient, URI partitionUri, String partition, int proxyPort) {
+        this.httpClient = httpClient;
+        this.partitionUri = partitionUri;
+        this.partition = partition;
+        this.proxyPort = proxyPort;
+    }
+
+    /**
+     * Attach to daemon listening on {@link SimpleProxyDaemon#DEFAULT_CONTROL_PORT}
+     */
+    public static SimpleProxyDaemonClient attach() {
+        return attach(SimpleProxyDaemon.DEFAULT_CONTROL_PORT);
+    }
+
+    /**
+     * Attach to daemon with control endpoint on given localhost port, opening new partition
+     */
+    public static SimpleProxyDaemonClient attach(int controlPort) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .proxy(HttpClient.Builder.NO_PROXY)
+                .connectTimeout(TIMEOUT)
+                .build();
+        URI partitionsUri = URI.create("http://" + LOCALHOST + ":" + controlPort + PARTITIONS_PATH);
+        HttpResponse<Void> response = send(httpClient, HttpRequest.newBuilder(partitionsUri)
+                .POST(HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        String partition = response.headers().firstValue(SimpleProxyDaemon.PARTITION_HEADER)
+                .orElseThrow(() -> new IllegalStateException("Partition not opened by simple proxy daemon"));
+        int proxyPort = response.headers().firstValue(SimpleProxyDaemon.PARTITION_PORT_HEADER)
+                .map(Integer::parseInt)
+                .orElseThrow(() -> new IllegalStateException("Partition port not returned by simple proxy daemon"));
+        return new SimpleProxyDaemonClient(httpClient, URI.create(partitionsUri + "/" + partition), partition, proxyPort);
+    }
+
+    public String partition() {
+        return partition;
+    }
+
+    /**
+     * Port of http proxy connector of the partition
+     */
+    public int proxyPort() {
+        return proxyPort;
+    }
+
+    /**
+     * Events captured in the partition since it was opened or reset
+     */
+    public ProxyEventsCaptured eventsCaptured() {
+        HttpResponse<byte[]> response = send(httpClient, HttpRequest.newBuilder(URI.create(partitionUri + EVENTS_PATH)).GET(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return ProxyEventsCodec.read(new DataInputStream(new ByteArrayInputStream(response.body())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode events captured by simple proxy daemon", e);
+        }
+    }
+
+    public void reset() {
+        send(httpClient, HttpRequest.newBuilder(URI.create(partitionUri + EVENTS_PATH)).DELETE(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Close the partition, its proxy port is no longer accepting connections
+     */
+    @Override
+    public void close() {
+        send(httpClient, HttpRequest.newBuilder(partitionUri).DELETE(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    public Proxy buildHttpProxy() {
+        return new Proxy(Proxy.Type.HTTP, buildHttpInetSocketAddress());
+    }
+
+    public ProxySelector buildHttpProxySelector() {
+        return ProxySelector.of(buildHttpInetSocketAddress());
+    }
+
+    public InetSocketAddress buildHttpInetSocketAddress() {
+        return new InetSocketAddress(LOCALHOST, proxyPort);
+    }
+
+    private static <T> HttpResponse<T> send(HttpClient httpClient, HttpRequest.Builder request, HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpResponse<T> response;
+        try {
+            response = httpClient.send(request.timeout(TIMEOUT).build(), bodyHandler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reach simple proxy daemon", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling simple proxy daemon", e);
+        }
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Simple proxy daemon responded with status " + response.statusCode()
+                    + " to " + response.request().method() + " " + response.request().uri());
+        }
+        return response;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Minimal DER (ASN.1 distinguished encoding rules) writer, enough to build X.509 certificates
+ * minted by {@link SimpleProxyCertificateAuthority}.
+ */
+final class SimpleProxyDer {
+
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+
+    private SimpleProxyDer() {
+    }
+
+    static byte[] sequence(byte[]... elements) {
+        return element(0x30, concat(elements));
+    }
+
+    /**
+     * Context specific constructed element, e.g., {@code [0] EXPLICIT}
+     */
+    static byte[] explicit(int tagNumber, byte[]... elements) {
+        return element(0xA0 | tagNumber, concat(elements));
+    }
+
+    /**
+     * Context specific primitive element, e.g., {@code [2] IMPLICIT IA5String}
+     */
+    static byte[] implicit(int tagNumber, byte[] value) {
+        return element(0x80 | tagNumber, value);
+    }
+
+    static byte[] integer(BigInteger value) {
+        return element(0x02, value.toByteArray());
+    }
+
+    static byte[] bool(boolean value) {
+        return element(0x01, new byte[]{(byte) (value ? 0xFF : 0x00)});
+    }
+
+    static byte[] octetString(byte[] value) {
+        return element(0x04, value);
+    }
+
+    static byte[] bitString(byte[] value, int unusedBits) {
+        byte[] content = new byte[value.length + 1];
+        content[0] = (byte) unusedBits;
+        System.arraycopy(value, 0, content, 1, value.length);
+        return element(0x03, content);
+    }
+
+    static byte[] utcTime(ZonedDateTime time) {
+        return element(0x17, UTC_TIME.format(time.withZoneSameInstant(ZoneOffset.UTC)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static byte[] ia5String(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] oid(String dotted) {
+        String[] arcs = dotted.split("\\.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Integer.parseInt(arcs[0]) * 40 + Integer.parseInt(arcs[1]));
+        for (int i = 2; i < arcs.length; i++) {
+            long arc = Long.parseLong(arcs[i]);
+            int groups = Math.max(1, (64 - Long.numberOfLeadingZeros(arc) + 6) / 7);
+            for (int group = groups - 1; group >= 0; group--) {
+                int bits = (int) (arc >>> (7 * group)) & 0x7F;
+                out.write(group > 0 ? bits | 0x80 : bits);
+            }
+        }
+        return element(0x06, out.toByteArray());
+    }
+
+    private static byte[] element(int tag, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 6);
+        out.write(tag);
+        int length = content.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int lengthBytes = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | lengthBytes);
+            for (int i = lengthBytes - 1; i >= 0; i--) {
+                out.write(length >>> (8 * i));
+            }
+        }
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... elements) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] element : elements) {
+            out.writeBytes(element);
+        }
+        return out.toByteArray();
+    }
+
+}
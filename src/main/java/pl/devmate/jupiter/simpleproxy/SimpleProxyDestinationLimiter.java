@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Enforces {@link SimpleProxyDestinationLimits} per upstream destination (host and port).<br>
+ * Request rate is limited by lock-free token bucket (implemented as generic cell rate algorithm,
+ * single atomic "theoretical arrival time" per destination). Concurrent requests are limited by in-flight counter,
+ * requests over the limit wait in queue until a permit is released or the max wait time elapses.
+ */
+class SimpleProxyDestinationLimiter {
+
+    private final SimpleProxyDestinationLimits defaultLimits;
+    private final Map<String, SimpleProxyDestinationLimits> destinationLimits;
+    private final Map<String, DestinationState> destinations = new ConcurrentHashMap<>();
+
+    SimpleProxyDestinationLimiter(SimpleProxyDestinationLimits defaultLimits, Map<String, SimpleProxyDestinationLimits> destinationLimits) {
+        this.defaultLimits = defaultLimits;
+        this.destinationLimits = new ConcurrentHashMap<>();
+        destinationLimits.forEach((destination, limits) -> this.destinationLimits.put(normalize(destination), limits));
+    }
+
+    boolean enabled() {
+        return !defaultLimits.unlimited() || !destinationLimits.isEmpty();
+    }
+
+    static String destination(String host, int port) {
+        return host + ":" + port;
+    }
+
+    /**
+     * Acquire permit to send request to destination.
+     * Exactly one of {@code onPermit} or {@code onRejected} is called, possibly later from scheduler thread.
+     * Permit passed to {@code onPermit} must be released when request to destination is complete.
+     */
+    void acquire(String destination, Scheduler scheduler, Consumer<Permit> onPermit, Runnable onRejected) {
+        DestinationState state = destinations.computeIfAbsent(normalize(destination), this::newDestinationState);
+        long rateDelayNanos = state.reserveRate(System.nanoTime());
+        if (rateDelayNanos < 0) {
+            onRejected.run();
+            return;
+        }
+        // request rejected for lack of in-flight slot is not sent, so its rate token is given back
+        Runnable onSlotRejected = () -> {
+            state.refundRate();
+            onRejected.run();
+        };
+        if (rateDelayNanos == 0) {
+            state.acquireSlot(state.maxWaitNanos, scheduler, onPermit, onSlotRejected);
+        } else {
+            long remainingWaitNanos = state.maxWaitNanos - rateDelayNanos;
+            scheduler.schedule(() -> state.acquireSlot(remainingWaitNanos, scheduler, onPermit, onSlotRejected),
+                    rateDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private DestinationState newDestinationState(String destination) {
+        return new DestinationState(destinationLimits.getOrDefault(destination, defaultLimits));
+    }
+
+    private static String normalize(String destination) {
+        return destination.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Permit to send request to destination, released only once.
+     */
+    static final class Permit {
+
+        private final DestinationState state;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(DestinationState state) {
+            this.state = state;
+        }
+
+        void release() {
+            if (state != null && released.compareAndSet(false, true)) {
+                state.release();
+            }
+        }
+    }
+
+    private static final class DestinationState {
+
+        private final int maxInFlight;
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final long maxWaitNanos;
+        private final AtomicLong theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Queue<Waiting> waiting = new ConcurrentLinkedQueue<>();
+
+        private DestinationState(SimpleProxyDestinationLimits limits) {
+            this.maxInFlight = limits.maxInFlight();
+            this.emissionIntervalNanos = limits.requestsPerSecond() > 0
+                    ? (long) (TimeUnit.SECONDS.toNanos(1) / limits.requestsPerSecond())
+                    : 0;
+            this.burstToleranceNanos = emissionIntervalNanos * (limits.burst() - 1);
+            this.maxWaitNanos = limits.maxQueueWait().toNanos();
+        }
+
+        /**
+         * Reserve token for request arriving now.
+         * @return delay (in nanoseconds) after which the token is available, or {@code -1} if delay exceeds max wait
+         */
+        private long reserveRate(long now) {
+            if (emissionIntervalNanos == 0) {
+                return 0;
+            }
+            while (true) {
+                long theoreticalArrival = theoreticalArrivalNanos.get();
+                long start = theoreticalArrival - now > 0 ? theoreticalArrival : now;
+                long delay = Math.max(0, start - now - burstToleranceNanos);
+                if (delay > maxWaitNanos) {
+                    return -1;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(theoreticalArrival, start + emissionIntervalNanos)) {
+                    return delay;
+                }
+            }
+        }
+
+        /**
+         * Give back token reserved by {@link #reserveRate(long)} for request which was not sent
+         */
+        private void refundRate() {
+            if (emissionIntervalNanos > 0) {
+                theoreticalArrivalNanos.addAndGet(-emissionIntervalNanos);
+            }
+        }
+
+        private void acquireSlot(long waitNanos, Scheduler scheduler, Consumer<Permit> onPermit, Runnable onRejected) {
+            if (maxInFlight == 0) {
+                onPermit.accept(new Permit(null));
+                return;
+            }
+            if (tryIncrementInFlight()) {
+                onPermit.accept(new Permit(this));
+                return;
+            }
+            if (waitNanos <= 0) {
+                onRejected.run();
+                return;
+            }
+            Waiting waitingRequest = new Waiting(onPermit);
+            waiting.offer(waitingRequest);
+            waitingRequest.timeout = scheduler.schedule(() -> {
+                if (waitingRequest.claim()) {
+                    waiting.remove(waitingRequest);
+                    onRejected.run();
+                }
+            }, waitNanos, TimeUnit.NANOSECONDS);
+
+            // permit could be released before request was queued
+            if (tryIncrementInFlight()) {
+                if (waitingRequest.claim()) {
+                    waiting.remove(waitingRequest);
+                    waitingRequest.cancelTimeout();
+                    onPermit.accept(new Permit(this));
+                } else {
+                    release();
+                }
+            }
+        }
+
+        private boolean tryIncrementInFlight() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= maxInFlight) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            Waiting next;
+            while ((next = waiting.poll()) != null) {
+                if (next.claim()) {
+                    // hand over in-flight slot to waiting request
+                    next.cancelTimeout();
+                    next.onPermit.accept(new Permit(this));
+                    return;
+                }
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static final class Waiting {
+
+        private final Consumer<Permit> onPermit;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile Scheduler.Task timeout;
+
+        private Waiting(Consumer<Permit> onPermit) {
+            this.onPermit = onPermit;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void cancelTimeout() {
+            Scheduler.Task task = timeout;
+            if (task != null) {
+                task.cancel();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits enforced by proxy for every upstream destination (host and port) separately.
+ * Requests over the limit wait up to {@code maxQueueWait}, then are rejected with http status {@code 429}.
+ * @param maxInFlight max number of requests sent to destination at the same time, {@code 0} means no limit
+ * @param requestsPerSecond max number of requests per second sent to destination, {@code 0} means no limit
+ * @param burst number of requests that can be sent at once above the rate limit, at least {@code 1}
+ * @param maxQueueWait how long request over the limit can wait, {@link Duration#ZERO} means reject immediately
+ */
+public record SimpleProxyDestinationLimits(
+        int maxInFlight,
+        double requestsPerSecond,
+        int burst,
+        Duration maxQueueWait) {
+
+    public static final SimpleProxyDestinationLimits UNLIMITED = new SimpleProxyDestinationLimits(0, 0, 1, Duration.ZERO);
+
+    public SimpleProxyDestinationLimits {
+        Objects.requireNonNull(maxQueueWait, "maxQueueWait cannot be null");
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight can't be negative");
+        }
+        if (requestsPerSecond < 0) {
+            throw new IllegalArgumentException("requestsPerSecond can't be negative");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        if (maxQueueWait.isNegative()) {
+            throw new IllegalArgumentException("maxQueueWait can't be negative");
+        }
+    }
+
+    /**
+     * Limit concurrent requests only, requests over the limit are rejected immediately
+     * @param maxInFlight max number of requests sent to destination at the same time
+     */
+    public static SimpleProxyDestinationLimits maxInFlight(int maxInFlight) {
+        return new SimpleProxyDestinationLimits(maxInFlight, 0, 1, Duration.ZERO);
+    }
+
+    /**
+     * Limit request rate only, requests over the limit are rejected immediately
+     * @param requestsPerSecond max number of requests per second sent to destination
+     */
+    public static SimpleProxyDestinationLimits requestsPerSecond(double requestsPerSecond) {
+        return new SimpleProxyDestinationLimits(0, requestsPerSecond, 1, Duration.ZERO);
+    }
+
+    public boolean unlimited() {
+        return maxInFlight == 0 && requestsPerSecond == 0;
+    }
+
+}
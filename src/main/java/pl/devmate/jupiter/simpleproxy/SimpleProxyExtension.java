@@ -20,6 +20,7 @@ import org.junit.platform.commons.support.AnnotationSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStats;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
@@ -137,6 +138,17 @@ public class SimpleProxyExtension implements BeforeAllCallback, AfterAllCallback
         return simpleProxyServer.eventsCaptured();
     }
 
+    public ProxyEventsStats eventsStats() {
+        return simpleProxyServer.eventsStats();
+    }
+
+    /**
+     * Clears captured events, it is done before each test, call it to start over within a test.
+     */
+    public void resetCapturedEvents() {
+        runningSimpleProxyServer().resetCapturedEvents();
+    }
+
     private SimpleProxyConfig prepareConfiguration(ExtensionContext extensionContext) {
         return extensionContext
                 .getElement()
@@ -151,6 +163,12 @@ public class SimpleProxyExtension implements BeforeAllCallback, AfterAllCallback
                 .addProxyResponseHeader(simpleProxyTest.addProxyResponseHeader())
                 .storeRequestBody(simpleProxyTest.storeRequestBody())
                 .storeResponseBody(simpleProxyTest.storeResponseBody())
+                .storeEvents(simpleProxyTest.storeEvents())
+                .metricsEndpoint(simpleProxyTest.metricsEndpoint())
+                .tlsInterception(simpleProxyTest.tlsInterception())
+                .webSocketFrameCapture(simpleProxyTest.webSocketFrameCapture())
+                .streamingCapture(simpleProxyTest.streamingCapture())
+                .socksProxy(simpleProxyTest.socksProxy())
                 .build();
     }
 
@@ -187,6 +205,10 @@ public class SimpleProxyExtension implements BeforeAllCallback, AfterAllCallback
         return runningSimpleProxyServer().buildTlsInetSocketAddress();
     }
 
+    public Proxy buildSocksProxy() {
+        return runningSimpleProxyServer().buildSocksProxy();
+    }
+
     private SimpleProxyServer runningSimpleProxyServer() {
         if (simpleProxyServer == null) {
             throw new IllegalStateException("Simple proxy server not started");
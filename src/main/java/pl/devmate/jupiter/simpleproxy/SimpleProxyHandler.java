@@ -15,42 +15,243 @@
  */
 package pl.devmate.jupiter.simpleproxy;
 
+import org.eclipse.jetty.client.BufferingResponseListener;
+import org.eclipse.jetty.client.Connection;
+import org.eclipse.jetty.client.Destination;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpUpgrader;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
 import org.eclipse.jetty.client.Request.Content;
 import org.eclipse.jetty.client.Response.CompleteListener;
+import org.eclipse.jetty.client.Result;
+import org.eclipse.jetty.client.UpgradeProtocolHandler;
 import org.eclipse.jetty.client.transport.HttpClientConnectionFactory;
 import org.eclipse.jetty.client.transport.HttpClientTransportDynamic;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http2.client.HTTP2Client;
 import org.eclipse.jetty.http2.client.transport.ClientConnectionFactoryOverHTTP2;
 import org.eclipse.jetty.io.ClientConnectionFactory;
 import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.Transport;
 import org.eclipse.jetty.proxy.ProxyHandler;
+import org.eclipse.jetty.server.HttpStream;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.TunnelSupport;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.ConcurrentPool;
+import org.eclipse.jetty.util.SocketAddressResolver;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventStream;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocket;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocketFrame.Direction;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
-class SimpleProxyHandler extends ProxyHandler.Forward {
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyHeaderMapper.toEventProxyHeaders;
+
+/**
+ * Proxy handler capturing proxied requests. Built on reverse proxy handler: in forward proxy mode request uri
+ * is kept (like {@code ProxyHandler.Forward}), in reverse proxy mode it is rewritten to backend chosen by load balancer.
+ */
+class SimpleProxyHandler extends ProxyHandler.Reverse {
 
     private static final Logger log = LoggerFactory.getLogger(SimpleProxyHandler.class);
     public static final String SIMPLE_PROXY_REQUEST_CONTENT = "simple-proxy-request-content";
     public static final String SIMPLE_PROXY_RESPONSE_LISTENER = "simple-proxy-response-listener";
     public static final String SIMPLE_PROXY_REQUEST_TO_SERVER = "simple-proxy-request-to-server";
     public static final String SIMPLE_PROXY_RESPONSE_FROM_SERVER = "simple-proxy-response-from-server";
+    public static final String SIMPLE_PROXY_WEBSOCKET = "simple-proxy-websocket";
+    public static final String SIMPLE_PROXY_RESPONSE_STREAM = "simple-proxy-response-stream";
+    private static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream";
+    private static final String WEBSOCKET_PROTOCOL = "websocket";
+    private static final String WEBSOCKET_VERSION = "13";
 
     private final ProxyEventsCollector proxyEventsCollector;
+    private final SimpleProxyConfig simpleProxyConfig;
+    private final SimpleProxyDestinationLimiter destinationLimiter;
+    private final SimpleProxyMetrics metrics;
+    private final Map<String, SimpleProxyUpstreamProtocol> protocolsPerDestination = new HashMap<>();
+    private final Map<String, Transport> unixTransportsPerDestination = new HashMap<>();
+
+    SimpleProxyHandler(ProxyEventsCollector proxyEventsCollector, SimpleProxyConfig simpleProxyConfig, SimpleProxyMetrics metrics) {
+        this(proxyEventsCollector, simpleProxyConfig, metrics, simpleProxyConfig.reverseProxy() != null
+                ? new SimpleProxyLoadBalancer(simpleProxyConfig.reverseProxy())
+                : null);
+    }
 
-    SimpleProxyHandler(ProxyEventsCollector proxyEventsCollector) {
+    private SimpleProxyHandler(ProxyEventsCollector proxyEventsCollector, SimpleProxyConfig simpleProxyConfig, SimpleProxyMetrics metrics,
+                               SimpleProxyLoadBalancer loadBalancer) {
+        super(loadBalancer != null ? loadBalancer::rewrite : Request::getHttpURI);
         this.proxyEventsCollector = proxyEventsCollector;
+        this.simpleProxyConfig = simpleProxyConfig;
+        this.metrics = metrics;
+        this.destinationLimiter = new SimpleProxyDestinationLimiter(
+                simpleProxyConfig.destinationLimits(),
+                simpleProxyConfig.limitsPerDestination());
+        simpleProxyConfig.protocolsPerDestination().forEach((destination, protocol) ->
+                this.protocolsPerDestination.put(destination.toLowerCase(Locale.ROOT), protocol));
+        simpleProxyConfig.upstreamUnixSockets().forEach((destination, path) ->
+                this.unixTransportsPerDestination.put(destination.toLowerCase(Locale.ROOT), new Transport.TCPUnix(path)));
+    }
+
+    @Override
+    public boolean handle(Request clientToProxyRequest, Response proxyToClientResponse, Callback proxyToClientCallback) {
+        if (isWebSocketUpgrade(clientToProxyRequest)) {
+            proxyWebSocketUpgrade(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback);
+            return true;
+        }
+        return super.handle(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback);
+    }
+
+    /**
+     * Whether request is WebSocket opening handshake, HTTP/1.1 upgrade or HTTP/2 extended CONNECT (RFC 8441)
+     */
+    static boolean isWebSocketUpgrade(Request request) {
+        TunnelSupport tunnelSupport = request.getTunnelSupport();
+        if (tunnelSupport == null) {
+            return false;
+        }
+        if (HttpMethod.CONNECT.is(request.getMethod())) {
+            return WEBSOCKET_PROTOCOL.equalsIgnoreCase(tunnelSupport.getProtocol());
+        }
+        return HttpMethod.GET.is(request.getMethod())
+                && request.getHeaders().contains(HttpHeader.UPGRADE, WEBSOCKET_PROTOCOL);
+    }
+
+    @Override
+    protected org.eclipse.jetty.client.Request newProxyToServerRequest(Request clientToProxyRequest, HttpURI newHttpURI) {
+        org.eclipse.jetty.client.Request proxyToServerRequest = super.newProxyToServerRequest(clientToProxyRequest, newHttpURI);
+
+        HttpVersion upstreamVersion = upstreamProtocol(proxyToServerRequest.getHost(), proxyToServerRequest.getPort()).version();
+        if (upstreamVersion != null) {
+            proxyToServerRequest.version(upstreamVersion);
+        }
+        useUpstreamUnixSocket(proxyToServerRequest);
+        recordUpstreamTimings(clientToProxyRequest, proxyToServerRequest);
+        SimpleProxyLoadBalancer.Lease lease = SimpleProxyLoadBalancer.lease(clientToProxyRequest);
+        if (lease != null) {
+            // released before last content is relayed, so client never sees response of request still in flight
+            proxyToServerRequest
+                    .onResponseSuccess(response -> lease.release(backendFailed(response.getStatus())))
+                    .onComplete(result -> lease.release(backendFailed(result.getResponse().getStatus())));
+        }
+        return proxyToServerRequest;
+    }
+
+    /**
+     * Whether backend failed request, not responding at all (connection failure, timeout) or responding with server error
+     */
+    private static boolean backendFailed(int status) {
+        return status == 0 || status >= HttpStatus.INTERNAL_SERVER_ERROR_500;
+    }
+
+    private void recordUpstreamTimings(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest) {
+        SimpleProxyTimings timings = SimpleProxyTimings.of(clientToProxyRequest);
+        proxyToServerRequest
+                .onRequestQueued(request -> timings.upstreamQueued())
+                .onRequestBegin(request -> timings.upstreamConnected(metrics.upstreamConnectionsUsage().markUsed(request.getConnection())))
+                .onRequestSuccess(request -> timings.requestSent());
+    }
+
+    /**
+     * Open WebSocket to upstream server with HTTP/1.1 upgrade (also for client extended CONNECT over HTTP/2).
+     * When upstream server switches protocols, both connections are upgraded to {@link SimpleProxyRelayConnection},
+     * otherwise upstream server response is relayed to client.
+     */
+    private void proxyWebSocketUpgrade(Request clientToProxyRequest, Response proxyToClientResponse, Callback proxyToClientCallback) {
+        HttpURI clientToProxyUri = rewriteHttpURI(clientToProxyRequest);
+        String scheme = HttpScheme.isSecure(clientToProxyUri.getScheme())
+                ? HttpScheme.HTTPS.asString()
+                : HttpScheme.HTTP.asString();
+        org.eclipse.jetty.client.Request proxyToServerRequest = getHttpClient()
+                .newRequest(HttpURI.build(clientToProxyUri).scheme(scheme).toURI())
+                .method(HttpMethod.GET)
+                .version(HttpVersion.HTTP_1_1);
+        copyRequestHeaders(clientToProxyRequest, proxyToServerRequest);
+        useUpstreamUnixSocket(proxyToServerRequest);
+        recordUpstreamTimings(clientToProxyRequest, proxyToServerRequest);
+        proxyToServerRequest.attribute(HttpUpgrader.Factory.class.getName(), (HttpUpgrader.Factory) version ->
+                new WebSocketUpgrader(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback));
+        proxyToServerRequest.send(new BufferingResponseListener() {
+            @Override
+            public void onComplete(Result result) {
+                // called only when upstream server did not switch protocols
+                SimpleProxyTimings.of(clientToProxyRequest).responseComplete();
+                if (result.isFailed()) {
+                    log.debug("WebSocket upgrade of {} failed", clientToProxyUri, result.getFailure());
+                    Response.writeError(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, HttpStatus.BAD_GATEWAY_502);
+                    return;
+                }
+                org.eclipse.jetty.client.Response serverToProxyResponse = result.getResponse();
+                clientToProxyRequest.setAttribute(SIMPLE_PROXY_REQUEST_TO_SERVER, proxyToServerRequest);
+                clientToProxyRequest.setAttribute(SIMPLE_PROXY_RESPONSE_FROM_SERVER, serverToProxyResponse);
+                proxyToClientResponse.setStatus(serverToProxyResponse.getStatus());
+                serverToProxyResponse.getHeaders().forEach(field -> {
+                    HttpField filtered = filterServerToProxyResponseField(field);
+                    if (filtered != null && !isHopByHop(filtered)) {
+                        proxyToClientResponse.getHeaders().add(filtered);
+                    }
+                });
+                proxyToClientResponse.write(true, ByteBuffer.wrap(getContent()), proxyToClientCallback);
+            }
+        });
+    }
+
+    private static boolean isHopByHop(HttpField field) {
+        HttpHeader header = field.getHeader();
+        return header == HttpHeader.CONNECTION
+                || header == HttpHeader.UPGRADE
+                || header == HttpHeader.KEEP_ALIVE
+                || header == HttpHeader.TRANSFER_ENCODING;
+    }
+
+    private SimpleProxyUpstreamProtocol upstreamProtocol(String host, int port) {
+        if (protocolsPerDestination.isEmpty()) {
+            return simpleProxyConfig.upstreamProtocol();
+        }
+        String destination = SimpleProxyDestinationLimiter.destination(host, port).toLowerCase(Locale.ROOT);
+        return protocolsPerDestination.getOrDefault(destination, simpleProxyConfig.upstreamProtocol());
+    }
+
+    /**
+     * Send request through unix domain socket, when configured for request destination
+     */
+    private void useUpstreamUnixSocket(org.eclipse.jetty.client.Request proxyToServerRequest) {
+        if (unixTransportsPerDestination.isEmpty()) {
+            return;
+        }
+        String destination = SimpleProxyDestinationLimiter.destination(proxyToServerRequest.getHost(), proxyToServerRequest.getPort());
+        Transport transport = unixTransportsPerDestination.get(destination.toLowerCase(Locale.ROOT));
+        if (transport != null) {
+            proxyToServerRequest.transport(transport);
+        }
     }
 
     @Override
@@ -60,6 +261,24 @@ class SimpleProxyHandler extends ProxyHandler.Forward {
         return bufferingProxyToServerRequestContent;
     }
 
+    @Override
+    protected void sendProxyToServerRequest(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback) {
+        if (!destinationLimiter.enabled()) {
+            super.sendProxyToServerRequest(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
+            return;
+        }
+        String destination = SimpleProxyDestinationLimiter.destination(proxyToServerRequest.getHost(), proxyToServerRequest.getPort());
+        destinationLimiter.acquire(
+                destination,
+                clientToProxyRequest.getComponents().getScheduler(),
+                permit -> super.sendProxyToServerRequest(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse,
+                        Callback.from(permit::release, proxyToClientCallback)),
+                () -> {
+                    log.debug("Request to {} rejected, destination limits exceeded", destination);
+                    Response.writeError(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, HttpStatus.TOO_MANY_REQUESTS_429);
+                });
+    }
+
     @Override
     protected CompleteListener newServerToProxyResponseListener(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback) {
         BufferingProxyResponseListener bufferingServerToProxyResponseListener =
@@ -85,19 +304,54 @@ class SimpleProxyHandler extends ProxyHandler.Forward {
     }
 
 
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        // proxy protocol handlers replace client defaults on start, WebSocket upgrades need upgrade handler back
+        getHttpClient().getProtocolHandlers().put(new UpgradeProtocolHandler());
+    }
+
     @Override
     protected HttpClient newHttpClient() {
         QueuedThreadPool proxyClientThreads = new QueuedThreadPool();
         proxyClientThreads.setName("simple-proxy-client");
+        metrics.clientThreadPool(proxyClientThreads);
         ClientConnector proxyClientConnector = new ClientConnector();
         proxyClientConnector.setSelectors(1);
         proxyClientConnector.setExecutor(proxyClientThreads);
-        proxyClientConnector.setSslContextFactory(new SslContextFactory.Client(true));
+        Scheduler proxyClientScheduler = new ScheduledExecutorScheduler("simple-proxy-client-scheduler", false);
+        proxyClientConnector.setScheduler(proxyClientScheduler);
+        SslContextFactory.Client proxyClientSslContextFactory = new SslContextFactory.Client(true);
+        proxyClientSslContextFactory.setSslContext(SimpleProxySslContexts.trustAllClient(
+                simpleProxyConfig.tlsSessionCacheSize(), simpleProxyConfig.tlsSessionTimeout()));
+        proxyClientConnector.setSslContextFactory(proxyClientSslContextFactory);
 
         HTTP2Client proxyHTTP2Client = new HTTP2Client(proxyClientConnector);
         ClientConnectionFactory.Info h1 = HttpClientConnectionFactory.HTTP11;
         ClientConnectionFactory.Info http2 = new ClientConnectionFactoryOverHTTP2.HTTP2(proxyHTTP2Client);
-        return new HttpClient(new HttpClientTransportDynamic(proxyClientConnector, h1, http2));
+        HttpClientTransportDynamic transport = new HttpClientTransportDynamic(proxyClientConnector, h1, http2);
+        int maxStreamsPerConnection = simpleProxyConfig.upstreamMaxStreamsPerConnection();
+        if (maxStreamsPerConnection > 0) {
+            transport.setConnectionPoolFactory(destination -> new StreamLimitingConnectionPool(
+                    destination, destination.getHttpClient().getMaxConnectionsPerDestination(), maxStreamsPerConnection));
+        }
+        HttpClient httpClient = new HttpClient(transport);
+        httpClient.setMaxConnectionsPerDestination(simpleProxyConfig.upstreamMaxConnectionsPerDestination());
+
+        httpClient.addBean(metrics.upstreamConnectionCounter());
+        httpClient.addBean(metrics.upstreamConnectionsUsage());
+
+        // resolve upstream addresses with host overrides and cache
+        httpClient.setSocketAddressResolver(newSocketAddressResolver(httpClient));
+        return httpClient;
+    }
+
+    private SocketAddressResolver newSocketAddressResolver(HttpClient httpClient) {
+        SocketAddressResolver delegate = simpleProxyConfig.socketAddressResolver();
+        if (delegate == null) {
+            delegate = new SocketAddressResolver.Async(httpClient.getExecutor(), httpClient.getScheduler(), httpClient.getAddressResolutionTimeout());
+        }
+        return new SimpleProxySocketAddressResolver(delegate, simpleProxyConfig.hostOverrides(), simpleProxyConfig.dnsCacheTtl());
     }
 
     /**
@@ -134,20 +388,159 @@ class SimpleProxyHandler extends ProxyHandler.Forward {
     }
 
     /**
-     * Listener with the ability to buffer response body
+     * Connection pool capping number of requests multiplexed over HTTP/2 connection below limit advertised by server,
+     * HTTP/1.1 connections are used by one request at a time
+     */
+    private static class StreamLimitingConnectionPool extends MultiplexConnectionPool {
+
+        private static final ToIntFunction<Connection> DEFAULT_MAX_MULTIPLEXER = newMaxMultiplexer(1);
+
+        private StreamLimitingConnectionPool(Destination destination, int maxConnections, int maxStreamsPerConnection) {
+            super(destination, () -> new ConcurrentPool<>(ConcurrentPool.StrategyType.FIRST, maxConnections,
+                    connection -> Math.min(maxStreamsPerConnection, DEFAULT_MAX_MULTIPLEXER.applyAsInt(connection))), 1);
+        }
+    }
+
+    /**
+     * Completes WebSocket upgrade, when upstream server switched protocols: upgrades client connection with
+     * relayed upgrade response, then upstream connection, so bytes are relayed only between upgraded endpoints.
+     */
+    private class WebSocketUpgrader implements HttpUpgrader {
+
+        private final Request clientToProxyRequest;
+        private final org.eclipse.jetty.client.Request proxyToServerRequest;
+        private final Response proxyToClientResponse;
+        private final Callback proxyToClientCallback;
+
+        private WebSocketUpgrader(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest,
+                                  Response proxyToClientResponse, Callback proxyToClientCallback) {
+            this.clientToProxyRequest = clientToProxyRequest;
+            this.proxyToServerRequest = proxyToServerRequest;
+            this.proxyToClientResponse = proxyToClientResponse;
+            this.proxyToClientCallback = proxyToClientCallback;
+        }
+
+        private boolean extendedConnect() {
+            return HttpMethod.CONNECT.is(clientToProxyRequest.getMethod());
+        }
+
+        @Override
+        public void prepare(org.eclipse.jetty.client.Request request) {
+            request.headers(headers -> {
+                headers.put(HttpHeader.UPGRADE, WEBSOCKET_PROTOCOL);
+                headers.put(HttpHeader.CONNECTION, HttpHeader.UPGRADE.asString());
+                headers.put(HttpHeader.SEC_WEBSOCKET_VERSION, WEBSOCKET_VERSION);
+                if (extendedConnect() || !headers.contains(HttpHeader.SEC_WEBSOCKET_KEY)) {
+                    // extended CONNECT has no key, upstream accept header is not relayed then
+                    headers.put(HttpHeader.SEC_WEBSOCKET_KEY, newWebSocketKey());
+                }
+            });
+        }
+
+        @Override
+        public void upgrade(org.eclipse.jetty.client.Response serverToProxyResponse, EndPoint endPoint, Callback callback) {
+            SimpleProxyTimings timings = SimpleProxyTimings.of(clientToProxyRequest);
+            timings.responseFirstByte();
+            timings.responseComplete();
+
+            ProxyEventWebSocket webSocket = new ProxyEventWebSocket();
+            boolean captureFrames = simpleProxyConfig.webSocketFrameCapture() && proxyEventsCollector.config().storeEvents();
+            int payloadLimit = simpleProxyConfig.webSocketFramePayloadLimit();
+            SimpleProxyRelayConnection downstream = new SimpleProxyRelayConnection(
+                    clientToProxyRequest.getTunnelSupport().getEndPoint(),
+                    clientToProxyRequest.getComponents().getExecutor(),
+                    clientToProxyRequest.getComponents().getByteBufferPool(),
+                    frameInspector(captureFrames, webSocket, Direction.CLIENT_TO_SERVER, payloadLimit),
+                    webSocket::close);
+            SimpleProxyRelayConnection upstream = new SimpleProxyRelayConnection(
+                    endPoint,
+                    getHttpClient().getExecutor(),
+                    getHttpClient().getByteBufferPool(),
+                    frameInspector(captureFrames, webSocket, Direction.SERVER_TO_CLIENT, payloadLimit),
+                    webSocket::close);
+            SimpleProxyRelayConnection.pair(downstream, upstream);
+            downstream.onOpen(startRelay -> {
+                endPoint.upgrade(upstream);
+                callback.succeeded();
+                startRelay.run();
+            });
+
+            proxyToClientResponse.setStatus(extendedConnect() ? HttpStatus.OK_200 : HttpStatus.SWITCHING_PROTOCOLS_101);
+            serverToProxyResponse.getHeaders().forEach(field -> {
+                if (!extendedConnect() || !(isHopByHop(field) || field.getHeader() == HttpHeader.SEC_WEBSOCKET_ACCEPT)) {
+                    proxyToClientResponse.getHeaders().add(field);
+                }
+            });
+            clientToProxyRequest.setAttribute(SIMPLE_PROXY_REQUEST_TO_SERVER, proxyToServerRequest);
+            clientToProxyRequest.setAttribute(SIMPLE_PROXY_RESPONSE_FROM_SERVER, serverToProxyResponse);
+            clientToProxyRequest.setAttribute(SIMPLE_PROXY_WEBSOCKET, webSocket);
+            clientToProxyRequest.setAttribute(HttpStream.UPGRADE_CONNECTION_ATTRIBUTE, downstream);
+            proxyToClientCallback.succeeded();
+        }
+
+        private static Consumer<ByteBuffer> frameInspector(boolean captureFrames, ProxyEventWebSocket webSocket,
+                                                           Direction direction, int payloadLimit) {
+            if (!captureFrames) {
+                return buffer -> {};
+            }
+            return new SimpleProxyWebSocketFrameParser(webSocket, direction, payloadLimit)::parse;
+        }
+
+        private static String newWebSocketKey() {
+            byte[] key = new byte[16];
+            ThreadLocalRandom.current().nextBytes(key);
+            return Base64.getEncoder().encodeToString(key);
+        }
+    }
+
+    /**
+     * Listener with the ability to buffer response body, or to capture streamed response body chunk by chunk
      */
     protected class BufferingProxyResponseListener extends ProxyResponseListener {
 
         private final ByteArrayOutputStream responseBytesOutputStream = new ByteArrayOutputStream();
+        private final Request clientToProxyRequest;
+        private final SimpleProxyTimings timings;
+        private ProxyEventStream responseStream;
 
         public BufferingProxyResponseListener(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback) {
             super(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
+            this.clientToProxyRequest = clientToProxyRequest;
+            this.timings = SimpleProxyTimings.of(clientToProxyRequest);
+        }
+
+        @Override
+        public void onBegin(org.eclipse.jetty.client.Response serverToProxyResponse) {
+            timings.responseFirstByte();
+            super.onBegin(serverToProxyResponse);
+        }
+
+        @Override
+        public void onHeaders(org.eclipse.jetty.client.Response serverToProxyResponse) {
+            super.onHeaders(serverToProxyResponse);
+            if (simpleProxyConfig.streamingCapture() && isStreamedResponse(serverToProxyResponse)) {
+                // publish event early, it is replaced by the final event when response is complete
+                responseStream = new ProxyEventStream(simpleProxyConfig.streamingCaptureWindowBytes());
+                clientToProxyRequest.setAttribute(SIMPLE_PROXY_RESPONSE_STREAM, responseStream);
+                SimpleProxyConnectHandler.collector(proxyEventsCollector, clientToProxyRequest).registerInProgress(new ProxyEvent(
+                        SimpleProxyConnectHandler.clientToProxyRequestEvent(clientToProxyRequest),
+                        new ProxyEventResponse(
+                                Instant.now(),
+                                serverToProxyResponse.getStatus(),
+                                toEventProxyHeaders(serverToProxyResponse.getHeaders()),
+                                null),
+                        timings.toEventTimings(),
+                        null,
+                        responseStream));
+            }
         }
 
         @Override
         public void onContent(org.eclipse.jetty.client.Response serverToProxyResponse, org.eclipse.jetty.io.Content.Chunk serverToProxyChunk, Runnable serverToProxyDemander) {
             ByteBuffer serverToProxyContent = serverToProxyChunk.getByteBuffer();
-            if (proxyEventsCollector.config().storeRequestBody()) {
+            if (responseStream != null) {
+                responseStream.append(BufferUtil.toArray(serverToProxyContent.duplicate()));
+            } else if (proxyEventsCollector.config().storeResponseBody()) {
                 try {
                     responseBytesOutputStream.write(BufferUtil.toArray(serverToProxyContent.duplicate()));
                 } catch (Exception e) {
@@ -159,10 +552,37 @@ class SimpleProxyHandler extends ProxyHandler.Forward {
             super.onContent(serverToProxyResponse, serverToProxyChunk, serverToProxyDemander);
         }
 
+        @Override
+        public void onSuccess(org.eclipse.jetty.client.Response serverToProxyResponse) {
+            timings.responseComplete();
+            super.onSuccess(serverToProxyResponse);
+        }
+
+        @Override
+        public void onComplete(Result result) {
+            if (responseStream != null) {
+                responseStream.complete();
+            }
+            super.onComplete(result);
+        }
+
         protected byte[] responseContent() {
             return responseBytesOutputStream.toByteArray();
         }
 
     }
 
+    /**
+     * Server-Sent Events, or response with body of unknown length (chunked, or delimited by closing connection)
+     */
+    private static boolean isStreamedResponse(org.eclipse.jetty.client.Response serverToProxyResponse) {
+        String contentType = serverToProxyResponse.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        if (contentType != null && contentType.regionMatches(true, 0, EVENT_STREAM_CONTENT_TYPE, 0, EVENT_STREAM_CONTENT_TYPE.length())) {
+            return true;
+        }
+        return serverToProxyResponse.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH) < 0
+                && !HttpStatus.hasNoBody(serverToProxyResponse.getStatus())
+                && !HttpMethod.HEAD.is(serverToProxyResponse.getRequest().getMethod());
+    }
+
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of proxy request lifecycle.<br>
+ * Events are created only when enabled in running recording (checked with cached {@link EventType} of the event),
+ * otherwise handlers do not allocate nor fill them.
+ */
+final class SimpleProxyJfrEvents {
+
+    static final String PREFIX = "pl.devmate.jupiter.simpleproxy.";
+    private static final String CATEGORY = "SimpleProxy";
+
+    private static final EventType REQUEST_START_TYPE = EventType.getEventType(RequestStart.class);
+    private static final EventType REQUEST_TYPE = EventType.getEventType(Request.class);
+    private static final EventType UPSTREAM_CONNECT_TYPE = EventType.getEventType(UpstreamConnect.class);
+    private static final EventType FIRST_BYTE_TYPE = EventType.getEventType(FirstByte.class);
+    private static final EventType TUNNEL_TYPE = EventType.getEventType(Tunnel.class);
+    private static final EventType EVENT_CAPTURE_TYPE = EventType.getEventType(EventCapture.class);
+
+    private SimpleProxyJfrEvents() {
+    }
+
+    /**
+     * New request start event, {@code null} when not enabled in running recording
+     */
+    static RequestStart requestStart() {
+        return REQUEST_START_TYPE.isEnabled() ? new RequestStart() : null;
+    }
+
+    /**
+     * New request event, {@code null} when not enabled in running recording
+     */
+    static Request request() {
+        return REQUEST_TYPE.isEnabled() ? new Request() : null;
+    }
+
+    /**
+     * New upstream connect event, {@code null} when not enabled in running recording
+     */
+    static UpstreamConnect upstreamConnect() {
+        return UPSTREAM_CONNECT_TYPE.isEnabled() ? new UpstreamConnect() : null;
+    }
+
+    /**
+     * New first byte event, {@code null} when not enabled in running recording
+     */
+    static FirstByte firstByte() {
+        return FIRST_BYTE_TYPE.isEnabled() ? new FirstByte() : null;
+    }
+
+    /**
+     * New tunnel event, {@code null} when not enabled in running recording
+     */
+    static Tunnel tunnel() {
+        return TUNNEL_TYPE.isEnabled() ? new Tunnel() : null;
+    }
+
+    /**
+     * New event capture event, {@code null} when not enabled in running recording
+     */
+    static EventCapture eventCapture() {
+        return EVENT_CAPTURE_TYPE.isEnabled() ? new EventCapture() : null;
+    }
+
+    @Name(PREFIX + "RequestStart")
+    @Label("Proxy Request Start")
+    @Description("Client request received by proxy")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class RequestStart extends Event {
+        @Label("Method")
+        String method;
+        @Label("URL")
+        String url;
+    }
+
+    @Name(PREFIX + "Request")
+    @Label("Proxy Request")
+    @Description("Client request handled by proxy, from received to response written to client")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Request extends Event {
+        @Label("Method")
+        String method;
+        @Label("URL")
+        String url;
+        @Label("Status")
+        int status;
+    }
+
+    @Name(PREFIX + "UpstreamConnect")
+    @Label("Proxy Upstream Connect")
+    @Description("Waiting for connection to upstream server")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class UpstreamConnect extends Event {
+        @Label("URL")
+        String url;
+        @Label("Connection Reused")
+        boolean connectionReused;
+    }
+
+    @Name(PREFIX + "FirstByte")
+    @Label("Proxy Upstream First Byte")
+    @Description("Waiting for upstream server response, from request sent to first response byte")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class FirstByte extends Event {
+        @Label("URL")
+        String url;
+    }
+
+    @Name(PREFIX + "Tunnel")
+    @Label("Proxy CONNECT Tunnel")
+    @Description("CONNECT tunnel between client and upstream server, from open to close")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Tunnel extends Event {
+        @Label("Destination")
+        String destination;
+        @Label("Server Name")
+        String serverName;
+        @Label("Bytes From Client")
+        @DataAmount
+        long bytesFromClient;
+        @Label("Bytes From Server")
+        @DataAmount
+        long bytesFromServer;
+    }
+
+    @Name(PREFIX + "EventCapture")
+    @Label("Proxy Event Capture")
+    @Description("Proxy event built and registered in collector")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class EventCapture extends Event {
+        @Label("URL")
+        String url;
+        @Label("Captured Bytes")
+        @DataAmount
+        long capturedBytes;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of pre-generated EC (P-256) key pairs for minted leaf certificates.
+ * Key generation dominates cost of minting a certificate, so the pool is refilled in background
+ * and a key pair is generated on the calling thread only when the pool is drained.
+ */
+class SimpleProxyKeyPairPool {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxyKeyPairPool.class);
+
+    private final BlockingQueue<KeyPair> keyPairs;
+    private final Executor executor;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    SimpleProxyKeyPairPool(int size, Executor executor) {
+        this.keyPairs = new ArrayBlockingQueue<>(size);
+        this.executor = executor;
+    }
+
+    static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate EC key pair", e);
+        }
+    }
+
+    KeyPair take() {
+        KeyPair keyPair = keyPairs.poll();
+        refill();
+        return keyPair != null ? keyPair : generateKeyPair();
+    }
+
+    /**
+     * Fill the pool up to its capacity in background, unless refill is already running
+     */
+    void refill() {
+        if (keyPairs.remainingCapacity() == 0 || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    while (keyPairs.remainingCapacity() > 0 && keyPairs.offer(generateKeyPair())) {
+                        // keep generating until the pool is full
+                    }
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+            log.debug("Could not refill key pair pool", e);
+        }
+    }
+
+    int available() {
+        return keyPairs.size();
+    }
+
+}
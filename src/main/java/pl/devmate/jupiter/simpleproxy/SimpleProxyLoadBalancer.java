@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses backend of request proxied in reverse proxy mode and rewrites request uri to the backend.
+ * Every request holds a lease of chosen backend (counted as in flight) until upstream response is complete,
+ * lease outcome (failure or success) drives passive ejection of backend.
+ */
+class SimpleProxyLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxyLoadBalancer.class);
+    static final String SIMPLE_PROXY_BACKEND_LEASE = "simple-proxy-backend-lease";
+    private static final int VIRTUAL_NODES_PER_BACKEND = 160;
+
+    private final SimpleProxyReverseProxy reverseProxy;
+    private final List<Backend> backends;
+    private final NavigableMap<Long, Backend> hashRing = new TreeMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    SimpleProxyLoadBalancer(SimpleProxyReverseProxy reverseProxy) {
+        this.reverseProxy = reverseProxy;
+        this.backends = reverseProxy.backends().stream().map(Backend::new).toList();
+        if (reverseProxy.loadBalancing() == SimpleProxyLoadBalancing.CONSISTENT_HASH) {
+            for (Backend backend : backends) {
+                for (int i = 0; i < VIRTUAL_NODES_PER_BACKEND; i++) {
+                    hashRing.put(hash(backend.uri + "#" + i), backend);
+                }
+            }
+        }
+    }
+
+    /**
+     * Choose backend for client request, lease is released when client request is complete at the latest
+     */
+    HttpURI rewrite(Request clientToProxyRequest) {
+        Backend backend = choose(clientToProxyRequest);
+        Lease lease = new Lease(backend, backend.rewrite(clientToProxyRequest.getHttpURI()));
+        clientToProxyRequest.setAttribute(SIMPLE_PROXY_BACKEND_LEASE, lease);
+        Request.addCompletionListener(clientToProxyRequest, failure -> lease.release(failure != null));
+        return lease.target();
+    }
+
+    /**
+     * Lease of backend chosen for client request, {@code null} when request was not balanced
+     */
+    static Lease lease(Request clientToProxyRequest) {
+        return clientToProxyRequest.getAttribute(SIMPLE_PROXY_BACKEND_LEASE) instanceof Lease lease ? lease : null;
+    }
+
+    private Backend choose(Request clientToProxyRequest) {
+        long now = System.nanoTime();
+        List<Backend> available = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            if (!backend.ejected(now)) {
+                available.add(backend);
+            }
+        }
+        if (available.isEmpty()) {
+            // all backends ejected, better try them again than reject every request
+            available = backends;
+        }
+        return switch (reverseProxy.loadBalancing()) {
+            case ROUND_ROBIN -> available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+            case LEAST_IN_FLIGHT -> leastInFlight(available);
+            case CONSISTENT_HASH -> consistentHash(hashKey(clientToProxyRequest), available);
+        };
+    }
+
+    private Backend leastInFlight(List<Backend> available) {
+        int start = Math.floorMod(next.getAndIncrement(), available.size());
+        Backend least = null;
+        for (int i = 0; i < available.size(); i++) {
+            Backend backend = available.get((start + i) % available.size());
+            if (least == null || backend.inFlight.get() < least.inFlight.get()) {
+                least = backend;
+            }
+        }
+        return least;
+    }
+
+    private Backend consistentHash(String key, List<Backend> available) {
+        long hash = hash(key);
+        for (Backend backend : hashRing.tailMap(hash, true).values()) {
+            if (available.contains(backend)) {
+                return backend;
+            }
+        }
+        for (Backend backend : hashRing.headMap(hash, false).values()) {
+            if (available.contains(backend)) {
+                return backend;
+            }
+        }
+        return available.get(0);
+    }
+
+    private String hashKey(Request clientToProxyRequest) {
+        String hashHeader = reverseProxy.hashHeader();
+        String value = hashHeader != null ? clientToProxyRequest.getHeaders().get(hashHeader) : null;
+        return value != null ? value : clientToProxyRequest.getHttpURI().getPath();
+    }
+
+    /**
+     * 64-bit FNV-1a with murmur finalizer, spreading short keys over the ring
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private final class Backend {
+
+        private final URI uri;
+        private final String pathPrefix;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntilNanos;
+        private volatile boolean ejected;
+
+        private Backend(URI uri) {
+            this.uri = uri;
+            String path = uri.getRawPath();
+            this.pathPrefix = path == null || path.equals("/") ? "" : path.replaceAll("/+$", "");
+        }
+
+        private boolean ejected(long now) {
+            return ejected && now - ejectedUntilNanos < 0;
+        }
+
+        private HttpURI rewrite(HttpURI clientToProxyUri) {
+            String path = clientToProxyUri.getPath();
+            return HttpURI.build(clientToProxyUri)
+                    .scheme(uri.getScheme())
+                    .host(uri.getHost())
+                    .port(uri.getPort())
+                    .path(pathPrefix + (path == null ? "/" : path))
+                    .asImmutable();
+        }
+
+        private void completed(boolean failed) {
+            inFlight.decrementAndGet();
+            if (!failed) {
+                consecutiveFailures.set(0);
+                return;
+            }
+            int maxFailures = reverseProxy.maxFailures();
+            if (maxFailures > 0 && consecutiveFailures.incrementAndGet() >= maxFailures) {
+                consecutiveFailures.set(0);
+                ejectedUntilNanos = System.nanoTime() + reverseProxy.ejectionTime().toNanos();
+                ejected = true;
+                log.debug("Backend {} ejected for {} after {} consecutive failures", uri, reverseProxy.ejectionTime(), maxFailures);
+            }
+        }
+    }
+
+    /**
+     * Backend chosen for single request, released once
+     */
+    final class Lease {
+
+        private final Backend backend;
+        private final HttpURI target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Backend backend, HttpURI target) {
+            this.backend = backend;
+            this.target = target;
+            backend.inFlight.incrementAndGet();
+        }
+
+        /**
+         * Client request uri rewritten to the backend
+         */
+        HttpURI target() {
+            return target;
+        }
+
+        /**
+         * @param failed whether backend failed request (connection failure or {@code 5xx} response)
+         */
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                backend.completed(failed);
+            }
+        }
+    }
+
+}
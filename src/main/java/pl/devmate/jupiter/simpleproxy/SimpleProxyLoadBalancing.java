@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+/**
+ * Strategy of choosing backend for request proxied in reverse proxy mode.
+ */
+public enum SimpleProxyLoadBalancing {
+
+    /**
+     * Backends are chosen in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Backend with the fewest requests in flight is chosen, ties are resolved in turn
+     */
+    LEAST_IN_FLIGHT,
+
+    /**
+     * Backend is chosen by hash of request key (header value or request path) on consistent hash ring,
+     * so the same key is sent to the same backend, and only keys of ejected backend are moved
+     */
+    CONSISTENT_HASH
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
+
+/**
+ * Live metrics of running proxy server. Every call reads current value, so the object can be kept
+ * and queried repeatedly, e.g., to diagnose saturation during test execution.<br>
+ * Client connections are connections from tested code to proxy, upstream connections are connections
+ * from proxy to servers (tunnels of CONNECT requests are not included).
+ */
+public final class SimpleProxyMetrics {
+
+    private final ProxyEventsCollector proxyEventsCollector;
+    private final SimpleProxyConnectionCounter clientConnections = new SimpleProxyConnectionCounter();
+    private final SimpleProxyConnectionCounter upstreamConnections = new SimpleProxyConnectionCounter();
+    private final SimpleProxyUpstreamConnections upstreamConnectionsUsage = new SimpleProxyUpstreamConnections();
+    private final SimpleProxyRateMeter requests = new SimpleProxyRateMeter();
+    private volatile QueuedThreadPool serverThreadPool;
+    private volatile QueuedThreadPool clientThreadPool;
+
+    SimpleProxyMetrics(ProxyEventsCollector proxyEventsCollector) {
+        this.proxyEventsCollector = proxyEventsCollector;
+    }
+
+    public int activeClientConnections() {
+        return clientConnections.activeConnections();
+    }
+
+    public long totalClientConnections() {
+        return clientConnections.openedConnections();
+    }
+
+    public int activeUpstreamConnections() {
+        return upstreamConnections.activeConnections();
+    }
+
+    public long totalUpstreamConnections() {
+        return upstreamConnections.openedConnections();
+    }
+
+    /**
+     * Ratio (0-1) of requests sent to upstream servers over already used (pooled) connections
+     */
+    public double upstreamConnectionReuseRatio() {
+        return upstreamConnectionsUsage.reuseRatio();
+    }
+
+    /**
+     * Utilization (0-1) of proxy server thread pool, handling client connections
+     */
+    public double serverThreadPoolUtilization() {
+        QueuedThreadPool threadPool = serverThreadPool;
+        return threadPool == null ? 0 : threadPool.getUtilizationRate();
+    }
+
+    /**
+     * Number of jobs waiting for a thread in proxy server thread pool
+     */
+    public int serverThreadPoolQueueSize() {
+        QueuedThreadPool threadPool = serverThreadPool;
+        return threadPool == null ? 0 : threadPool.getQueueSize();
+    }
+
+    /**
+     * Utilization (0-1) of proxy http client thread pool, handling upstream connections
+     */
+    public double clientThreadPoolUtilization() {
+        QueuedThreadPool threadPool = clientThreadPool;
+        return threadPool == null ? 0 : threadPool.getUtilizationRate();
+    }
+
+    /**
+     * Number of jobs waiting for a thread in proxy http client thread pool
+     */
+    public int clientThreadPoolQueueSize() {
+        QueuedThreadPool threadPool = clientThreadPool;
+        return threadPool == null ? 0 : threadPool.getQueueSize();
+    }
+
+    /**
+     * Bytes received by proxy from clients
+     */
+    public long clientBytesIn() {
+        return clientConnections.bytesIn();
+    }
+
+    /**
+     * Bytes sent by proxy to clients
+     */
+    public long clientBytesOut() {
+        return clientConnections.bytesOut();
+    }
+
+    /**
+     * Bytes received by proxy from upstream servers
+     */
+    public long upstreamBytesIn() {
+        return upstreamConnections.bytesIn();
+    }
+
+    /**
+     * Bytes sent by proxy to upstream servers
+     */
+    public long upstreamBytesOut() {
+        return upstreamConnections.bytesOut();
+    }
+
+    public long totalRequests() {
+        return requests.total();
+    }
+
+    /**
+     * Average number of requests per second received in the last 10 seconds
+     */
+    public double requestsPerSecond() {
+        return requests.ratePerSecond();
+    }
+
+    /**
+     * Bytes of request and response bodies retained in captured proxy events
+     */
+    public long capturedBytesRetained() {
+        return proxyEventsCollector.retainedBytes();
+    }
+
+    SimpleProxyConnectionCounter clientConnectionCounter() {
+        return clientConnections;
+    }
+
+    SimpleProxyConnectionCounter upstreamConnectionCounter() {
+        return upstreamConnections;
+    }
+
+    SimpleProxyUpstreamConnections upstreamConnectionsUsage() {
+        return upstreamConnectionsUsage;
+    }
+
+    void requestReceived() {
+        requests.mark();
+    }
+
+    void serverThreadPool(QueuedThreadPool serverThreadPool) {
+        this.serverThreadPool = serverThreadPool;
+    }
+
+    void clientThreadPool(QueuedThreadPool clientThreadPool) {
+        this.clientThreadPool = clientThreadPool;
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleProxyMetrics[activeClientConnections=%d, activeUpstreamConnections=%d, totalRequests=%d]".formatted(
+                activeClientConnections(), activeUpstreamConnections(), totalRequests());
+    }
+
+}
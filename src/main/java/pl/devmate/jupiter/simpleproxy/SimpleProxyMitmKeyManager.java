@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.net.Socket;
+import java.security.KeyPair;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Key manager of TLS interception connector, serving certificates minted on the fly by {@link SimpleProxyCertificateAuthority}.<br>
+ * Alias of the certificate is the host requested by client: SNI server name or, when client sends no SNI
+ * (e.g., for {@code localhost} or ip addresses), the target of CONNECT request that opened the tunnel,
+ * found by the local port of tunnel connection. Minted certificates are cached in bounded LRU cache.<br>
+ * Leaf chosen for handshake is pinned under alias unique to the handshake, so its certificate chain and private key
+ * are served by the same leaf, even when the host is evicted from cache in between.
+ */
+class SimpleProxyMitmKeyManager extends X509ExtendedKeyManager {
+
+    private static final String KEY_TYPE = "EC";
+    private static final String HANDSHAKE_ALIAS_SEPARATOR = "#";
+    private static final int MAX_PINNED_HANDSHAKES = 1024;
+
+    private final SimpleProxyCertificateAuthority certificateAuthority;
+    private final SimpleProxyKeyPairPool keyPairPool;
+    private final Map<Integer, String> tunnelTargets = new ConcurrentHashMap<>();
+    private final Map<String, Leaf> leafCache;
+    private final Map<String, PinnedLeaf> pinnedLeaves = new ConcurrentHashMap<>();
+    private final AtomicLong handshakes = new AtomicLong();
+
+    SimpleProxyMitmKeyManager(SimpleProxyCertificateAuthority certificateAuthority, SimpleProxyKeyPairPool keyPairPool, int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize must be positive");
+        }
+        this.certificateAuthority = certificateAuthority;
+        this.keyPairPool = keyPairPool;
+        this.leafCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Leaf> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Remember target host of CONNECT tunnel, connected to interception connector from given local port
+     */
+    void registerTunnel(int localPort, String targetHost) {
+        tunnelTargets.put(localPort, normalize(targetHost));
+    }
+
+    void releaseTunnel(int localPort) {
+        tunnelTargets.remove(localPort);
+    }
+
+    int cachedCertificates() {
+        synchronized (leafCache) {
+            return leafCache.size();
+        }
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        if (!KEY_TYPE.equals(keyType)) {
+            return null;
+        }
+        String host = requestedServerName(engine.getHandshakeSession());
+        if (host == null) {
+            host = tunnelTargets.get(engine.getPeerPort());
+        }
+        if (host == null) {
+            return null;
+        }
+        Leaf leaf = leaf(host);
+        if (pinnedLeaves.size() >= MAX_PINNED_HANDSHAKES) {
+            // chosen aliases not used by handshakes, leaf is looked up in cache again
+            return host;
+        }
+        String alias = host + HANDSHAKE_ALIAS_SEPARATOR + handshakes.incrementAndGet();
+        pinnedLeaves.put(alias, new PinnedLeaf(leaf));
+        return alias;
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        return null;
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        return new X509Certificate[]{handshakeLeaf(alias).certificate(), certificateAuthority.certificate()};
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        return handshakeLeaf(alias).privateKey();
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return null;
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return null;
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        return null;
+    }
+
+    /**
+     * Leaf pinned for handshake, unpinned when both its certificate chain and private key were served
+     */
+    private Leaf handshakeLeaf(String alias) {
+        PinnedLeaf pinned = pinnedLeaves.get(alias);
+        if (pinned == null) {
+            int separator = alias.lastIndexOf(HANDSHAKE_ALIAS_SEPARATOR);
+            return leaf(separator < 0 ? alias : alias.substring(0, separator));
+        }
+        if (pinned.remainingUses.decrementAndGet() <= 0) {
+            pinnedLeaves.remove(alias);
+        }
+        return pinned.leaf();
+    }
+
+    private Leaf leaf(String host) {
+        synchronized (leafCache) {
+            Leaf leaf = leafCache.get(host);
+            if (leaf != null) {
+                return leaf;
+            }
+        }
+        // mint outside of lock, concurrent handshakes of the same new host may mint twice, first one is cached
+        KeyPair keyPair = keyPairPool.take();
+        Leaf leaf = new Leaf(certificateAuthority.issue(host, keyPair), keyPair.getPrivate());
+        synchronized (leafCache) {
+            Leaf cached = leafCache.putIfAbsent(host, leaf);
+            return cached != null ? cached : leaf;
+        }
+    }
+
+    private static String requestedServerName(SSLSession handshakeSession) {
+        if (handshakeSession instanceof ExtendedSSLSession extendedSession) {
+            for (SNIServerName serverName : extendedSession.getRequestedServerNames()) {
+                if (serverName instanceof SNIHostName hostName) {
+                    return normalize(hostName.getAsciiName());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String host) {
+        String normalized = host.toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("[") && normalized.endsWith("]")) {
+            return normalized.substring(1, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private record Leaf(X509Certificate certificate, PrivateKey privateKey) {
+    }
+
+    private record PinnedLeaf(Leaf leaf, AtomicInteger remainingUses) {
+
+        private PinnedLeaf(Leaf leaf) {
+            // certificate chain and private key
+            this(leaf, new AtomicInteger(2));
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import pl.devmate.jupiter.simpleproxy.events.LatencyHistogram;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsEndpoint;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsEndpointStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Serves proxy metrics and endpoint statistics in Prometheus text exposition format,
+ * for requests received by metrics connector. Requests received by other connectors are passed to wrapped handler.<br>
+ * Metrics are written line by line to buffered response stream, without building the whole document in memory.
+ */
+class SimpleProxyPrometheusHandler extends Handler.Wrapper {
+
+    static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final String metricsConnectorName;
+    private final SimpleProxyMetrics metrics;
+    private final ProxyEventsCollector proxyEventsCollector;
+
+    SimpleProxyPrometheusHandler(String metricsConnectorName, SimpleProxyMetrics metrics, ProxyEventsCollector proxyEventsCollector, Handler handler) {
+        super(handler);
+        this.metricsConnectorName = metricsConnectorName;
+        this.metrics = metrics;
+        this.proxyEventsCollector = proxyEventsCollector;
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback) throws Exception {
+        Connector connector = request.getConnectionMetaData().getConnector();
+        if (connector == null || !metricsConnectorName.equals(connector.getName())) {
+            return super.handle(request, response, callback);
+        }
+        if (!METRICS_PATH.equals(Request.getPathInContext(request))) {
+            Response.writeError(request, response, callback, HttpStatus.NOT_FOUND_404);
+            return true;
+        }
+
+        response.setStatus(HttpStatus.OK_200);
+        response.getHeaders().put(HttpHeader.CONTENT_TYPE, CONTENT_TYPE);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Response.asBufferedOutputStream(request, response), StandardCharsets.UTF_8))) {
+            writeMetrics(writer);
+        } catch (IOException e) {
+            callback.failed(e);
+            return true;
+        }
+        callback.succeeded();
+        return true;
+    }
+
+    private void writeMetrics(Writer writer) throws IOException {
+        writeMetric(writer, "simple_proxy_client_connections_active", "gauge", "Open connections from clients to proxy", metrics.activeClientConnections());
+        writeMetric(writer, "simple_proxy_client_connections_total", "counter", "Connections opened by clients to proxy", metrics.totalClientConnections());
+        writeMetric(writer, "simple_proxy_upstream_connections_active", "gauge", "Open connections from proxy to upstream servers", metrics.activeUpstreamConnections());
+        writeMetric(writer, "simple_proxy_upstream_connections_total", "counter", "Connections opened by proxy to upstream servers", metrics.totalUpstreamConnections());
+        writeMetric(writer, "simple_proxy_upstream_connection_reuse_ratio", "gauge", "Ratio of upstream requests sent over reused connections", metrics.upstreamConnectionReuseRatio());
+        writeMetric(writer, "simple_proxy_client_received_bytes_total", "counter", "Bytes received from clients", metrics.clientBytesIn());
+        writeMetric(writer, "simple_proxy_client_sent_bytes_total", "counter", "Bytes sent to clients", metrics.clientBytesOut());
+        writeMetric(writer, "simple_proxy_upstream_received_bytes_total", "counter", "Bytes received from upstream servers", metrics.upstreamBytesIn());
+        writeMetric(writer, "simple_proxy_upstream_sent_bytes_total", "counter", "Bytes sent to upstream servers", metrics.upstreamBytesOut());
+        writeMetric(writer, "simple_proxy_requests_total", "counter", "Requests received by proxy", metrics.totalRequests());
+        writeMetric(writer, "simple_proxy_requests_per_second", "gauge", "Requests received per second in the last 10 seconds", metrics.requestsPerSecond());
+        writeMetric(writer, "simple_proxy_captured_retained_bytes", "gauge", "Body bytes retained in captured proxy events", metrics.capturedBytesRetained());
+
+        writeHeader(writer, "simple_proxy_thread_pool_utilization", "gauge", "Utilization of proxy thread pools");
+        writeSample(writer, "simple_proxy_thread_pool_utilization", "pool", "server", metrics.serverThreadPoolUtilization());
+        writeSample(writer, "simple_proxy_thread_pool_utilization", "pool", "client", metrics.clientThreadPoolUtilization());
+        writeHeader(writer, "simple_proxy_thread_pool_queue_size", "gauge", "Jobs waiting for thread in proxy thread pools");
+        writeSample(writer, "simple_proxy_thread_pool_queue_size", "pool", "server", metrics.serverThreadPoolQueueSize());
+        writeSample(writer, "simple_proxy_thread_pool_queue_size", "pool", "client", metrics.clientThreadPoolQueueSize());
+
+        writeEndpointStats(writer);
+    }
+
+    private void writeEndpointStats(Writer writer) throws IOException {
+        Iterable<ProxyEventsEndpointStats> endpoints = proxyEventsCollector.stats().endpoints();
+        writeHeader(writer, "simple_proxy_endpoint_requests_total", "counter", "Requests per endpoint");
+        for (ProxyEventsEndpointStats stats : endpoints) {
+            writeEndpointSample(writer, "simple_proxy_endpoint_requests_total", stats.endpoint(), null, stats.count());
+        }
+        writeHeader(writer, "simple_proxy_endpoint_errors_total", "counter", "Responses with status 4xx or 5xx per endpoint");
+        for (ProxyEventsEndpointStats stats : endpoints) {
+            writeEndpointSample(writer, "simple_proxy_endpoint_errors_total", stats.endpoint(), null, stats.errors());
+        }
+        writeHeader(writer, "simple_proxy_endpoint_request_bytes_total", "counter", "Request body bytes per endpoint");
+        for (ProxyEventsEndpointStats stats : endpoints) {
+            writeEndpointSample(writer, "simple_proxy_endpoint_request_bytes_total", stats.endpoint(), null, stats.requestBytes());
+        }
+        writeHeader(writer, "simple_proxy_endpoint_response_bytes_total", "counter", "Response body bytes per endpoint");
+        for (ProxyEventsEndpointStats stats : endpoints) {
+            writeEndpointSample(writer, "simple_proxy_endpoint_response_bytes_total", stats.endpoint(), null, stats.responseBytes());
+        }
+        writeHeader(writer, "simple_proxy_endpoint_latency_seconds", "summary", "Latency from request received to response written, per endpoint");
+        for (ProxyEventsEndpointStats stats : endpoints) {
+            LatencyHistogram latency = stats.latency();
+            for (double quantile : QUANTILES) {
+                writeEndpointSample(writer, "simple_proxy_endpoint_latency_seconds", stats.endpoint(), quantile, seconds(latency.percentile(quantile * 100)));
+            }
+            writeEndpointSample(writer, "simple_proxy_endpoint_latency_seconds_sum", stats.endpoint(), null, seconds(latency.sum()));
+            writeEndpointSample(writer, "simple_proxy_endpoint_latency_seconds_count", stats.endpoint(), null, latency.count());
+        }
+    }
+
+    private static void writeMetric(Writer writer, String name, String type, String help, double value) throws IOException {
+        writeHeader(writer, name, type, help);
+        writer.write(name);
+        writer.write(' ');
+        writeValue(writer, value);
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(help);
+        writer.write("\n# TYPE ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+    }
+
+    private static void writeSample(Writer writer, String name, String label, String labelValue, double value) throws IOException {
+        writer.write(name);
+        writer.write('{');
+        writeLabel(writer, label, labelValue);
+        writer.write("} ");
+        writeValue(writer, value);
+    }
+
+    private static void writeEndpointSample(Writer writer, String name, ProxyEventsEndpoint endpoint, Double quantile, double value) throws IOException {
+        writer.write(name);
+        writer.write('{');
+        writeLabel(writer, "method", endpoint.method());
+        writer.write(',');
+        writeLabel(writer, "host", endpoint.host());
+        writer.write(',');
+        writeLabel(writer, "path", endpoint.path());
+        if (quantile != null) {
+            writer.write(',');
+            writeLabel(writer, "quantile", Double.toString(quantile));
+        }
+        writer.write("} ");
+        writeValue(writer, value);
+    }
+
+    private static void writeLabel(Writer writer, String label, String value) throws IOException {
+        writer.write(label);
+        writer.write("=\"");
+        String labelValue = value == null ? "" : value;
+        for (int i = 0; i < labelValue.length(); i++) {
+            char c = labelValue.charAt(i);
+            switch (c) {
+                case '\\' -> writer.write("\\\\");
+                case '"' -> writer.write("\\\"");
+                case '\n' -> writer.write("\\n");
+                default -> writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static void writeValue(Writer writer, double value) throws IOException {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            writer.write(Long.toString((long) value));
+        } else {
+            writer.write(Double.toString(value));
+        }
+        writer.write('\n');
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1_000_000_000.0;
+    }
+
+}
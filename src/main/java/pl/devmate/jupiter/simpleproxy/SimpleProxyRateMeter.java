@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events in one second buckets of a sliding window, to report average rate of the last complete seconds.
+ * Every bucket packs its second (upper bits, truncated to int) and count (lower bits) in one long, so bucket
+ * is reset to new second and counted by a single atomic update.
+ */
+class SimpleProxyRateMeter {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private static final int COUNT_BITS = Integer.SIZE;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(WINDOW_SECONDS);
+    private final LongAdder total = new LongAdder();
+
+    void mark() {
+        total.increment();
+        long second = currentSecond();
+        int bucket = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        buckets.accumulateAndGet(bucket, second << COUNT_BITS,
+                (packed, packedSecond) -> (packed & ~COUNT_MASK) == packedSecond ? packed + 1 : packedSecond + 1);
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    /**
+     * Average number of events per second, in the window of last complete seconds
+     */
+    double ratePerSecond() {
+        long second = currentSecond();
+        long count = 0;
+        for (int bucket = 0; bucket < WINDOW_SECONDS; bucket++) {
+            long packed = buckets.get(bucket);
+            // truncated seconds are compared by difference, so it is correct when int seconds overflow
+            int age = (int) second - (int) (packed >>> COUNT_BITS);
+            if (age > 0 && age <= WINDOW_SECONDS) {
+                count += packed & COUNT_MASK;
+            }
+        }
+        return (double) count / WINDOW_SECONDS;
+    }
+
+    private static long currentSecond() {
+        return Math.floorDiv(System.nanoTime(), TimeUnit.SECONDS.toNanos(1));
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IteratingCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * One side of relayed connection (to client or to upstream server), e.g., proxied WebSocket or SOCKS tunnel.
+ * Bytes read from the endpoint are written to the paired connection endpoint, like {@code ConnectHandler} tunnel
+ * connections do, and passed to inspector before writing (frame parser, traffic accounting).
+ */
+class SimpleProxyRelayConnection extends AbstractConnection implements Connection.UpgradeTo {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxyRelayConnection.class);
+
+    private final ByteBufferPool bufferPool;
+    private final Consumer<ByteBuffer> inspector;
+    private final Runnable onCloseAction;
+    private final IteratingCallback pipe = new RelayIteratingCallback();
+    private SimpleProxyRelayConnection pairedConnection;
+    private Consumer<Runnable> onOpenAction = Runnable::run;
+    private ByteBuffer upgradeBuffer;
+
+    /**
+     * @param inspector consumer of bytes read from the endpoint, must not change buffer position
+     * @param onCloseAction action run when connection is closed
+     */
+    SimpleProxyRelayConnection(EndPoint endPoint, Executor executor, ByteBufferPool bufferPool,
+                               Consumer<ByteBuffer> inspector, Runnable onCloseAction) {
+        super(endPoint, executor);
+        this.bufferPool = bufferPool;
+        this.inspector = inspector;
+        this.onCloseAction = onCloseAction;
+    }
+
+    static void pair(SimpleProxyRelayConnection downstream, SimpleProxyRelayConnection upstream) {
+        downstream.pairedConnection = upstream;
+        upstream.pairedConnection = downstream;
+    }
+
+    /**
+     * Action run when connection is opened (e.g., upgrade of paired endpoint), given the continuation
+     * that starts relaying bytes, which may be run later (e.g., after reply written to client)
+     */
+    void onOpen(Consumer<Runnable> onOpenAction) {
+        this.onOpenAction = onOpenAction;
+    }
+
+    @Override
+    public void onUpgradeTo(ByteBuffer buffer) {
+        // bytes read together with upgrade request or response
+        this.upgradeBuffer = buffer;
+    }
+
+    @Override
+    public void onOpen() {
+        super.onOpen();
+        onOpenAction.accept(this::startRelay);
+    }
+
+    private void startRelay() {
+        ByteBuffer buffer = upgradeBuffer;
+        upgradeBuffer = null;
+        if (BufferUtil.hasContent(buffer)) {
+            inspect(buffer);
+            pairedConnection.getEndPoint().write(Callback.from(this::fillInterested, this::disconnect), buffer);
+        } else {
+            fillInterested();
+        }
+    }
+
+    @Override
+    public void onFillable() {
+        pipe.iterate();
+    }
+
+    @Override
+    public void onClose(Throwable cause) {
+        super.onClose(cause);
+        onCloseAction.run();
+        pairedConnection.getEndPoint().close(cause);
+    }
+
+    private void inspect(ByteBuffer buffer) {
+        inspector.accept(buffer);
+    }
+
+    private void disconnect(Throwable cause) {
+        getEndPoint().close(cause);
+        pairedConnection.getEndPoint().close(cause);
+    }
+
+    private class RelayIteratingCallback extends IteratingCallback {
+
+        private RetainableByteBuffer buffer;
+
+        @Override
+        protected Action process() {
+            buffer = bufferPool.acquire(getInputBufferSize(), true);
+            try {
+                ByteBuffer byteBuffer = buffer.getByteBuffer();
+                int filled = getEndPoint().fill(byteBuffer);
+                if (filled > 0) {
+                    inspect(byteBuffer);
+                    pairedConnection.getEndPoint().write(this, byteBuffer);
+                    return Action.SCHEDULED;
+                }
+                buffer.release();
+                if (filled == 0) {
+                    fillInterested();
+                    return Action.IDLE;
+                }
+                pairedConnection.getEndPoint().shutdownOutput();
+                return Action.SUCCEEDED;
+            } catch (IOException e) {
+                log.debug("Could not read from {}", SimpleProxyRelayConnection.this, e);
+                buffer.release();
+                disconnect(e);
+                return Action.SUCCEEDED;
+            }
+        }
+
+        @Override
+        protected void onSuccess() {
+            buffer.release();
+        }
+
+        @Override
+        protected void onCompleteFailure(Throwable cause) {
+            log.debug("Could not write to {}", pairedConnection, cause);
+            buffer.release();
+            disconnect(cause);
+        }
+    }
+
+}
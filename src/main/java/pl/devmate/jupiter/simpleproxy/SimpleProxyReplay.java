@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.client.BytesRequestContent;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.Request;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.LatencyRecorder;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Replays captured requests (e.g., {@link ProxyEventsCaptured} snapshot or events read from capture file)
+ * against target server, as a load test. Requests are sent with non-blocking Jetty http client, paced
+ * with original timing (optionally faster) or as fast as possible with limited concurrency.
+ * Responses are discarded, only their status and latency are recorded.<br>
+ * CONNECT requests and WebSocket upgrades are not replayed.
+ */
+public final class SimpleProxyReplay {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxyReplay.class);
+    private static final Set<HttpHeader> SKIPPED_HEADERS = EnumSet.of(
+            HttpHeader.HOST, HttpHeader.CONTENT_LENGTH, HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE,
+            HttpHeader.PROXY_CONNECTION, HttpHeader.PROXY_AUTHORIZATION, HttpHeader.TRANSFER_ENCODING,
+            HttpHeader.TE, HttpHeader.UPGRADE, HttpHeader.EXPECT);
+
+    private final List<ProxyEventRequest> requests;
+    private URI target = null;
+    private SimpleProxyReplayPacing pacing = SimpleProxyReplayPacing.original();
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    private SimpleProxyReplay(List<ProxyEventRequest> requests) {
+        this.requests = requests;
+    }
+
+    public static SimpleProxyReplay of(ProxyEventsCaptured eventsCaptured) {
+        return of(eventsCaptured.proxyEvents());
+    }
+
+    /**
+     * Replay of given events, in order of their request instants
+     */
+    public static SimpleProxyReplay of(Collection<ProxyEvent> events) {
+        return new SimpleProxyReplay(events.stream()
+                .filter(event -> event.webSocket() == null)
+                .map(ProxyEvent::clientToProxyRequest)
+                .filter(request -> request.uri() != null && request.uri().getHost() != null && !"CONNECT".equals(request.method()))
+                .sorted(Comparator.comparing(ProxyEventRequest::instant, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList());
+    }
+
+    /**
+     * Send requests to target server instead of originally requested one
+     * @param target base URI (scheme, host, port and optional path prefix) of target server,
+     *               {@code null} means originally requested servers
+     */
+    public SimpleProxyReplay target(URI target) {
+        if (target != null && (target.getScheme() == null || target.getHost() == null)) {
+            throw new IllegalArgumentException("target must be absolute URI with host: " + target);
+        }
+        this.target = target;
+        return this;
+    }
+
+    public SimpleProxyReplay pacing(SimpleProxyReplayPacing pacing) {
+        this.pacing = Objects.requireNonNull(pacing, "pacing cannot be null");
+        return this;
+    }
+
+    public SimpleProxyReplay requestTimeout(Duration requestTimeout) {
+        this.requestTimeout = Objects.requireNonNull(requestTimeout, "requestTimeout cannot be null");
+        return this;
+    }
+
+    /**
+     * Replay all requests and wait for all responses
+     */
+    public SimpleProxyReplayResult run() throws Exception {
+        QueuedThreadPool replayThreads = new QueuedThreadPool();
+        replayThreads.setName("simple-proxy-replay");
+        HttpClient httpClient = new HttpClient();
+        httpClient.setExecutor(replayThreads);
+        httpClient.setFollowRedirects(false);
+        httpClient.setMaxConnectionsPerDestination(Math.min(pacing.concurrency(), 1024));
+        httpClient.setMaxRequestsQueuedPerDestination(Integer.MAX_VALUE);
+        httpClient.start();
+        try {
+            return replay(httpClient);
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    private SimpleProxyReplayResult replay(HttpClient httpClient) throws InterruptedException {
+        LatencyRecorder latency = new LatencyRecorder();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(pacing.concurrency());
+        CountDownLatch completed = new CountDownLatch(requests.size());
+
+        Instant firstInstant = requests.isEmpty() ? null : requests.get(0).instant();
+        long startNanos = System.nanoTime();
+        for (ProxyEventRequest captured : requests) {
+            if (pacing.speed() > 0 && firstInstant != null && captured.instant() != null) {
+                long offsetNanos = (long) (Duration.between(firstInstant, captured.instant()).toNanos() / pacing.speed());
+                long waitNanos = startNanos + offsetNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            inFlight.acquire();
+            long sentNanos = System.nanoTime();
+            newRequest(httpClient, captured).send(result -> {
+                latency.record(System.nanoTime() - sentNanos);
+                if (result.getResponse() != null && result.getResponse().getStatus() > 0) {
+                    statuses.computeIfAbsent(result.getResponse().getStatus(), status -> new LongAdder()).increment();
+                } else {
+                    Throwable failure = result.getFailure();
+                    log.debug("Replayed request failed: {} {}", captured.method(), captured.uri(), failure);
+                    failures.computeIfAbsent(failure != null ? failure.getClass().getSimpleName() : "Unknown", type -> new LongAdder()).increment();
+                }
+                inFlight.release();
+                completed.countDown();
+            });
+        }
+        completed.await();
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        return new SimpleProxyReplayResult(
+                requests.size(),
+                duration,
+                latency.snapshot(),
+                sums(statuses),
+                sums(failures)
+        );
+    }
+
+    private Request newRequest(HttpClient httpClient, ProxyEventRequest captured) {
+        Request request = httpClient.newRequest(targetUri(captured.uri()))
+                .method(captured.method())
+                .timeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (captured.headers() != null) {
+            request.headers(headers -> {
+                for (ProxyEventHttpHeader header : captured.headers().headers()) {
+                    HttpHeader knownHeader = HttpHeader.CACHE.get(header.headerName());
+                    if (knownHeader != null && SKIPPED_HEADERS.contains(knownHeader) || header.headerValues() == null) {
+                        continue;
+                    }
+                    header.headerValues().forEach(value -> headers.add(header.headerName(), value));
+                }
+            });
+        }
+        byte[] body = captured.requestBytes();
+        if (body != null && body.length > 0) {
+            request.body(new BytesRequestContent(body));
+        }
+        return request;
+    }
+
+    private URI targetUri(URI captured) {
+        if (target == null) {
+            return captured;
+        }
+        String basePath = target.getRawPath() == null ? "" : target.getRawPath().replaceAll("/+$", "");
+        String path = captured.getRawPath() == null || captured.getRawPath().isEmpty() ? "/" : captured.getRawPath();
+        String query = captured.getRawQuery() == null ? "" : "?" + captured.getRawQuery();
+        return URI.create(target.getScheme() + "://" + target.getRawAuthority() + basePath + path + query);
+    }
+
+    private static <K> Map<K, Long> sums(Map<K, LongAdder> counters) {
+        return counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, counter -> counter.getValue().sum()));
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+/**
+ * Pacing of replayed requests
+ * @param speed how many times faster than originally captured requests are sent, {@code 0} means requests
+ *              are sent as fast as possible (limited only by concurrency)
+ * @param concurrency max number of requests in flight
+ */
+public record SimpleProxyReplayPacing(double speed, int concurrency) {
+
+    public SimpleProxyReplayPacing {
+        if (speed < 0 || Double.isNaN(speed) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("speed must be finite and cannot be negative");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+    }
+
+    /**
+     * Requests sent with original timing (relative to the first captured request)
+     */
+    public static SimpleProxyReplayPacing original() {
+        return speed(1.0);
+    }
+
+    /**
+     * Requests sent with original timing, {@code speed} times faster
+     */
+    public static SimpleProxyReplayPacing speed(double speed) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        return new SimpleProxyReplayPacing(speed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Requests sent as fast as possible, with at most {@code concurrency} requests in flight
+     */
+    public static SimpleProxyReplayPacing maxThroughput(int concurrency) {
+        return new SimpleProxyReplayPacing(0, concurrency);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import pl.devmate.jupiter.simpleproxy.events.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of replaying captured requests
+ * @param requests number of replayed requests
+ * @param duration time from the first request sent to the last response received
+ * @param latency latency of replayed requests (from request sent to response received or failure)
+ * @param statuses number of responses per status code
+ * @param failures number of requests failed without response, per exception type (e.g., {@code ConnectException})
+ */
+public record SimpleProxyReplayResult(
+        long requests,
+        Duration duration,
+        LatencyHistogram latency,
+        Map<Integer, Long> statuses,
+        Map<String, Long> failures
+) {
+
+    public SimpleProxyReplayResult {
+        statuses = Map.copyOf(statuses);
+        failures = Map.copyOf(failures);
+    }
+
+    /**
+     * Number of failed requests and responses with status {@code 4xx} or {@code 5xx}
+     */
+    public long errors() {
+        long errorResponses = statuses.entrySet().stream()
+                .filter(status -> status.getKey() >= 400)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return errorResponses + failures.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double errorRate() {
+        return requests == 0 ? 0.0 : (double) errors() / requests;
+    }
+
+    /**
+     * Replayed requests per second
+     */
+    public double throughput() {
+        return duration.isZero() ? 0.0 : requests * 1_000_000_000.0 / duration.toNanos();
+    }
+
+    public String summary() {
+        return "Replayed %d requests in %d ms (%.1f req/s), errors: %d, latency p50: %d ms, p99: %d ms, max: %d ms, statuses: %s, failures: %s".formatted(
+                requests,
+                duration.toMillis(),
+                throughput(),
+                errors(),
+                latency.p50().toMillis(),
+                latency.p99().toMillis(),
+                latency.max().toMillis(),
+                statuses,
+                failures
+        );
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reverse proxy mode: requests sent directly to proxy http port are forwarded to a pool of backends.
+ * Backends failing consecutive requests (connection failures or {@code 5xx} responses) are passively ejected
+ * from the pool for {@code ejectionTime}. When all backends are ejected, all of them are used again.
+ * @param backends base URIs of backends (scheme, host, port and optional path prefix), e.g. {@code http://localhost:8081}
+ * @param loadBalancing strategy of choosing backend
+ * @param hashHeader request header hashed by {@link SimpleProxyLoadBalancing#CONSISTENT_HASH},
+ *                   {@code null} or missing header means request path is hashed
+ * @param maxFailures number of consecutive failures ejecting backend, {@code 0} disables ejection
+ * @param ejectionTime how long ejected backend is not chosen
+ */
+public record SimpleProxyReverseProxy(
+        List<URI> backends,
+        SimpleProxyLoadBalancing loadBalancing,
+        String hashHeader,
+        int maxFailures,
+        Duration ejectionTime) {
+
+    public static final int DEFAULT_MAX_FAILURES = 3;
+    public static final Duration DEFAULT_EJECTION_TIME = Duration.ofSeconds(10);
+
+    public SimpleProxyReverseProxy {
+        backends = List.copyOf(backends);
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("backends cannot be empty");
+        }
+        for (URI backend : backends) {
+            if (backend.getScheme() == null || backend.getHost() == null) {
+                throw new IllegalArgumentException("backend must be absolute URI with host: " + backend);
+            }
+        }
+        Objects.requireNonNull(loadBalancing, "loadBalancing cannot be null");
+        if (maxFailures < 0) {
+            throw new IllegalArgumentException("maxFailures can't be negative");
+        }
+        Objects.requireNonNull(ejectionTime, "ejectionTime cannot be null");
+        if (ejectionTime.isNegative()) {
+            throw new IllegalArgumentException("ejectionTime can't be negative");
+        }
+    }
+
+    /**
+     * Reverse proxy with default passive health ejection (3 consecutive failures, 10 seconds)
+     * @param loadBalancing strategy of choosing backend
+     * @param backends base URIs of backends
+     */
+    public static SimpleProxyReverseProxy of(SimpleProxyLoadBalancing loadBalancing, String... backends) {
+        return new SimpleProxyReverseProxy(
+                Arrays.stream(backends).map(URI::create).toList(),
+                loadBalancing,
+                null,
+                DEFAULT_MAX_FAILURES,
+                DEFAULT_EJECTION_TIME);
+    }
+
+    /**
+     * Copy hashing given request header, instead of request path
+     * @param hashHeader request header name
+     */
+    public SimpleProxyReverseProxy withHashHeader(String hashHeader) {
+        return new SimpleProxyReverseProxy(backends, loadBalancing, hashHeader, maxFailures, ejectionTime);
+    }
+
+    /**
+     * Copy with given passive health ejection
+     * @param maxFailures number of consecutive failures ejecting backend, {@code 0} disables ejection
+     * @param ejectionTime how long ejected backend is not chosen
+     */
+    public SimpleProxyReverseProxy withEjection(int maxFailures, Duration ejectionTime) {
+        return new SimpleProxyReverseProxy(backends, loadBalancing, hashHeader, maxFailures, ejectionTime);
+    }
+
+}
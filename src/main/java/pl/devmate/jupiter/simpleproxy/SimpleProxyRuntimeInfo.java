@@ -15,9 +15,26 @@
  */
 package pl.devmate.jupiter.simpleproxy;
 
+import java.nio.file.Path;
+
+/**
+ * Information about running proxy server
+ * @param httpPort port of http proxy connector
+ * @param httpsPort port of TLS proxy connector
+ * @param metricsPort port of local metrics connector serving {@code /metrics} in Prometheus format, {@code null} when disabled
+ * @param socksPort port of SOCKS5 proxy connector, {@code null} when disabled
+ * @param unixSocketPath path of unix domain socket on which proxy listens, {@code null} when disabled
+ * @param metrics live metrics of proxy server
+ * @param certificateAuthority authority signing certificates of intercepted hosts, {@code null} when TLS interception is disabled
+ */
 public record SimpleProxyRuntimeInfo(
         Integer httpPort,
-        Integer httpsPort
+        Integer httpsPort,
+        Integer metricsPort,
+        Integer socksPort,
+        Path unixSocketPath,
+        SimpleProxyMetrics metrics,
+        SimpleProxyCertificateAuthority certificateAuthority
 ) {
 
 }
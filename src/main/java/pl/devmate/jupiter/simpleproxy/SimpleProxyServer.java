@@ -22,18 +22,26 @@ import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.proxy.ProxyHandler;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.server.handler.ConnectHandler;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureWriter;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStats;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStreamSink;
 
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.ProxySelector;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
 
 import static pl.devmate.jupiter.simpleproxy.SimpleProxyExtension.LOCALHOST;
@@ -43,18 +51,35 @@ class SimpleProxyServer {
     private static final Logger log = LoggerFactory.getLogger(SimpleProxyServer.class);
     public static final String SIMPLE_PROXY_TLS_CONNECTOR_NAME = "simple-proxy-tls";
     public static final String SIMPLE_PROXY_HTTP_CONNECTOR_NAME = "simple-proxy-http";
+    public static final String SIMPLE_PROXY_METRICS_CONNECTOR_NAME = "simple-proxy-metrics";
+    public static final String SIMPLE_PROXY_MITM_CONNECTOR_NAME = "simple-proxy-mitm";
+    public static final String SIMPLE_PROXY_SOCKS_CONNECTOR_NAME = "simple-proxy-socks";
+    public static final String SIMPLE_PROXY_UNIX_CONNECTOR_NAME = "simple-proxy-unix";
+    public static final String SIMPLE_PROXY_PARTITION_CONNECTOR_PREFIX = "simple-proxy-partition-";
+    private static final int KEY_PAIR_POOL_SIZE = 8;
+    // selector of partition connector and one more thread for requests of partition
+    private static final int PARTITION_THREADS = 2;
 
     private Server jettyServer = null;
+    private QueuedThreadPool proxyThreads = null;
     private final SimpleProxyConfig simpleProxyConfig;
     private final ProxyEventsCollector proxyEventsCollector;
+    private final SimpleProxyMetrics metrics;
+    private SimpleProxyCertificateAuthority certificateAuthority = null;
+    private ProxyEventsStreamSink eventsSink = null;
+    private ProxyEventsCaptureWriter captureWriter = null;
 
     SimpleProxyServer(SimpleProxyConfig simpleProxyConfig) {
         this.simpleProxyConfig = simpleProxyConfig;
         ProxyEventsCollectorConfig collectorConfig = new ProxyEventsCollectorConfig(
                 simpleProxyConfig.storeRequestBody(),
-                simpleProxyConfig.storeResponseBody()
+                simpleProxyConfig.storeResponseBody(),
+                simpleProxyConfig.storeEvents(),
+                simpleProxyConfig.bodyCompressionThreshold(),
+                simpleProxyConfig.deduplicateBodies()
         );
         this.proxyEventsCollector = new ProxyEventsCollector(collectorConfig);
+        this.metrics = new SimpleProxyMetrics(proxyEventsCollector);
     }
 
     public void start() throws Exception {
@@ -66,62 +91,231 @@ class SimpleProxyServer {
         }
 
         log.debug("Starting forward proxy server...");
-        ConnectHandler connectHandler = new SimpleProxyConnectHandler(proxyEventsCollector, simpleProxyConfig);
-        SimpleProxyHandler proxyHandler = new SimpleProxyHandler(proxyEventsCollector);
-        jettyServer = startProxy(connectHandler, proxyHandler);
+        QueuedThreadPool proxyThreads = new QueuedThreadPool(10);
+        proxyThreads.setName("simple-proxy");
+        metrics.serverThreadPool(proxyThreads);
+        this.proxyThreads = proxyThreads;
+
+        SimpleProxyKeyPairPool keyPairPool = null;
+        SimpleProxyMitmKeyManager mitmKeyManager = null;
+        if (simpleProxyConfig.tlsInterception()) {
+            certificateAuthority = SimpleProxyCertificateAuthority.generate("SimpleProxy CA");
+            keyPairPool = new SimpleProxyKeyPairPool(KEY_PAIR_POOL_SIZE, proxyThreads);
+            mitmKeyManager = new SimpleProxyMitmKeyManager(certificateAuthority, keyPairPool, simpleProxyConfig.tlsInterceptionCacheSize());
+        }
+
+        if (simpleProxyConfig.eventsSink() != null) {
+            eventsSink = new ProxyEventsStreamSink(simpleProxyConfig.eventsSink());
+            proxyEventsCollector.addSink(eventsSink);
+        }
+        if (simpleProxyConfig.captureFile() != null) {
+            captureWriter = ProxyEventsCaptureWriter.open(simpleProxyConfig.captureFile());
+            proxyEventsCollector.addSink(captureWriter);
+        }
+
+        ConnectHandler connectHandler = new SimpleProxyConnectHandler(proxyEventsCollector, simpleProxyConfig, metrics, mitmKeyManager);
+        SimpleProxyHandler proxyHandler = new SimpleProxyHandler(proxyEventsCollector, simpleProxyConfig, metrics);
+        jettyServer = startProxy(proxyThreads, connectHandler, proxyHandler, mitmKeyManager);
+        if (keyPairPool != null) {
+            keyPairPool.refill();
+        }
         log.debug("Started forward proxy server, http port: {}, https port: {}",
                 httpPort().map(Object::toString).orElse("<none>"),
                 httpsPort().map(Object::toString).orElse("<none>"));
     }
 
-    private Server startProxy(ConnectHandler connectHandler, ProxyHandler proxyHandler) throws Exception {
+    private Server startProxy(QueuedThreadPool proxyThreads, ConnectHandler connectHandler, ProxyHandler proxyHandler,
+                              SimpleProxyMitmKeyManager mitmKeyManager) throws Exception {
         SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setSslContext(SimpleProxySslContexts.server(
+                simpleProxyConfig.tlsSessionCacheSize(), simpleProxyConfig.tlsSessionTimeout()));
         sslContextFactory.setUseCipherSuitesOrder(true);
         sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
 
-        QueuedThreadPool proxyThreads = new QueuedThreadPool(10);
-        proxyThreads.setName("simple-proxy");
         var proxy = new Server(proxyThreads);
 
         HttpConfiguration httpConfig = new HttpConfiguration();
         
-        ConnectionFactory h1c = new HttpConnectionFactory(httpConfig);
-        ConnectionFactory h2c = new HTTP2CServerConnectionFactory(httpConfig);
-        var proxyConnector = new ServerConnector(proxy, 1, 1, h1c, h2c);
-        proxyConnector.setName(SIMPLE_PROXY_HTTP_CONNECTOR_NAME);
+        var proxyConnector = newHttpConnector(proxy, httpConfig, SIMPLE_PROXY_HTTP_CONNECTOR_NAME, 1);
         proxy.addConnector(proxyConnector);
 
         HttpConfiguration httpsConfig = new HttpConfiguration(httpConfig);
         httpsConfig.addCustomizer(new SecureRequestCustomizer());
         HttpConnectionFactory h1 = new HttpConnectionFactory(httpsConfig);
         HTTP2ServerConnectionFactory h2 = new HTTP2ServerConnectionFactory(httpsConfig);
+        h2.setConnectProtocolEnabled(true);
 
         ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
         alpn.setDefaultProtocol(h1.getProtocol());
         SslConnectionFactory ssl = new SslConnectionFactory(sslContextFactory, alpn.getProtocol());
 
+        if (simpleProxyConfig.unixSocketPath() != null) {
+            // same protocols as http connector, for clients on the same host without TCP loopback overhead
+            HTTP2CServerConnectionFactory unixH2c = new HTTP2CServerConnectionFactory(httpConfig);
+            unixH2c.setConnectProtocolEnabled(true);
+            var unixConnector = new UnixDomainServerConnector(proxy, 1, 1, new HttpConnectionFactory(httpConfig), unixH2c);
+            unixConnector.setName(SIMPLE_PROXY_UNIX_CONNECTOR_NAME);
+            unixConnector.setUnixDomainPath(simpleProxyConfig.unixSocketPath());
+            unixConnector.addEventListener(metrics.clientConnectionCounter());
+            proxy.addConnector(unixConnector);
+        }
+
+        HTTP2CServerConnectionFactory h2c = new HTTP2CServerConnectionFactory(httpConfig);
+        h2c.setConnectProtocolEnabled(true);
         var proxyTLSConnector = new ServerConnector(proxy, 1, 1, ssl, alpn, h2, h1, h2c);
         proxyTLSConnector.setName(SIMPLE_PROXY_TLS_CONNECTOR_NAME);
+        proxyTLSConnector.addEventListener(metrics.clientConnectionCounter());
         proxy.addConnector(proxyTLSConnector);
-        proxy.setHandler(connectHandler);
         connectHandler.setHandler(proxyHandler);
 
+        if (mitmKeyManager != null) {
+            // CONNECT tunnels are connected to this local connector, decrypted requests are handled as plain http
+            SSLContext mitmSslContext = SSLContext.getInstance("TLS");
+            mitmSslContext.init(new KeyManager[]{mitmKeyManager}, null, null);
+            SslContextFactory.Server mitmSslContextFactory = new SslContextFactory.Server();
+            mitmSslContextFactory.setSslContext(mitmSslContext);
+            mitmSslContextFactory.setSslSessionCacheSize(simpleProxyConfig.tlsSessionCacheSize());
+            mitmSslContextFactory.setSslSessionTimeout((int) Math.min(Integer.MAX_VALUE, simpleProxyConfig.tlsSessionTimeout().toSeconds()));
+
+            HttpConfiguration mitmConfig = new HttpConfiguration(httpConfig);
+            mitmConfig.addCustomizer(new SecureRequestCustomizer(false));
+            HttpConnectionFactory mitmH1 = new HttpConnectionFactory(mitmConfig);
+            var mitmConnector = new ServerConnector(proxy, 1, 1,
+                    new SslConnectionFactory(mitmSslContextFactory, mitmH1.getProtocol()), mitmH1);
+            mitmConnector.setName(SIMPLE_PROXY_MITM_CONNECTOR_NAME);
+            mitmConnector.setHost(LOCALHOST);
+            proxy.addConnector(mitmConnector);
+        }
+
+        if (simpleProxyConfig.socksProxy()) {
+            var socksConnector = new ServerConnector(proxy, 1, 1,
+                    new SimpleProxySocks5ConnectionFactory(proxyThreads, proxyEventsCollector, simpleProxyConfig));
+            socksConnector.setName(SIMPLE_PROXY_SOCKS_CONNECTOR_NAME);
+            socksConnector.setPort(simpleProxyConfig.socksPort());
+            socksConnector.addEventListener(metrics.clientConnectionCounter());
+            proxy.addConnector(socksConnector);
+        }
+
+        if (simpleProxyConfig.metricsEndpoint()) {
+            var metricsConnector = new ServerConnector(proxy, 1, 1, new HttpConnectionFactory(new HttpConfiguration()));
+            metricsConnector.setName(SIMPLE_PROXY_METRICS_CONNECTOR_NAME);
+            metricsConnector.setHost(LOCALHOST);
+            proxy.addConnector(metricsConnector);
+            proxy.setHandler(new SimpleProxyPrometheusHandler(SIMPLE_PROXY_METRICS_CONNECTOR_NAME, metrics, proxyEventsCollector, connectHandler));
+        } else {
+            proxy.setHandler(connectHandler);
+        }
+
         proxy.start();
         return proxy;
     }
 
+    private ServerConnector newHttpConnector(Server proxy, HttpConfiguration httpConfig, String name, int acceptors) {
+        ConnectionFactory h1c = new HttpConnectionFactory(httpConfig);
+        HTTP2CServerConnectionFactory h2c = new HTTP2CServerConnectionFactory(httpConfig);
+        // accept WebSocket over HTTP/2 (RFC 8441 extended CONNECT)
+        h2c.setConnectProtocolEnabled(true);
+        var connector = new ServerConnector(proxy, acceptors, 1, h1c, h2c);
+        connector.setName(name);
+        connector.addEventListener(metrics.clientConnectionCounter());
+        return connector;
+    }
+
+    /**
+     * Open partition with its own http proxy connector (on localhost), events of requests received by the connector
+     * are captured in partition only. Partitions share upstream connections with the rest of the proxy.
+     * @return port of partition proxy connector
+     */
+    synchronized int openPartition(String partition) throws Exception {
+        Objects.requireNonNull(partition, "partition cannot be null");
+        if (jettyServer == null || !jettyServer.isRunning()) {
+            throw new IllegalStateException("Proxy server not started");
+        }
+        String connectorName = SIMPLE_PROXY_PARTITION_CONNECTOR_PREFIX + partition;
+        Optional<Integer> openedPort = findProxyPortByConnectorName(connectorName);
+        if (openedPort.isPresent()) {
+            return openedPort.get();
+        }
+        proxyEventsCollector.openPartition(connectorName);
+        // connections are accepted by selector, without dedicated acceptor thread
+        ServerConnector connector = newHttpConnector(jettyServer, new HttpConfiguration(), connectorName, 0);
+        connector.setHost(LOCALHOST);
+        proxyThreads.setMaxThreads(proxyThreads.getMaxThreads() + PARTITION_THREADS);
+        jettyServer.addConnector(connector);
+        try {
+            connector.start();
+        } catch (Exception e) {
+            // partition not opened, undo its collector and threads
+            jettyServer.removeConnector(connector);
+            proxyThreads.setMaxThreads(proxyThreads.getMaxThreads() - PARTITION_THREADS);
+            proxyEventsCollector.closePartition(connectorName);
+            throw e;
+        }
+        log.debug("Opened partition {}, port: {}", partition, connector.getLocalPort());
+        return connector.getLocalPort();
+    }
+
+    synchronized void closePartition(String partition) throws Exception {
+        String connectorName = SIMPLE_PROXY_PARTITION_CONNECTOR_PREFIX + partition;
+        if (jettyServer != null) {
+            for (Connector connector : jettyServer.getConnectors()) {
+                if (connectorName.equals(connector.getName())) {
+                    connector.stop();
+                    jettyServer.removeConnector(connector);
+                    proxyThreads.setMaxThreads(proxyThreads.getMaxThreads() - PARTITION_THREADS);
+                }
+            }
+        }
+        proxyEventsCollector.closePartition(connectorName);
+        log.debug("Closed partition {}", partition);
+    }
+
+    ProxyEventsCaptured eventsCaptured(String partition) {
+        return partitionCollector(partition).eventsCaptured();
+    }
+
+    ProxyEventsStats eventsStats(String partition) {
+        return partitionCollector(partition).stats();
+    }
+
+    void resetCapturedEvents(String partition) {
+        partitionCollector(partition).reset();
+    }
+
+    private ProxyEventsCollector partitionCollector(String partition) {
+        return proxyEventsCollector.findPartition(SIMPLE_PROXY_PARTITION_CONNECTOR_PREFIX + partition)
+                .orElseThrow(() -> new IllegalArgumentException("Partition not opened: " + partition));
+    }
+
     public void stop() throws Exception {
         if (jettyServer != null && jettyServer.isRunning()) {
             jettyServer.stop();
         } else {
             log.debug("Server not running, no need to stop");
         }
+        if (eventsSink != null) {
+            // send events still pending in batch
+            proxyEventsCollector.removeSink(eventsSink);
+            eventsSink.close();
+            eventsSink = null;
+        }
+        if (captureWriter != null) {
+            proxyEventsCollector.removeSink(captureWriter);
+            captureWriter.close();
+            captureWriter = null;
+        }
+        proxyEventsCollector.close();
     }
 
     public SimpleProxyRuntimeInfo runtimeInfo() {
         return new SimpleProxyRuntimeInfo(
                 httpPort().orElseThrow(() -> new IllegalStateException("Proxy server not started")),
-                httpsPort().orElse(null)
+                httpsPort().orElse(null),
+                metricsPort().orElse(null),
+                socksPort().orElse(null),
+                unixSocketPath().orElse(null),
+                metrics,
+                certificateAuthority
                 );
     }
 
@@ -129,6 +323,10 @@ class SimpleProxyServer {
         return proxyEventsCollector.eventsCaptured();
     }
 
+    public ProxyEventsStats eventsStats() {
+        return proxyEventsCollector.stats();
+    }
+
     public void resetCapturedEvents() {
         proxyEventsCollector.reset();
     }
@@ -147,6 +345,31 @@ class SimpleProxyServer {
         return Optional.empty();
     }
 
+    private Optional<Integer> metricsPort() {
+        if (jettyServer != null && jettyServer.isRunning()) {
+            return findProxyPortByConnectorName(SIMPLE_PROXY_METRICS_CONNECTOR_NAME);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Integer> socksPort() {
+        if (jettyServer != null && jettyServer.isRunning()) {
+            return findProxyPortByConnectorName(SIMPLE_PROXY_SOCKS_CONNECTOR_NAME);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Path> unixSocketPath() {
+        if (jettyServer == null || !jettyServer.isRunning()) {
+            return Optional.empty();
+        }
+        return Arrays.stream(jettyServer.getConnectors())
+                .filter(UnixDomainServerConnector.class::isInstance)
+                .map(UnixDomainServerConnector.class::cast)
+                .map(UnixDomainServerConnector::getUnixDomainPath)
+                .findAny();
+    }
+
     private int runningJettyHttpPort() {
         return findProxyPortByConnectorName(SIMPLE_PROXY_HTTP_CONNECTOR_NAME)
                 .orElseThrow(() -> new IllegalStateException("Could not find http proxy port"));
@@ -192,4 +415,12 @@ class SimpleProxyServer {
         return new InetSocketAddress(LOCALHOST, runtimeInfo().httpsPort());
     }
 
+    public Proxy buildSocksProxy() {
+        Integer socksPort = runtimeInfo().socksPort();
+        if (socksPort == null) {
+            throw new IllegalStateException("SOCKS proxy not enabled");
+        }
+        return new Proxy(Proxy.Type.SOCKS, new InetSocketAddress(LOCALHOST, socksPort));
+    }
+
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.SocketAddressResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolver used by proxy http client to find upstream server addresses.<br>
+ * Host names found in overrides map are redirected to the configured address (e.g., local stand-in server),
+ * all other names are resolved by the delegate resolver. Resolved addresses are cached for the configured TTL,
+ * concurrent lookups of the same host share a single resolution. Expired entries are swept at most once per TTL.
+ */
+class SimpleProxySocketAddressResolver implements SocketAddressResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxySocketAddressResolver.class);
+
+    private final SocketAddressResolver delegate;
+    private final Map<String, InetSocketAddress> hostOverrides;
+    private final long ttlNanos;
+    private final Map<ResolutionKey, CachedResolution> cache = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    SimpleProxySocketAddressResolver(SocketAddressResolver delegate, Map<String, InetSocketAddress> hostOverrides, Duration ttl) {
+        Objects.requireNonNull(delegate, "delegate cannot be null");
+        Objects.requireNonNull(hostOverrides, "hostOverrides cannot be null");
+        Objects.requireNonNull(ttl, "ttl cannot be null");
+        this.delegate = delegate;
+        this.hostOverrides = new ConcurrentHashMap<>();
+        hostOverrides.forEach((host, address) -> this.hostOverrides.put(normalize(host), address));
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise) {
+        ResolutionKey key = resolutionKey(host, port);
+        if (ttlNanos <= 0) {
+            delegate.resolve(key.host(), key.port(), promise);
+            return;
+        }
+        resolveCached(key).whenComplete((addresses, failure) -> {
+            if (failure != null) {
+                promise.failed(failure);
+            } else {
+                promise.succeeded(addresses);
+            }
+        });
+    }
+
+    private ResolutionKey resolutionKey(String host, int port) {
+        InetSocketAddress override = hostOverrides.get(normalize(host));
+        if (override == null) {
+            return new ResolutionKey(normalize(host), port);
+        }
+        int overridePort = override.getPort() == 0 ? port : override.getPort();
+        log.trace("Host {}:{} overridden with {}:{}", host, port, override.getHostString(), overridePort);
+        return new ResolutionKey(normalize(override.getHostString()), overridePort);
+    }
+
+    private CompletableFuture<List<InetSocketAddress>> resolveCached(ResolutionKey key) {
+        long now = System.nanoTime();
+        sweepExpired(now);
+        CachedResolution[] created = new CachedResolution[1];
+        CachedResolution cachedResolution = cache.compute(key, (k, existing) -> {
+            if (existing != null && !existing.expired(now, ttlNanos)) {
+                return existing;
+            }
+            created[0] = new CachedResolution(new CompletableFuture<>(), now);
+            return created[0];
+        });
+        if (cachedResolution == created[0]) {
+            startResolution(key, cachedResolution);
+        }
+        return cachedResolution.addresses();
+    }
+
+    private void sweepExpired(long now) {
+        long lastSweep = lastSweepNanos.get();
+        if (now - lastSweep <= ttlNanos || !lastSweepNanos.compareAndSet(lastSweep, now)) {
+            return;
+        }
+        // resolutions in progress are kept, they are removed on failure or expire later
+        cache.values().removeIf(cachedResolution -> cachedResolution.addresses().isDone() && cachedResolution.expired(now, ttlNanos));
+    }
+
+    /**
+     * Number of cached resolutions (including expired ones not swept yet)
+     */
+    int cachedResolutions() {
+        return cache.size();
+    }
+
+    private void startResolution(ResolutionKey key, CachedResolution cachedResolution) {
+        delegate.resolve(key.host(), key.port(), Promise.from(
+                cachedResolution.addresses()::complete,
+                failure -> {
+                    // do not cache failed resolutions, next request should try again
+                    cache.remove(key, cachedResolution);
+                    cachedResolution.addresses().completeExceptionally(failure);
+                }
+        ));
+    }
+
+    private static String normalize(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    private record ResolutionKey(String host, int port) {
+    }
+
+    private record CachedResolution(CompletableFuture<List<InetSocketAddress>> addresses, long createdNanos) {
+
+        boolean expired(long now, long ttlNanos) {
+            return now - createdNanos > ttlNanos;
+        }
+    }
+
+}
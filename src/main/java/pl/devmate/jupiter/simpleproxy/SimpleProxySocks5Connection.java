@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.HostPort;
+import org.eclipse.jetty.util.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * SOCKS5 (RFC 1928) handshake of client connection accepted by SOCKS proxy connector.
+ * Only CONNECT command without authentication is supported. When target server is connected,
+ * client endpoint is upgraded to {@link SimpleProxyRelayConnection} paired with target connection,
+ * relayed bytes are counted in {@link SimpleProxyTunnel}, like bytes of CONNECT tunnels.
+ */
+class SimpleProxySocks5Connection extends AbstractConnection implements Connection.UpgradeFrom {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleProxySocks5Connection.class);
+
+    private static final byte VERSION = 0x05;
+    private static final byte METHOD_NO_AUTHENTICATION = 0x00;
+    private static final byte METHOD_NOT_ACCEPTABLE = (byte) 0xFF;
+    private static final byte COMMAND_CONNECT = 0x01;
+    private static final byte ADDRESS_IPV4 = 0x01;
+    private static final byte ADDRESS_DOMAIN = 0x03;
+    private static final byte ADDRESS_IPV6 = 0x04;
+    private static final byte REPLY_SUCCEEDED = 0x00;
+    private static final byte REPLY_HOST_UNREACHABLE = 0x04;
+    private static final byte REPLY_COMMAND_NOT_SUPPORTED = 0x07;
+    private static final byte REPLY_ADDRESS_NOT_SUPPORTED = 0x08;
+    // greeting (up to 257 bytes) and request (up to 262 bytes) may be sent together
+    private static final int HANDSHAKE_BUFFER_SIZE = 1024;
+
+    private enum State {GREETING, REQUEST, CONNECTING}
+
+    private final ByteBufferPool bufferPool;
+    private final SimpleProxySocks5ConnectionFactory factory;
+    private final ByteBuffer buffer = BufferUtil.allocate(HANDSHAKE_BUFFER_SIZE);
+    private State state = State.GREETING;
+
+    SimpleProxySocks5Connection(EndPoint endPoint, Executor executor, ByteBufferPool bufferPool,
+                                SimpleProxySocks5ConnectionFactory factory) {
+        super(endPoint, executor);
+        this.bufferPool = bufferPool;
+        this.factory = factory;
+    }
+
+    @Override
+    public void onOpen() {
+        super.onOpen();
+        fillInterested();
+    }
+
+    @Override
+    public void onFillable() {
+        try {
+            int filled = getEndPoint().fill(buffer);
+            if (filled < 0) {
+                log.debug("Client closed SOCKS connection during handshake");
+                close();
+                return;
+            }
+            process();
+        } catch (IOException e) {
+            log.debug("Could not read SOCKS handshake", e);
+            close();
+        }
+    }
+
+    @Override
+    public ByteBuffer onUpgradeFrom() {
+        // bytes sent by client right after the request belong to target
+        return BufferUtil.hasContent(buffer) ? BufferUtil.copy(buffer) : null;
+    }
+
+    private void process() {
+        boolean complete = switch (state) {
+            case GREETING -> parseGreeting();
+            case REQUEST -> parseRequest();
+            case CONNECTING -> true;
+        };
+        if (!complete) {
+            if (BufferUtil.isFull(buffer)) {
+                log.debug("SOCKS handshake too large");
+                close();
+            } else {
+                fillInterested();
+            }
+        }
+    }
+
+    private boolean parseGreeting() {
+        if (buffer.remaining() < 2) {
+            return false;
+        }
+        int position = buffer.position();
+        if (buffer.get(position) != VERSION) {
+            log.debug("Unsupported SOCKS version: {}", buffer.get(position));
+            close();
+            return true;
+        }
+        int methodsCount = buffer.get(position + 1) & 0xFF;
+        if (buffer.remaining() < 2 + methodsCount) {
+            return false;
+        }
+        boolean noAuthentication = false;
+        for (int i = 0; i < methodsCount; i++) {
+            noAuthentication |= buffer.get(position + 2 + i) == METHOD_NO_AUTHENTICATION;
+        }
+        buffer.position(position + 2 + methodsCount);
+        if (!noAuthentication) {
+            log.debug("SOCKS client does not accept connection without authentication");
+            getEndPoint().write(Callback.from(this::close), ByteBuffer.wrap(new byte[]{VERSION, METHOD_NOT_ACCEPTABLE}));
+            return true;
+        }
+        state = State.REQUEST;
+        getEndPoint().write(Callback.from(this::process, this::fail), ByteBuffer.wrap(new byte[]{VERSION, METHOD_NO_AUTHENTICATION}));
+        return true;
+    }
+
+    private boolean parseRequest() {
+        if (buffer.remaining() < 5) {
+            return false;
+        }
+        int position = buffer.position();
+        byte command = buffer.get(position + 1);
+        byte addressType = buffer.get(position + 3);
+        int addressLength = switch (addressType) {
+            case ADDRESS_IPV4 -> 4;
+            case ADDRESS_IPV6 -> 16;
+            case ADDRESS_DOMAIN -> 1 + (buffer.get(position + 4) & 0xFF);
+            default -> -1;
+        };
+        if (addressLength < 0) {
+            reply(REPLY_ADDRESS_NOT_SUPPORTED);
+            return true;
+        }
+        if (buffer.remaining() < 4 + addressLength + 2) {
+            return false;
+        }
+        byte[] address = new byte[addressLength];
+        buffer.get(position + 4, address);
+        int port = ((buffer.get(position + 4 + addressLength) & 0xFF) << 8) | (buffer.get(position + 5 + addressLength) & 0xFF);
+        buffer.position(position + 4 + addressLength + 2);
+        if (command != COMMAND_CONNECT) {
+            log.debug("Unsupported SOCKS command: {}", command);
+            reply(REPLY_COMMAND_NOT_SUPPORTED);
+            return true;
+        }
+        String host;
+        try {
+            host = addressType == ADDRESS_DOMAIN
+                    ? new String(address, 1, address.length - 1, StandardCharsets.US_ASCII)
+                    : InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            reply(REPLY_ADDRESS_NOT_SUPPORTED);
+            return true;
+        }
+        state = State.CONNECTING;
+        connect(host, port);
+        return true;
+    }
+
+    private void connect(String host, int port) {
+        String target = HostPort.normalizeHost(host) + ":" + port;
+        log.trace("SOCKS CONNECT to {}", target);
+        factory.connect(host, port, targetEndPoint -> {
+            SimpleProxyTunnel tunnel = new SimpleProxyTunnel(target, factory.proxyEventsCollector()::registerTunnel);
+            SimpleProxyRelayConnection downstream = new SimpleProxyRelayConnection(
+                    getEndPoint(), getExecutor(), bufferPool,
+                    bytes -> tunnel.upstream(bytes, bytes.remaining()), tunnel::close);
+            SimpleProxyRelayConnection upstream = new SimpleProxyRelayConnection(
+                    targetEndPoint, getExecutor(), bufferPool,
+                    bytes -> tunnel.downstream(bytes.remaining()), tunnel::close);
+            SimpleProxyRelayConnection.pair(downstream, upstream);
+            upstream.onOpen(startRelay -> getEndPoint().write(Callback.from(
+                    () -> {
+                        getEndPoint().upgrade(downstream);
+                        startRelay.run();
+                    },
+                    failure -> {
+                        targetEndPoint.close(failure);
+                        fail(failure);
+                    }), successReply(targetEndPoint.getLocalSocketAddress())));
+            return upstream;
+        }, Promise.from(connection -> {}, failure -> {
+            log.debug("Could not connect SOCKS target {}", target, failure);
+            reply(REPLY_HOST_UNREACHABLE);
+        }));
+    }
+
+    private static ByteBuffer successReply(SocketAddress boundAddress) {
+        byte[] address = boundAddress instanceof InetSocketAddress inetAddress && inetAddress.getAddress() != null
+                ? inetAddress.getAddress().getAddress()
+                : new byte[4];
+        int port = boundAddress instanceof InetSocketAddress inetAddress ? inetAddress.getPort() : 0;
+        ByteBuffer reply = ByteBuffer.allocate(6 + address.length);
+        reply.put(VERSION).put(REPLY_SUCCEEDED).put((byte) 0x00)
+                .put(address.length == 4 ? ADDRESS_IPV4 : ADDRESS_IPV6)
+                .put(address)
+                .putShort((short) port);
+        return reply.flip();
+    }
+
+    /**
+     * Reply with failure and close connection
+     */
+    private void reply(byte reply) {
+        getEndPoint().write(Callback.from(this::close),
+                ByteBuffer.wrap(new byte[]{VERSION, reply, 0x00, ADDRESS_IPV4, 0, 0, 0, 0, 0, 0}));
+    }
+
+    private void fail(Throwable cause) {
+        log.debug("Could not write SOCKS reply", cause);
+        close();
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.io.ClientConnectionFactory;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.Transport;
+import org.eclipse.jetty.server.AbstractConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.SocketAddressResolver;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Factory of SOCKS5 connections accepted by SOCKS proxy connector.
+ * Target servers are resolved like upstream servers of http proxy (host overrides, DNS cache)
+ * and connected with non-blocking client connector, sharing proxy threads.
+ */
+class SimpleProxySocks5ConnectionFactory extends AbstractConnectionFactory {
+
+    static final String PROTOCOL = "socks5";
+
+    private final ProxyEventsCollector proxyEventsCollector;
+    private final SimpleProxyConfig simpleProxyConfig;
+    private final ClientConnector clientConnector = new ClientConnector();
+    private SocketAddressResolver socketAddressResolver;
+
+    SimpleProxySocks5ConnectionFactory(Executor executor, ProxyEventsCollector proxyEventsCollector, SimpleProxyConfig simpleProxyConfig) {
+        super(PROTOCOL);
+        this.proxyEventsCollector = proxyEventsCollector;
+        this.simpleProxyConfig = simpleProxyConfig;
+        clientConnector.setExecutor(executor);
+        // proxy threads are managed by proxy server
+        clientConnector.unmanage(executor);
+        clientConnector.setSelectors(1);
+        addBean(clientConnector);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        SocketAddressResolver delegate = simpleProxyConfig.socketAddressResolver();
+        if (delegate == null) {
+            delegate = new SocketAddressResolver.Async(clientConnector.getExecutor(), clientConnector.getScheduler(),
+                    clientConnector.getConnectTimeout().toMillis());
+        }
+        socketAddressResolver = new SimpleProxySocketAddressResolver(delegate, simpleProxyConfig.hostOverrides(), simpleProxyConfig.dnsCacheTtl());
+    }
+
+    @Override
+    public Connection newConnection(Connector connector, EndPoint endPoint) {
+        return configure(new SimpleProxySocks5Connection(endPoint, connector.getExecutor(), connector.getByteBufferPool(), this), connector, endPoint);
+    }
+
+    ProxyEventsCollector proxyEventsCollector() {
+        return proxyEventsCollector;
+    }
+
+    /**
+     * Resolve and connect target server, connection to target is created by the factory function
+     * when connected, promise is failed when target could not be resolved or connected
+     */
+    void connect(String host, int port, Function<EndPoint, Connection> connectionFactory, Promise<Connection> promise) {
+        socketAddressResolver.resolve(host, port, Promise.from(
+                addresses -> connect(addresses, connectionFactory, promise),
+                promise::failed));
+    }
+
+    private void connect(List<InetSocketAddress> addresses, Function<EndPoint, Connection> connectionFactory, Promise<Connection> promise) {
+        if (addresses.isEmpty()) {
+            promise.failed(new IllegalStateException("No addresses resolved"));
+            return;
+        }
+        Map<String, Object> context = new HashMap<>();
+        context.put(Transport.class.getName(), Transport.TCP_IP);
+        context.put(ClientConnector.CLIENT_CONNECTION_FACTORY_CONTEXT_KEY,
+                (ClientConnectionFactory) (endPoint, ctx) -> connectionFactory.apply(endPoint));
+        context.put(ClientConnector.CONNECTION_PROMISE_CONTEXT_KEY, promise);
+        clientConnector.connect(addresses.get(0), context);
+    }
+
+}
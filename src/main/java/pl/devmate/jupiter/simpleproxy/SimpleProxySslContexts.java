@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SSL contexts shared by all proxy servers in JVM, one per session cache settings.
+ * Context initialization is done once (not per test class), and TLS sessions cached in shared context
+ * are resumed by later connections to the same upstream servers (or from the same clients), also across proxy instances.<br>
+ * Session tickets (TLS 1.3 stateless resumption) are enabled by JDK by default and configured only with
+ * JVM-wide {@code jdk.tls.*} system properties.
+ */
+final class SimpleProxySslContexts {
+
+    private static final Map<SessionCache, SSLContext> SERVER_CONTEXTS = new ConcurrentHashMap<>();
+    private static final Map<SessionCache, SSLContext> TRUST_ALL_CLIENT_CONTEXTS = new ConcurrentHashMap<>();
+
+    private SimpleProxySslContexts() {
+    }
+
+    /**
+     * Shared server context, without certificates (like default {@link SslContextFactory.Server})
+     */
+    static SSLContext server(int sessionCacheSize, Duration sessionTimeout) {
+        return SERVER_CONTEXTS.computeIfAbsent(new SessionCache(sessionCacheSize, sessionTimeout), sessionCache -> {
+            SSLContext context = newContext(null);
+            sessionCache.configure(context.getServerSessionContext());
+            return context;
+        });
+    }
+
+    /**
+     * Shared client context trusting all certificates, used to connect to upstream servers
+     */
+    static SSLContext trustAllClient(int sessionCacheSize, Duration sessionTimeout) {
+        return TRUST_ALL_CLIENT_CONTEXTS.computeIfAbsent(new SessionCache(sessionCacheSize, sessionTimeout), sessionCache -> {
+            SSLContext context = newContext(SslContextFactory.TRUST_ALL_CERTS);
+            sessionCache.configure(context.getClientSessionContext());
+            return context;
+        });
+    }
+
+    private static SSLContext newContext(TrustManager[] trustManagers) {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagers, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialize SSL context", e);
+        }
+    }
+
+    private record SessionCache(int size, Duration timeout) {
+
+        private void configure(SSLSessionContext sessionContext) {
+            sessionContext.setSessionCacheSize(size);
+            sessionContext.setSessionTimeout((int) Math.min(Integer.MAX_VALUE, timeout.toSeconds()));
+        }
+    }
+
+}
@@ -73,5 +73,11 @@ public @interface SimpleProxyTest {
     boolean addProxyResponseHeader() default true;
     boolean storeRequestBody() default false;
     boolean storeResponseBody() default false;
+    boolean storeEvents() default true;
+    boolean metricsEndpoint() default false;
+    boolean tlsInterception() default false;
+    boolean webSocketFrameCapture() default false;
+    boolean streamingCapture() default false;
+    boolean socksProxy() default false;
 
 }
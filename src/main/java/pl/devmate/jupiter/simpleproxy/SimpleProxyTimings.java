@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.server.Request;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventTimings;
+
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventTimings.NOT_RECORDED;
+
+/**
+ * Timestamps of single proxied request, recorded by handlers (from different threads),
+ * stored as client-to-proxy request attribute.<br>
+ * Lifecycle phases are also emitted as {@link SimpleProxyJfrEvents}, when enabled in running flight recording.
+ */
+class SimpleProxyTimings {
+
+    static final String SIMPLE_PROXY_TIMINGS = "simple-proxy-timings";
+
+    private final long requestReceivedNanos;
+    private volatile long upstreamQueuedNanos = NOT_RECORDED;
+    private volatile long upstreamConnectedNanos = NOT_RECORDED;
+    private volatile boolean upstreamConnectionReused;
+    private volatile long requestSentNanos = NOT_RECORDED;
+    private volatile long responseFirstByteNanos = NOT_RECORDED;
+    private volatile long responseCompleteNanos = NOT_RECORDED;
+    private volatile long clientWriteCompleteNanos = NOT_RECORDED;
+    private final SimpleProxyJfrEvents.Request requestEvent;
+    private volatile SimpleProxyJfrEvents.UpstreamConnect upstreamConnectEvent;
+    private volatile SimpleProxyJfrEvents.FirstByte firstByteEvent;
+
+    private SimpleProxyTimings(long requestReceivedNanos, SimpleProxyJfrEvents.Request requestEvent) {
+        this.requestReceivedNanos = requestReceivedNanos;
+        this.requestEvent = requestEvent;
+    }
+
+    /**
+     * Find timings stored in request attribute, or start recording timings of the request
+     */
+    static SimpleProxyTimings of(Request clientToProxyRequest) {
+        if (clientToProxyRequest.getAttribute(SIMPLE_PROXY_TIMINGS) instanceof SimpleProxyTimings timings) {
+            return timings;
+        }
+        SimpleProxyTimings timings = new SimpleProxyTimings(clientToProxyRequest.getBeginNanoTime(), requestEvent(clientToProxyRequest));
+        clientToProxyRequest.setAttribute(SIMPLE_PROXY_TIMINGS, timings);
+        return timings;
+    }
+
+    private static SimpleProxyJfrEvents.Request requestEvent(Request clientToProxyRequest) {
+        SimpleProxyJfrEvents.RequestStart startEvent = SimpleProxyJfrEvents.requestStart();
+        if (startEvent != null) {
+            startEvent.method = clientToProxyRequest.getMethod();
+            startEvent.url = clientToProxyRequest.getHttpURI().asString();
+            startEvent.commit();
+        }
+        SimpleProxyJfrEvents.Request requestEvent = SimpleProxyJfrEvents.request();
+        if (requestEvent == null) {
+            return null;
+        }
+        requestEvent.method = clientToProxyRequest.getMethod();
+        requestEvent.url = clientToProxyRequest.getHttpURI().asString();
+        requestEvent.begin();
+        return requestEvent;
+    }
+
+    /**
+     * Request url for flight recorder events, {@code null} when request event is not recorded
+     */
+    String url() {
+        return requestEvent != null ? requestEvent.url : null;
+    }
+
+    void upstreamQueued() {
+        upstreamQueuedNanos = System.nanoTime();
+        SimpleProxyJfrEvents.UpstreamConnect event = SimpleProxyJfrEvents.upstreamConnect();
+        if (event != null) {
+            event.url = url();
+            event.begin();
+            upstreamConnectEvent = event;
+        }
+    }
+
+    void upstreamConnected(boolean connectionReused) {
+        upstreamConnectionReused = connectionReused;
+        upstreamConnectedNanos = System.nanoTime();
+        SimpleProxyJfrEvents.UpstreamConnect event = upstreamConnectEvent;
+        if (event != null) {
+            event.connectionReused = connectionReused;
+            event.commit();
+            upstreamConnectEvent = null;
+        }
+    }
+
+    void requestSent() {
+        requestSentNanos = System.nanoTime();
+        SimpleProxyJfrEvents.FirstByte event = SimpleProxyJfrEvents.firstByte();
+        if (event != null) {
+            event.url = url();
+            event.begin();
+            synchronized (this) {
+                if (responseFirstByteNanos == NOT_RECORDED) {
+                    firstByteEvent = event;
+                    return;
+                }
+            }
+            // server responded before request was completely sent
+            event.commit();
+        }
+    }
+
+    void responseFirstByte() {
+        SimpleProxyJfrEvents.FirstByte event;
+        synchronized (this) {
+            responseFirstByteNanos = System.nanoTime();
+            event = firstByteEvent;
+            firstByteEvent = null;
+        }
+        if (event != null) {
+            event.commit();
+        }
+    }
+
+    void responseComplete() {
+        responseCompleteNanos = System.nanoTime();
+    }
+
+    void clientWriteComplete(int status) {
+        clientWriteCompleteNanos = System.nanoTime();
+        if (requestEvent != null) {
+            requestEvent.status = status;
+            requestEvent.commit();
+        }
+    }
+
+    ProxyEventTimings toEventTimings() {
+        return new ProxyEventTimings(
+                requestReceivedNanos,
+                upstreamQueuedNanos,
+                upstreamConnectedNanos,
+                upstreamConnectionReused,
+                requestSentNanos,
+                responseFirstByteNanos,
+                responseCompleteNanos,
+                clientWriteCompleteNanos
+        );
+    }
+
+}
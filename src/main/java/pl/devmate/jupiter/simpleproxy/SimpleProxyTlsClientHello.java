@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Peeks server name (SNI) from TLS ClientHello record, using absolute reads (buffer position, limit and content are not changed).
+ */
+class SimpleProxyTlsClientHello {
+
+    private static final int RECORD_TYPE_HANDSHAKE = 0x16;
+    private static final int HANDSHAKE_TYPE_CLIENT_HELLO = 0x01;
+    private static final int EXTENSION_SERVER_NAME = 0x0000;
+    private static final int SERVER_NAME_TYPE_HOST_NAME = 0x00;
+
+    private SimpleProxyTlsClientHello() {}
+
+    /**
+     * Find server name in ClientHello record starting at buffer position
+     * @return host name, or {@code null} if bytes are not TLS ClientHello, or server name is not within available bytes
+     */
+    static String serverName(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int limit = buffer.limit();
+        try {
+            if (buffer.get(offset) != RECORD_TYPE_HANDSHAKE || buffer.get(offset + 5) != HANDSHAKE_TYPE_CLIENT_HELLO) {
+                return null;
+            }
+            // record header (5), handshake header (4), client version (2), random (32)
+            int index = offset + 5 + 4 + 2 + 32;
+            index += 1 + unsignedByte(buffer, index);       // session id
+            index += 2 + unsignedShort(buffer, index);      // cipher suites
+            index += 1 + unsignedByte(buffer, index);       // compression methods
+            int extensionsEnd = Math.min(index + 2 + unsignedShort(buffer, index), limit);
+            index += 2;
+            while (index + 4 <= extensionsEnd) {
+                int extensionType = unsignedShort(buffer, index);
+                int extensionLength = unsignedShort(buffer, index + 2);
+                index += 4;
+                if (extensionType == EXTENSION_SERVER_NAME) {
+                    return hostName(buffer, index, Math.min(index + extensionLength, limit));
+                }
+                index += extensionLength;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // ClientHello not complete in available bytes
+        }
+        return null;
+    }
+
+    private static String hostName(ByteBuffer buffer, int index, int end) {
+        // server name list length (2), then entries: type (1), length (2), name
+        index += 2;
+        while (index + 3 <= end) {
+            int nameType = unsignedByte(buffer, index);
+            int nameLength = unsignedShort(buffer, index + 1);
+            index += 3;
+            if (nameType == SERVER_NAME_TYPE_HOST_NAME && index + nameLength <= end) {
+                byte[] name = new byte[nameLength];
+                buffer.get(index, name);
+                return new String(name, StandardCharsets.US_ASCII);
+            }
+            index += nameLength;
+        }
+        return null;
+    }
+
+    private static int unsignedByte(ByteBuffer buffer, int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventTunnel;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventTimings.NOT_RECORDED;
+
+/**
+ * Traffic accounting of single CONNECT tunnel, updated by both tunnel connections (from different threads).
+ * Bytes are counted from read results, first client bytes are inspected in place for TLS server name.
+ * Tunnel is reported once, when the first of tunnel connections is closed.
+ */
+class SimpleProxyTunnel {
+
+    private final String target;
+    private final Instant opened = Instant.now();
+    private final long openedNanos = System.nanoTime();
+    private final AtomicLong bytesUp = new AtomicLong();
+    private final AtomicLong bytesDown = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Consumer<ProxyEventTunnel> onClose;
+    private final SimpleProxyJfrEvents.Tunnel jfrEvent;
+    private volatile long firstByteNanos = NOT_RECORDED;
+    private volatile boolean clientHelloInspected;
+    private volatile String serverName;
+
+    SimpleProxyTunnel(String target, Consumer<ProxyEventTunnel> onClose) {
+        this.target = target;
+        this.onClose = onClose;
+        SimpleProxyJfrEvents.Tunnel event = SimpleProxyJfrEvents.tunnel();
+        if (event != null) {
+            event.destination = target;
+            event.begin();
+        }
+        this.jfrEvent = event;
+    }
+
+    /**
+     * Bytes received from client, the last {@code count} bytes before buffer limit
+     */
+    void upstream(ByteBuffer buffer, int count) {
+        if (!clientHelloInspected) {
+            clientHelloInspected = true;
+            serverName = SimpleProxyTlsClientHello.serverName(buffer.slice(buffer.limit() - count, count));
+        }
+        bytesUp.addAndGet(count);
+    }
+
+    /**
+     * Bytes received from target
+     */
+    void downstream(int count) {
+        if (firstByteNanos == NOT_RECORDED) {
+            firstByteNanos = System.nanoTime();
+        }
+        bytesDown.addAndGet(count);
+    }
+
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        long closedNanos = System.nanoTime();
+        long firstByte = firstByteNanos;
+        onClose.accept(new ProxyEventTunnel(
+                opened,
+                target,
+                serverName,
+                bytesUp.get(),
+                bytesDown.get(),
+                Duration.ofNanos(closedNanos - openedNanos),
+                firstByte == NOT_RECORDED ? null : Duration.ofNanos(firstByte - openedNanos)
+        ));
+        if (jfrEvent != null) {
+            jfrEvent.serverName = serverName;
+            jfrEvent.bytesFromClient = bytesUp.get();
+            jfrEvent.bytesFromServer = bytesDown.get();
+            jfrEvent.commit();
+        }
+    }
+
+}
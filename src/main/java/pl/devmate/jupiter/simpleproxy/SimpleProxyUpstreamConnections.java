@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.client.Connection;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.client.transport.internal.HttpConnectionOverHTTP2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks connections to upstream servers used by proxy http client, to tell new connections from reused ones.
+ * Registered as connection listener of http client, every open connection has its own used flag,
+ * forgotten when connection is closed.
+ */
+class SimpleProxyUpstreamConnections implements org.eclipse.jetty.io.Connection.Listener {
+
+    private final Map<org.eclipse.jetty.io.Connection, AtomicBoolean> usedFlags = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder reusedConnectionRequests = new LongAdder();
+
+    @Override
+    public void onOpened(org.eclipse.jetty.io.Connection connection) {
+        usedFlags.put(connection, new AtomicBoolean());
+    }
+
+    @Override
+    public void onClosed(org.eclipse.jetty.io.Connection connection) {
+        usedFlags.remove(connection);
+    }
+
+    /**
+     * Mark connection as used by request
+     * @return true if connection was already used by previous request
+     */
+    boolean markUsed(Connection connection) {
+        org.eclipse.jetty.io.Connection ioConnection = ioConnection(connection);
+        if (ioConnection == null) {
+            return false;
+        }
+        AtomicBoolean used = usedFlags.get(ioConnection);
+        boolean reused = used != null && used.getAndSet(true);
+        requests.increment();
+        if (reused) {
+            reusedConnectionRequests.increment();
+        }
+        return reused;
+    }
+
+    private static org.eclipse.jetty.io.Connection ioConnection(Connection connection) {
+        if (connection instanceof org.eclipse.jetty.io.Connection ioConnection) {
+            // http/1.1
+            return ioConnection;
+        }
+        if (connection instanceof HttpConnectionOverHTTP2 http2Connection
+                && http2Connection.getSession() instanceof HTTP2Session session) {
+            // streams of http/2 connection share its session connection
+            return session.getEndPoint().getConnection();
+        }
+        return null;
+    }
+
+    /**
+     * Ratio of requests sent over reused connections to all requests sent to upstream servers
+     */
+    double reuseRatio() {
+        long requestsCount = requests.sum();
+        return requestsCount == 0 ? 0 : (double) reusedConnectionRequests.sum() / requestsCount;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import org.eclipse.jetty.http.HttpVersion;
+
+/**
+ * Protocol used by proxy to send requests to upstream server.
+ */
+public enum SimpleProxyUpstreamProtocol {
+
+    /**
+     * HTTP/1.1 for cleartext destinations, negotiated with ALPN (HTTP/2 preferred) for TLS destinations
+     */
+    AUTO(null),
+
+    /**
+     * Always HTTP/1.1, one request per connection at a time
+     */
+    HTTP_1_1(HttpVersion.HTTP_1_1),
+
+    /**
+     * Always HTTP/2, with prior knowledge (h2c) for cleartext destinations, requests are multiplexed over connections
+     */
+    HTTP_2(HttpVersion.HTTP_2);
+
+    private final HttpVersion version;
+
+    SimpleProxyUpstreamProtocol(HttpVersion version) {
+        this.version = version;
+    }
+
+    /**
+     * Explicit version of requests sent to upstream server, {@code null} when version is chosen by http client
+     */
+    HttpVersion version() {
+        return version;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocket;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocketFrame;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Incremental parser of WebSocket frames (RFC 6455) relayed in one direction, fed with bytes as they are read.
+ * Relayed bytes are inspected in place, frames are appended to log when their payload is complete.
+ * Not thread safe, each direction is read by single tunnel connection at a time.
+ */
+class SimpleProxyWebSocketFrameParser {
+
+    private static final int MAX_HEADER_LENGTH = 14;
+
+    private final ProxyEventWebSocket log;
+    private final ProxyEventWebSocketFrame.Direction direction;
+    private final int payloadLimit;
+    private final byte[] header = new byte[MAX_HEADER_LENGTH];
+    private int headerLength;
+    private Instant frameTimestamp;
+    private long payloadLength;
+    private long payloadRead;
+    private byte[] payload;
+
+    SimpleProxyWebSocketFrameParser(ProxyEventWebSocket log, ProxyEventWebSocketFrame.Direction direction, int payloadLimit) {
+        this.log = log;
+        this.direction = direction;
+        this.payloadLimit = payloadLimit;
+    }
+
+    /**
+     * Parse bytes between buffer position and limit, buffer position is not changed
+     */
+    void parse(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (position < limit) {
+            if (payload == null) {
+                position = parseHeader(buffer, position, limit);
+            } else {
+                position = parsePayload(buffer, position, limit);
+            }
+        }
+    }
+
+    private int parseHeader(ByteBuffer buffer, int position, int limit) {
+        if (headerLength == 0) {
+            frameTimestamp = Instant.now();
+        }
+        while (position < limit) {
+            header[headerLength++] = buffer.get(position++);
+            int required = requiredHeaderLength();
+            if (headerLength == required) {
+                payloadLength = declaredPayloadLength();
+                payloadRead = 0;
+                payload = new byte[(int) Math.min(payloadLength, payloadLimit)];
+                if (payloadLength == 0) {
+                    completeFrame();
+                }
+                return position;
+            }
+        }
+        return position;
+    }
+
+    private int parsePayload(ByteBuffer buffer, int position, int limit) {
+        long remaining = payloadLength - payloadRead;
+        int count = (int) Math.min(remaining, limit - position);
+        boolean masked = (header[1] & 0x80) != 0;
+        int maskOffset = requiredHeaderLength() - 4;
+        for (int i = 0; i < count && payloadRead + i < payload.length; i++) {
+            int index = (int) (payloadRead + i);
+            byte value = buffer.get(position + i);
+            payload[index] = masked ? (byte) (value ^ header[maskOffset + (index & 3)]) : value;
+        }
+        payloadRead += count;
+        if (payloadRead == payloadLength) {
+            completeFrame();
+        }
+        return position + count;
+    }
+
+    private int requiredHeaderLength() {
+        if (headerLength < 2) {
+            return 2;
+        }
+        int length7 = header[1] & 0x7F;
+        int extendedLength = length7 == 126 ? 2 : length7 == 127 ? 8 : 0;
+        int mask = (header[1] & 0x80) != 0 ? 4 : 0;
+        return 2 + extendedLength + mask;
+    }
+
+    private long declaredPayloadLength() {
+        int length7 = header[1] & 0x7F;
+        if (length7 < 126) {
+            return length7;
+        }
+        int extendedLength = length7 == 126 ? 2 : 8;
+        long length = 0;
+        for (int i = 0; i < extendedLength; i++) {
+            length = (length << 8) | (header[2 + i] & 0xFF);
+        }
+        return length & Long.MAX_VALUE;
+    }
+
+    private void completeFrame() {
+        log.append(new ProxyEventWebSocketFrame(
+                frameTimestamp,
+                direction,
+                header[0] & 0x0F,
+                (header[0] & 0x80) != 0,
+                payloadLength,
+                payload));
+        headerLength = 0;
+        payload = null;
+    }
+
+}
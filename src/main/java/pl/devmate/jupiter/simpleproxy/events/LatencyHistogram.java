@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of log-bucketed latency histogram.<br>
+ * Every power of two range is split into {@value #SUB_BUCKETS} linear buckets,
+ * so recorded values are reported with relative error below {@code 1/}{@value #SUB_BUCKETS}.
+ * Histograms are mergeable, e.g., to get statistics of all endpoints.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    public static final LatencyHistogram EMPTY = new LatencyHistogram(new long[BUCKETS], 0, 0, 0);
+
+    private final long[] buckets;
+    private final long count;
+    private final long sumNanos;
+    private final long maxNanos;
+
+    LatencyHistogram(long[] buckets, long count, long sumNanos, long maxNanos) {
+        this.buckets = buckets;
+        this.count = count;
+        this.sumNanos = sumNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + mantissa) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long bucketWidth(int index) {
+        if (index < SUB_BUCKETS) {
+            return 1;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return 1L << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Sum of all recorded latencies (exact, not bucketed)
+     */
+    public Duration sum() {
+        return Duration.ofNanos(sumNanos);
+    }
+
+    public Duration mean() {
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(sumNanos / count);
+    }
+
+    public Duration max() {
+        return Duration.ofNanos(maxNanos);
+    }
+
+    public Duration p50() {
+        return percentile(50);
+    }
+
+    public Duration p90() {
+        return percentile(90);
+    }
+
+    public Duration p99() {
+        return percentile(99);
+    }
+
+    /**
+     * Latency below which the given percent of recorded values fall
+     * @param percentile percentile in range {@code 0-100}
+     * @return latency, or {@link Duration#ZERO} if nothing was recorded
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in range 0-100");
+        }
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                long bucketMiddle = bucketLowerBound(i) + (bucketWidth(i) - 1) / 2;
+                return Duration.ofNanos(Math.min(bucketMiddle, maxNanos));
+            }
+        }
+        return max();
+    }
+
+    public LatencyHistogram merge(LatencyHistogram other) {
+        long[] merged = Arrays.copyOf(buckets, BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            merged[i] += other.buckets[i];
+        }
+        return new LatencyHistogram(merged, count + other.count, sumNanos + other.sumNanos, Math.max(maxNanos, other.maxNanos));
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=%d, p50=%s, p90=%s, p99=%s, max=%s]".formatted(count, p50(), p90(), p99(), max());
+    }
+
+}
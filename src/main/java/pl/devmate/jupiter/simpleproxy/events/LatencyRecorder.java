@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent, constant memory recorder of latencies, with {@link LatencyHistogram} snapshots
+ */
+public final class LatencyRecorder {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(Duration latency) {
+        record(latency.toNanos());
+    }
+
+    public void record(long latencyNanos) {
+        buckets.incrementAndGet(LatencyHistogram.bucketIndex(latencyNanos));
+        sumNanos.add(latencyNanos);
+        maxNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public LatencyHistogram snapshot() {
+        long[] bucketsSnapshot = new long[LatencyHistogram.BUCKETS];
+        long count = 0;
+        for (int i = 0; i < bucketsSnapshot.length; i++) {
+            bucketsSnapshot[i] = buckets.get(i);
+            count += bucketsSnapshot[i];
+        }
+        return new LatencyHistogram(bucketsSnapshot, count, sumNanos.sum(), maxNanos.get());
+    }
+
+}
@@ -15,8 +15,41 @@
  */
 package pl.devmate.jupiter.simpleproxy.events;
 
+/**
+ * Request proxied to upstream server with its response
+ * @param clientToProxyRequest request received from client
+ * @param serverToProxyResponse response received from upstream server (or written by proxy)
+ * @param timings timestamps of request phases
+ * @param webSocket frames relayed after WebSocket upgrade, {@code null} when request was not upgraded
+ * @param responseStream chunks of streamed response body, {@code null} when response was not captured as stream
+ */
 public record ProxyEvent (
         ProxyEventRequest clientToProxyRequest,
-        ProxyEventResponse serverToProxyResponse
+        ProxyEventResponse serverToProxyResponse,
+        ProxyEventTimings timings,
+        ProxyEventWebSocket webSocket,
+        ProxyEventStream responseStream
 ) {
+
+    public ProxyEvent(ProxyEventRequest clientToProxyRequest, ProxyEventResponse serverToProxyResponse, ProxyEventTimings timings,
+                      ProxyEventWebSocket webSocket) {
+        this(clientToProxyRequest, serverToProxyResponse, timings, webSocket, null);
+    }
+
+    public ProxyEvent(ProxyEventRequest clientToProxyRequest, ProxyEventResponse serverToProxyResponse, ProxyEventTimings timings) {
+        this(clientToProxyRequest, serverToProxyResponse, timings, null, null);
+    }
+
+    public ProxyEvent(ProxyEventRequest clientToProxyRequest, ProxyEventResponse serverToProxyResponse) {
+        this(clientToProxyRequest, serverToProxyResponse, ProxyEventTimings.EMPTY);
+    }
+
+    /**
+     * Whether event was published while streamed response is still in progress (response headers only),
+     * such event is replaced in collector when response is complete
+     */
+    public boolean inProgress() {
+        return responseStream != null && responseStream.inProgress();
+    }
+
 }
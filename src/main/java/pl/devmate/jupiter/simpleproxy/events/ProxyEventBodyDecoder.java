@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decoding of captured bodies according to {@code Content-Encoding} header. Decoded body is cached softly
+ * (reclaimed under memory pressure) by identity of captured bytes, so the same body is decoded once.
+ */
+final class ProxyEventBodyDecoder {
+
+    // byte[] has identity equals/hashCode, entries are removed with captured bytes
+    private static final Map<byte[], SoftReference<Decoded>> DECODED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ProxyEventBodyDecoder() {
+    }
+
+    static byte[] decode(byte[] body, ProxyEventHttpHeaders headers) {
+        if (body == null || body.length == 0 || headers == null) {
+            return body;
+        }
+        List<String> encodings = contentEncodings(headers);
+        if (encodings.isEmpty()) {
+            return body;
+        }
+        SoftReference<Decoded> cached = DECODED.get(body);
+        Decoded decoded = cached == null ? null : cached.get();
+        if (decoded == null || !decoded.encodings().equals(encodings)) {
+            decoded = new Decoded(encodings, decode(body, encodings));
+            DECODED.put(body, new SoftReference<>(decoded));
+        }
+        return decoded.body();
+    }
+
+    private static List<String> contentEncodings(ProxyEventHttpHeaders headers) {
+        List<String> encodings = new ArrayList<>();
+        for (ProxyEventHttpHeader header : headers.headers()) {
+            if (!header.headerName().equalsIgnoreCase("Content-Encoding") || header.headerValues() == null) {
+                continue;
+            }
+            for (String value : header.headerValues()) {
+                for (String encoding : value.split(",")) {
+                    String normalized = encoding.trim().toLowerCase(Locale.ROOT);
+                    if (!normalized.isEmpty() && !normalized.equals("identity")) {
+                        encodings.add(normalized);
+                    }
+                }
+            }
+        }
+        return encodings;
+    }
+
+    private static byte[] decode(byte[] body, List<String> encodings) {
+        byte[] decoded = body;
+        // encodings are listed in order they were applied
+        for (int i = encodings.size() - 1; i >= 0; i--) {
+            decoded = decode(decoded, encodings.get(i));
+        }
+        return decoded;
+    }
+
+    private static byte[] decode(byte[] body, String encoding) {
+        try {
+            return switch (encoding) {
+                case "gzip", "x-gzip" -> readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+                case "deflate" -> inflate(body);
+                default -> throw new IllegalStateException("Unsupported content encoding: " + encoding);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode body with content encoding: " + encoding, e);
+        }
+    }
+
+    private static byte[] inflate(byte[] body) throws IOException {
+        try {
+            return readAll(new InflaterInputStream(new ByteArrayInputStream(body)));
+        } catch (ZipException e) {
+            // some servers send raw deflate stream, without zlib wrapper
+            Inflater inflater = new Inflater(true);
+            try {
+                return readAll(new InflaterInputStream(new ByteArrayInputStream(body), inflater));
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private record Decoded(List<String> encodings, byte[] body) {
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Stored form of captured bodies - compressed when large enough, and (when deduplication is enabled)
+ * content-addressed: identical bodies share single stored copy, counted by references of stored events.
+ * Stored copy is dropped when the last event referencing it is released.<br>
+ * Bodies are stored and released within generation, started by {@link #clear()}, so bodies of events
+ * removed by clear are not released again.
+ */
+final class ProxyEventBodyStore {
+
+    private final int compressionThreshold;
+    private final boolean deduplicate;
+    private final Map<ContentKey, Entry> entries = new HashMap<>();
+    private final Map<ProxyEventStoredBody, Entry> entriesByStoredBody = new IdentityHashMap<>();
+    private long storedBytes = 0;
+    private long generation = 0;
+
+    ProxyEventBodyStore(int compressionThreshold, boolean deduplicate) {
+        this.compressionThreshold = compressionThreshold;
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Whether body has to be passed to store (is deduplicated or large enough to be compressed)
+     */
+    boolean accepts(byte[] body) {
+        if (body == null || body.length == 0) {
+            return false;
+        }
+        return deduplicate || shouldCompress(body);
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stored form of captured body, referenced by stored event until it is {@link #release(ProxyEventStoredBody, long) released},
+     * {@code null} when body is not {@link #accepts(byte[]) accepted} or store was cleared since the generation
+     */
+    ProxyEventStoredBody store(byte[] body, long generation) {
+        if (!accepts(body)) {
+            return null;
+        }
+        if (!deduplicate) {
+            ProxyEventStoredBody stored = ProxyEventStoredBody.compressed(body);
+            synchronized (this) {
+                if (generation != this.generation) {
+                    return null;
+                }
+                storedBytes += stored.storedLength();
+            }
+            return stored;
+        }
+        ContentKey key = ContentKey.of(body);
+        synchronized (this) {
+            if (generation != this.generation) {
+                return null;
+            }
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.references++;
+                return entry.stored;
+            }
+        }
+        // compressed outside of lock, identical body stored concurrently wins
+        ProxyEventStoredBody stored = shouldCompress(body) ? ProxyEventStoredBody.compressed(body) : ProxyEventStoredBody.of(body);
+        synchronized (this) {
+            if (generation != this.generation) {
+                return null;
+            }
+            Entry entry = entries.computeIfAbsent(key, k -> {
+                Entry created = new Entry(k, stored);
+                entriesByStoredBody.put(stored, created);
+                storedBytes += stored.storedLength();
+                return created;
+            });
+            entry.references++;
+            return entry.stored;
+        }
+    }
+
+    /**
+     * Release stored body referenced by removed event, ignored when store was cleared since the generation
+     */
+    synchronized void release(ProxyEventStoredBody stored, long generation) {
+        if (stored == null || generation != this.generation) {
+            return;
+        }
+        if (!deduplicate) {
+            storedBytes -= stored.storedLength();
+            return;
+        }
+        Entry entry = entriesByStoredBody.get(stored);
+        if (entry != null && --entry.references == 0) {
+            entriesByStoredBody.remove(stored);
+            entries.remove(entry.key);
+            storedBytes -= stored.storedLength();
+        }
+    }
+
+    synchronized void clear() {
+        generation++;
+        entries.clear();
+        entriesByStoredBody.clear();
+        storedBytes = 0;
+    }
+
+    /**
+     * Bytes of stored bodies, each shared body counted once
+     */
+    synchronized long storedBytes() {
+        return storedBytes;
+    }
+
+    private boolean shouldCompress(byte[] body) {
+        return compressionThreshold != ProxyEventsCollectorConfig.BODY_COMPRESSION_DISABLED && body.length >= compressionThreshold;
+    }
+
+    private static final class Entry {
+
+        private final ContentKey key;
+        private final ProxyEventStoredBody stored;
+        private int references = 0;
+
+        private Entry(ContentKey key, ProxyEventStoredBody stored) {
+            this.key = key;
+            this.stored = stored;
+        }
+    }
+
+    /**
+     * 128 bits of SHA-256 digest with body length, collision of different bodies is not practically possible
+     */
+    private record ContentKey(long high, long low, int length) {
+
+        private static ContentKey of(byte[] body) {
+            ByteBuffer digest = ByteBuffer.wrap(sha256().digest(body));
+            return new ContentKey(digest.getLong(), digest.getLong(), body.length);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+}
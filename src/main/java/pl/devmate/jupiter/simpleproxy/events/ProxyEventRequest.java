@@ -23,7 +23,30 @@ public record ProxyEventRequest (
         URI uri,
         String method,
         ProxyEventHttpHeaders headers,
-        byte[] requestBytes
+        byte[] requestBytes,
+        ProxyEventStoredBody storedRequestBody
 ) {
 
+    public ProxyEventRequest(Instant instant, URI uri, String method, ProxyEventHttpHeaders headers, byte[] requestBytes) {
+        this(instant, uri, method, headers, requestBytes, null);
+    }
+
+    /**
+     * Captured request body, decompressed on access when it is kept by events store compressed.
+     * With deduplication the same array is shared by events with identical body, it must not be modified.
+     */
+    @Override
+    public byte[] requestBytes() {
+        return storedRequestBody != null ? storedRequestBody.body() : requestBytes;
+    }
+
+    ProxyEventRequest withStoredRequestBody(ProxyEventStoredBody storedRequestBody) {
+        if (storedRequestBody == null) {
+            return this;
+        }
+        // compressed body is held by stored body only, read through requestBytes()
+        byte[] bytes = storedRequestBody.compressed() ? null : storedRequestBody.body();
+        return new ProxyEventRequest(instant, uri, method, headers, bytes, storedRequestBody);
+    }
+
 }
@@ -17,5 +17,44 @@ package pl.devmate.jupiter.simpleproxy.events;
 
 import java.time.Instant;
 
-public record ProxyEventResponse (Instant instant, int httpStatusCode, ProxyEventHttpHeaders headers, byte[] responseBytes) {
+public record ProxyEventResponse (
+        Instant instant,
+        int httpStatusCode,
+        ProxyEventHttpHeaders headers,
+        byte[] responseBytes,
+        ProxyEventStoredBody storedResponseBody
+) {
+
+    public ProxyEventResponse(Instant instant, int httpStatusCode, ProxyEventHttpHeaders headers, byte[] responseBytes) {
+        this(instant, httpStatusCode, headers, responseBytes, null);
+    }
+
+    /**
+     * Captured response body, decompressed on access when it is kept by events store compressed.
+     * With deduplication the same array is shared by events with identical body, it must not be modified.
+     */
+    @Override
+    public byte[] responseBytes() {
+        return storedResponseBody != null ? storedResponseBody.body() : responseBytes;
+    }
+
+    /**
+     * Response body decoded according to {@code Content-Encoding} header ({@code gzip} or {@code deflate}),
+     * {@link #responseBytes()} are returned when body is not encoded. Body is decoded on the first access,
+     * decoded body is cached until reclaimed under memory pressure.
+     * @throws IllegalStateException when body is encoded with unsupported encoding (e.g., {@code br})
+     */
+    public byte[] decodedBody() {
+        return ProxyEventBodyDecoder.decode(responseBytes(), headers);
+    }
+
+    ProxyEventResponse withStoredResponseBody(ProxyEventStoredBody storedResponseBody) {
+        if (storedResponseBody == null) {
+            return this;
+        }
+        // compressed body is held by stored body only, read through responseBytes()
+        byte[] bytes = storedResponseBody.compressed() ? null : storedResponseBody.body();
+        return new ProxyEventResponse(instant, httpStatusCode, headers, bytes, storedResponseBody);
+    }
+
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Captured body kept by events store - compressed when large enough, shared by events with identical body
+ * when deduplication is enabled. Decompressed body is cached softly (reclaimed under memory pressure).
+ */
+public final class ProxyEventStoredBody {
+
+    private final byte[] bytes;
+    private final int length;
+    private final boolean compressed;
+    private volatile SoftReference<byte[]> decompressed = null;
+
+    private ProxyEventStoredBody(byte[] bytes, int length, boolean compressed) {
+        this.bytes = bytes;
+        this.length = length;
+        this.compressed = compressed;
+    }
+
+    static ProxyEventStoredBody of(byte[] body) {
+        return new ProxyEventStoredBody(body, body.length, false);
+    }
+
+    /**
+     * Compressed body, or body as captured when compression does not make it smaller
+     */
+    static ProxyEventStoredBody compressed(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            // compressed body is stored only if it is smaller
+            byte[] buffer = new byte[body.length];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < buffer.length) {
+                compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+            }
+            if (!deflater.finished()) {
+                return of(body);
+            }
+            return new ProxyEventStoredBody(Arrays.copyOf(buffer, compressedLength), body.length, true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Captured body, decompressed on access when it is stored compressed. Body may be shared by many events,
+     * it must not be modified.
+     */
+    public byte[] body() {
+        if (!compressed) {
+            return bytes;
+        }
+        SoftReference<byte[]> cached = decompressed;
+        byte[] body = cached == null ? null : cached.get();
+        if (body == null) {
+            body = inflate();
+            decompressed = new SoftReference<>(body);
+        }
+        return body;
+    }
+
+    /**
+     * Length of captured body
+     */
+    public int length() {
+        return length;
+    }
+
+    public boolean compressed() {
+        return compressed;
+    }
+
+    /**
+     * Bytes retained by stored body, compressed length when it is stored compressed
+     */
+    public int storedLength() {
+        return bytes.length;
+    }
+
+    private byte[] inflate() {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes);
+            byte[] body = new byte[length];
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int count = inflater.inflate(body, inflated, length - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != length) {
+                throw new IllegalStateException("Compressed body is truncated, inflated " + inflated + " of " + length + " bytes");
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed body is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
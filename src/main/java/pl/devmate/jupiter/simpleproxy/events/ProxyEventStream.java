@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Streamed response body (e.g., Server-Sent Events, chunked or long-poll response), captured chunk by chunk
+ * while the response is in progress. Only the latest chunks are retained, up to window size in bytes,
+ * older chunks are evicted but still counted. Of chunk larger than the window, only its tail is retained.
+ */
+public final class ProxyEventStream {
+
+    private final int windowBytes;
+    private final Deque<ProxyEventStreamChunk> chunks = new ArrayDeque<>();
+    private long retainedBytes;
+    private long totalBytes;
+    private long totalChunks;
+    private volatile Instant completed;
+
+    public ProxyEventStream(int windowBytes) {
+        if (windowBytes < 0) {
+            throw new IllegalArgumentException("windowBytes cannot be negative");
+        }
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Restore stream captured elsewhere (e.g., decoded from another JVM)
+     */
+    ProxyEventStream(int windowBytes, List<ProxyEventStreamChunk> chunks, long totalBytes, long totalChunks, Instant completed) {
+        this(windowBytes);
+        chunks.forEach(chunk -> {
+            this.chunks.addLast(chunk);
+            this.retainedBytes += chunk.bytes().length;
+        });
+        this.totalBytes = totalBytes;
+        this.totalChunks = totalChunks;
+        this.completed = completed;
+    }
+
+    int windowBytes() {
+        return windowBytes;
+    }
+
+    public void append(byte[] bytes) {
+        byte[] retained = bytes.length > windowBytes
+                ? Arrays.copyOfRange(bytes, bytes.length - windowBytes, bytes.length)
+                : bytes;
+        synchronized (chunks) {
+            ProxyEventStreamChunk chunk = new ProxyEventStreamChunk(Instant.now(), totalBytes + bytes.length - retained.length, retained);
+            totalBytes += bytes.length;
+            totalChunks++;
+            if (retained.length == 0) {
+                return;
+            }
+            chunks.addLast(chunk);
+            retainedBytes += retained.length;
+            while (retainedBytes > windowBytes) {
+                retainedBytes -= chunks.removeFirst().bytes().length;
+            }
+        }
+    }
+
+    public void complete() {
+        if (completed == null) {
+            completed = Instant.now();
+        }
+    }
+
+    /**
+     * When response was complete (or failed), {@code null} while response is in progress
+     */
+    public Instant completed() {
+        return completed;
+    }
+
+    public boolean inProgress() {
+        return completed == null;
+    }
+
+    /**
+     * Snapshot of chunks retained in window, oldest first
+     */
+    public List<ProxyEventStreamChunk> chunks() {
+        synchronized (chunks) {
+            return List.copyOf(chunks);
+        }
+    }
+
+    /**
+     * Content of chunks retained in window
+     */
+    public byte[] retainedContent() {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        chunks().forEach(chunk -> content.writeBytes(chunk.bytes()));
+        return content.toByteArray();
+    }
+
+    public long totalBytes() {
+        synchronized (chunks) {
+            return totalBytes;
+        }
+    }
+
+    public long totalChunks() {
+        synchronized (chunks) {
+            return totalChunks;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Chunk of streamed response body, as received from upstream server
+ * @param timestamp when chunk arrived at proxy
+ * @param offset position of the first chunk byte in response body
+ * @param bytes chunk content
+ */
+public record ProxyEventStreamChunk(
+        Instant timestamp,
+        long offset,
+        byte[] bytes
+) {
+
+    /**
+     * Chunk content decoded as UTF-8 text
+     */
+    public String text() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Duration;
+
+/**
+ * Monotonic ({@link System#nanoTime()}) timestamps of proxy event phases.
+ * Phases not reached (e.g., upstream response for rejected request) are {@link #NOT_RECORDED}.
+ * @param requestReceivedNanos client request started arriving at proxy
+ * @param upstreamQueuedNanos request to upstream server queued, waiting for connection
+ * @param upstreamConnectedNanos connection to upstream server assigned to request
+ * @param upstreamConnectionReused whether connection to upstream server was reused (opened by previous request)
+ * @param requestSentNanos request to upstream server completely sent
+ * @param responseFirstByteNanos upstream server response started arriving at proxy
+ * @param responseCompleteNanos upstream server response completely received
+ * @param clientWriteCompleteNanos response to client completely written
+ */
+public record ProxyEventTimings(
+        long requestReceivedNanos,
+        long upstreamQueuedNanos,
+        long upstreamConnectedNanos,
+        boolean upstreamConnectionReused,
+        long requestSentNanos,
+        long responseFirstByteNanos,
+        long responseCompleteNanos,
+        long clientWriteCompleteNanos
+) {
+
+    public static final long NOT_RECORDED = Long.MIN_VALUE;
+
+    public static final ProxyEventTimings EMPTY = new ProxyEventTimings(
+            NOT_RECORDED, NOT_RECORDED, NOT_RECORDED, false, NOT_RECORDED, NOT_RECORDED, NOT_RECORDED, NOT_RECORDED);
+
+    /**
+     * Time spent waiting for connection to upstream server (connecting, when connection was not reused)
+     */
+    public Duration upstreamConnect() {
+        return between(upstreamQueuedNanos, upstreamConnectedNanos);
+    }
+
+    /**
+     * Time from connection assigned to request completely sent to upstream server
+     */
+    public Duration requestSend() {
+        return between(upstreamConnectedNanos, requestSentNanos);
+    }
+
+    /**
+     * Time from request sent to the first byte of upstream server response (upstream server processing),
+     * zero when server started responding before request was completely sent
+     */
+    public Duration timeToFirstByte() {
+        Duration timeToFirstByte = between(requestSentNanos, responseFirstByteNanos);
+        return timeToFirstByte != null && timeToFirstByte.isNegative() ? Duration.ZERO : timeToFirstByte;
+    }
+
+    /**
+     * Time of receiving upstream server response from first byte to the end
+     */
+    public Duration responseTransfer() {
+        return between(responseFirstByteNanos, responseCompleteNanos);
+    }
+
+    /**
+     * Time from upstream server response received to response written to client
+     */
+    public Duration clientWrite() {
+        return between(responseCompleteNanos, clientWriteCompleteNanos);
+    }
+
+    /**
+     * Time from client request received to response written to client
+     */
+    public Duration total() {
+        return between(requestReceivedNanos, clientWriteCompleteNanos);
+    }
+
+    private static Duration between(long startNanos, long endNanos) {
+        if (startNanos == NOT_RECORDED || endNanos == NOT_RECORDED) {
+            return null;
+        }
+        return Duration.ofNanos(endNanos - startNanos);
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Traffic of CONNECT (or SOCKS5) tunnel, observed without decryption, registered when tunnel is closed.
+ * @param opened when connection to target was established
+ * @param target target {@code host:port} requested by client
+ * @param serverName TLS server name (SNI) sent by client in ClientHello, {@code null} if not found (e.g., not TLS traffic)
+ * @param bytesUp bytes sent by client to target
+ * @param bytesDown bytes sent by target to client
+ * @param openDuration time from tunnel opened to closed
+ * @param timeToFirstByte time from tunnel opened to first byte sent by target, {@code null} if target sent nothing
+ */
+public record ProxyEventTunnel(
+        Instant opened,
+        String target,
+        String serverName,
+        long bytesUp,
+        long bytesDown,
+        Duration openDuration,
+        Duration timeToFirstByte
+) {
+
+}
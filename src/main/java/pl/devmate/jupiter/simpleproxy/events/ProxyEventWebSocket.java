@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append log of frames relayed through single proxied WebSocket connection, linked to upgrade {@link ProxyEvent}.
+ * Frames are appended (from proxy threads) while connection is open, so the log grows after the event is registered.
+ */
+public final class ProxyEventWebSocket {
+
+    private final Instant opened;
+    private final List<ProxyEventWebSocketFrame> frames = new ArrayList<>();
+    private volatile Instant closed;
+
+    public ProxyEventWebSocket() {
+        this.opened = Instant.now();
+    }
+
+    /**
+     * Restore frames log captured elsewhere (e.g., decoded from another JVM)
+     */
+    ProxyEventWebSocket(Instant opened, Instant closed, List<ProxyEventWebSocketFrame> frames) {
+        this.opened = opened;
+        this.closed = closed;
+        this.frames.addAll(frames);
+    }
+
+    public Instant opened() {
+        return opened;
+    }
+
+    /**
+     * When connection was closed, {@code null} while connection is open
+     */
+    public Instant closed() {
+        return closed;
+    }
+
+    /**
+     * Snapshot of frames captured so far
+     */
+    public List<ProxyEventWebSocketFrame> frames() {
+        synchronized (frames) {
+            return List.copyOf(frames);
+        }
+    }
+
+    public void append(ProxyEventWebSocketFrame frame) {
+        synchronized (frames) {
+            frames.add(frame);
+        }
+    }
+
+    public void close() {
+        if (closed == null) {
+            closed = Instant.now();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Single WebSocket frame relayed through proxy, as seen on the wire (extensions, e.g., compression, are not decoded).
+ * @param timestamp when the first byte of frame arrived at proxy
+ * @param direction whether frame was sent by client or by upstream server
+ * @param opcode frame opcode, e.g., {@link #TEXT}, {@link #BINARY}, {@link #CLOSE}
+ * @param fin whether frame is the final fragment of message
+ * @param payloadLength payload length declared in frame header
+ * @param payload unmasked payload, truncated to configured limit
+ */
+public record ProxyEventWebSocketFrame(
+        Instant timestamp,
+        Direction direction,
+        int opcode,
+        boolean fin,
+        long payloadLength,
+        byte[] payload
+) {
+
+    public static final int CONTINUATION = 0x0;
+    public static final int TEXT = 0x1;
+    public static final int BINARY = 0x2;
+    public static final int CLOSE = 0x8;
+    public static final int PING = 0x9;
+    public static final int PONG = 0xA;
+
+    public enum Direction {
+        CLIENT_TO_SERVER,
+        SERVER_TO_CLIENT
+    }
+
+    /**
+     * Whether payload was truncated to configured limit
+     */
+    public boolean payloadTruncated() {
+        return payload.length < payloadLength;
+    }
+
+    /**
+     * Captured payload decoded as UTF-8 text
+     */
+    public String payloadText() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receives events streamed by {@link ProxyEventsStreamSink}s (e.g., of proxies in many forked test JVMs)
+ * over local TCP or unix domain socket, and merges them into one collector: one queryable store of events
+ * and one set of endpoint statistics for the whole build.
+ */
+public final class ProxyEventsAggregator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProxyEventsAggregator.class);
+    static final int MAX_FRAME_BYTES = 256 * 1024 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final SocketAddress address;
+    private final ProxyEventsCollector collector;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    private ProxyEventsAggregator(ServerSocketChannel serverChannel, ProxyEventsCollector collector) throws IOException {
+        this.serverChannel = serverChannel;
+        this.address = serverChannel.getLocalAddress();
+        this.collector = collector;
+        Thread acceptor = new Thread(this::accept, "simple-proxy-aggregator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Start aggregator listening on given address
+     * @param address TCP address ({@link java.net.InetSocketAddress}, port {@code 0} means random port)
+     *                or unix domain socket path ({@link UnixDomainSocketAddress}, socket file is deleted on close)
+     * @param collectorConfig configuration of collector merging received events
+     */
+    public static ProxyEventsAggregator start(SocketAddress address, ProxyEventsCollectorConfig collectorConfig) throws IOException {
+        Objects.requireNonNull(address, "address cannot be null");
+        ServerSocketChannel serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+        return new ProxyEventsAggregator(serverChannel, new ProxyEventsCollector(collectorConfig));
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel connection = serverChannel.accept();
+                connections.add(connection);
+                Thread reader = new Thread(() -> read(connection), "simple-proxy-aggregator-" + connection.getRemoteAddress());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Could not accept connection to aggregator", e);
+                }
+            }
+        }
+    }
+
+    private void read(SocketChannel connection) {
+        try (connection; DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)))) {
+            ProxyEventsCodec.readHeader(in);
+            while (true) {
+                int frameLength;
+                try {
+                    frameLength = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (frameLength < 0 || frameLength > MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid frame length: " + frameLength);
+                }
+                byte[] frame = new byte[frameLength];
+                in.readFully(frame);
+                register(frame);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Could not read proxy events streamed to aggregator", e);
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private void register(byte[] frame) throws IOException {
+        DataInputStream records = new DataInputStream(new ByteArrayInputStream(frame));
+        while (records.available() > 0) {
+            byte recordType = records.readByte();
+            switch (recordType) {
+                case ProxyEventsStreamSink.EVENT_RECORD -> collector.register(ProxyEventsCodec.readEvent(records));
+                case ProxyEventsStreamSink.TUNNEL_RECORD -> collector.registerTunnel(ProxyEventsCodec.readTunnel(records));
+                default -> throw new IOException("Unknown record type: " + recordType);
+            }
+        }
+    }
+
+    /**
+     * Address on which aggregator listens (with actual port, when started on random port)
+     */
+    public SocketAddress address() {
+        return address;
+    }
+
+    public ProxyEventsCaptured eventsCaptured() {
+        return collector.eventsCaptured();
+    }
+
+    public ProxyEventsStats stats() {
+        return collector.stats();
+    }
+
+    public void reset() {
+        collector.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        collector.close();
+        serverChannel.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            Files.deleteIfExists(unixAddress.getPath());
+        }
+    }
+
+}
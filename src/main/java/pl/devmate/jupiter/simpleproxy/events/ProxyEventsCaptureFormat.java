@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+/**
+ * Layout of columnar capture file, written by {@link ProxyEventsCaptureWriter}, read by {@link ProxyEventsCaptureReader}.
+ * <pre>
+ * file:   magic (int), version (int), block*
+ * block:  magic (int), events (int), dictionary strings (int), columns offset (int), variable offset (int),
+ *         body offset (int), block length (long), dictionary, columns, variable segment, body segment
+ * </pre>
+ * Blocks are self-contained (own dictionary), so file is appended block by block and truncated last block
+ * (e.g., of crashed writer) is skipped. Every column holds fixed-width values of all events of the block.
+ * Strings (methods, hosts, paths, header names) are stored as ids of block dictionary, uris and header values
+ * are stored in variable segment, request and response bodies in body segment, both referenced by offsets
+ * (relative to their segment), so bodies are read only when event is decoded.
+ */
+final class ProxyEventsCaptureFormat {
+
+    static final int FILE_MAGIC = 0x53504366; // "SPCf"
+    static final int VERSION = 2;
+    static final int FILE_HEADER_BYTES = 2 * Integer.BYTES;
+    static final int BLOCK_MAGIC = 0x53504362; // "SPCb"
+    static final int BLOCK_HEADER_BYTES = 6 * Integer.BYTES + Long.BYTES;
+    static final int ABSENT = -1;
+    static final long ABSENT_INSTANT = Long.MIN_VALUE;
+
+    enum Column {
+        REQUEST_INSTANT(Long.BYTES),
+        RESPONSE_INSTANT(Long.BYTES),
+        METHOD(Integer.BYTES),
+        HOST(Integer.BYTES),
+        PORT(Integer.BYTES),
+        PATH(Integer.BYTES),
+        STATUS(Integer.BYTES),
+        LATENCY(Long.BYTES),
+        REQUEST_SIZE(Long.BYTES),
+        RESPONSE_SIZE(Long.BYTES),
+        REQUEST_RECEIVED(Long.BYTES),
+        UPSTREAM_QUEUED(Long.BYTES),
+        UPSTREAM_CONNECTED(Long.BYTES),
+        REQUEST_SENT(Long.BYTES),
+        RESPONSE_FIRST_BYTE(Long.BYTES),
+        RESPONSE_COMPLETE(Long.BYTES),
+        CLIENT_WRITE_COMPLETE(Long.BYTES),
+        CONNECTION_REUSED(Byte.BYTES),
+        URI(Integer.BYTES),
+        REQUEST_HEADERS(Integer.BYTES),
+        REQUEST_BODY(Integer.BYTES),
+        RESPONSE_HEADERS(Integer.BYTES),
+        RESPONSE_BODY(Integer.BYTES);
+
+        static final Column[] ALL = values();
+
+        final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+    }
+
+    private ProxyEventsCaptureFormat() {
+    }
+
+}
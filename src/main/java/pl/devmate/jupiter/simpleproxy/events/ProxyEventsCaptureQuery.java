@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.Column;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureReader.Block;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.ABSENT;
+
+/**
+ * Query of events in capture file. String filters are resolved once per block to dictionary ids,
+ * blocks not containing filtered strings are skipped, other filters compare fixed-width column values.
+ * Events are decoded only by {@link #events()}, statistics are computed from columns.
+ */
+public final class ProxyEventsCaptureQuery {
+
+    private final List<Block> blocks;
+    private String method = null;
+    private String host = null;
+    private Integer port = null;
+    private String path = null;
+    private String pathPrefix = null;
+    private int minStatus = Integer.MIN_VALUE;
+    private int maxStatus = Integer.MAX_VALUE;
+    private long minLatencyNanos = Long.MIN_VALUE;
+    private long fromEpochNanos = Long.MIN_VALUE;
+    private long toEpochNanos = Long.MAX_VALUE;
+
+    ProxyEventsCaptureQuery(List<Block> blocks) {
+        this.blocks = blocks;
+    }
+
+    public ProxyEventsCaptureQuery method(String method) {
+        this.method = Objects.requireNonNull(method, "method cannot be null");
+        return this;
+    }
+
+    /**
+     * Upstream host name, without port
+     */
+    public ProxyEventsCaptureQuery host(String host) {
+        this.host = Objects.requireNonNull(host, "host cannot be null");
+        return this;
+    }
+
+    public ProxyEventsCaptureQuery port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public ProxyEventsCaptureQuery path(String path) {
+        this.path = Objects.requireNonNull(path, "path cannot be null");
+        return this;
+    }
+
+    public ProxyEventsCaptureQuery pathStartingWith(String pathPrefix) {
+        this.pathPrefix = Objects.requireNonNull(pathPrefix, "pathPrefix cannot be null");
+        return this;
+    }
+
+    /**
+     * Response status between given values (inclusive)
+     */
+    public ProxyEventsCaptureQuery status(int minStatus, int maxStatus) {
+        this.minStatus = minStatus;
+        this.maxStatus = maxStatus;
+        return this;
+    }
+
+    /**
+     * Latency (from request received to response written to client) at least given duration
+     */
+    public ProxyEventsCaptureQuery slowerThan(Duration latency) {
+        this.minLatencyNanos = latency.toNanos();
+        return this;
+    }
+
+    /**
+     * Request received between given instants (from inclusive, to exclusive)
+     */
+    public ProxyEventsCaptureQuery between(Instant from, Instant to) {
+        this.fromEpochNanos = from.getEpochSecond() * 1_000_000_000L + from.getNano();
+        this.toEpochNanos = to.getEpochSecond() * 1_000_000_000L + to.getNano();
+        return this;
+    }
+
+    public long count() {
+        long[] count = {0};
+        forEachMatch((block, row) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Decoded matching events, in order of writing
+     */
+    public List<ProxyEvent> events() {
+        List<ProxyEvent> events = new ArrayList<>();
+        forEachMatch((block, row) -> events.add(block.event(row)));
+        return events;
+    }
+
+    /**
+     * Latency histogram of matching events
+     */
+    public LatencyHistogram latency() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        forEachMatch((block, row) -> recorder.record(block.getLong(Column.LATENCY, row)));
+        return recorder.snapshot();
+    }
+
+    /**
+     * Statistics of matching events per endpoint, the same as collected by {@link ProxyEventsCollector#stats()}
+     */
+    public ProxyEventsStats stats() {
+        Map<ProxyEventsEndpoint, EndpointAccumulator> endpoints = new LinkedHashMap<>();
+        Map<BlockEndpoint, EndpointAccumulator> blockEndpoints = new HashMap<>();
+        Block[] currentBlock = {null};
+        forEachMatch((block, row) -> {
+            if (block != currentBlock[0]) {
+                // dictionary ids are valid only within block
+                blockEndpoints.clear();
+                currentBlock[0] = block;
+            }
+            BlockEndpoint blockEndpoint = new BlockEndpoint(block.getInt(Column.METHOD, row), block.getInt(Column.HOST, row),
+                    block.getInt(Column.PORT, row), block.getInt(Column.PATH, row));
+            blockEndpoints.computeIfAbsent(blockEndpoint, be -> endpoints.computeIfAbsent(be.endpoint(block), EndpointAccumulator::new))
+                    .record(block, row);
+        });
+        return new ProxyEventsStats(endpoints.values().stream()
+                .map(EndpointAccumulator::stats)
+                .toList());
+    }
+
+    private void forEachMatch(RowConsumer consumer) {
+        for (Block block : blocks) {
+            int methodId = filterId(block, method);
+            int hostId = filterId(block, host);
+            int pathId = filterId(block, path);
+            if (methodId == ABSENT && method != null || hostId == ABSENT && host != null || pathId == ABSENT && path != null) {
+                continue;
+            }
+            boolean[] pathPrefixMatches = pathPrefix != null ? pathPrefixMatches(block) : null;
+            for (int row = 0; row < block.events; row++) {
+                if (matches(block, row, methodId, hostId, pathId, pathPrefixMatches)) {
+                    consumer.accept(block, row);
+                }
+            }
+        }
+    }
+
+    private boolean matches(Block block, int row, int methodId, int hostId, int pathId, boolean[] pathPrefixMatches) {
+        if (method != null && block.getInt(Column.METHOD, row) != methodId) {
+            return false;
+        }
+        if (host != null && block.getInt(Column.HOST, row) != hostId) {
+            return false;
+        }
+        if (port != null && block.getInt(Column.PORT, row) != port) {
+            return false;
+        }
+        if (path != null && block.getInt(Column.PATH, row) != pathId) {
+            return false;
+        }
+        if (pathPrefixMatches != null) {
+            int rowPathId = block.getInt(Column.PATH, row);
+            if (rowPathId == ABSENT || !pathPrefixMatches[rowPathId]) {
+                return false;
+            }
+        }
+        int status = block.getInt(Column.STATUS, row);
+        if (status < minStatus || status > maxStatus) {
+            return false;
+        }
+        if (block.getLong(Column.LATENCY, row) < minLatencyNanos) {
+            return false;
+        }
+        long requestEpochNanos = block.getLong(Column.REQUEST_INSTANT, row);
+        return requestEpochNanos >= fromEpochNanos && requestEpochNanos < toEpochNanos;
+    }
+
+    private static int filterId(Block block, String value) {
+        return value != null ? block.id(value) : ABSENT;
+    }
+
+    private boolean[] pathPrefixMatches(Block block) {
+        String[] dictionary = block.dictionary();
+        boolean[] matches = new boolean[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+            matches[i] = dictionary[i].startsWith(pathPrefix);
+        }
+        return matches;
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(Block block, int row);
+    }
+
+    private record BlockEndpoint(int method, int host, int port, int path) {
+
+        ProxyEventsEndpoint endpoint(Block block) {
+            String hostName = block.string(host);
+            return new ProxyEventsEndpoint(block.string(method), port == ABSENT ? hostName : hostName + ":" + port, block.string(path));
+        }
+    }
+
+    private static final class EndpointAccumulator {
+
+        private final ProxyEventsEndpoint endpoint;
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private long count;
+        private long errors;
+        private long requestBytes;
+        private long responseBytes;
+
+        EndpointAccumulator(ProxyEventsEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(Block block, int row) {
+            count++;
+            if (block.getInt(Column.STATUS, row) >= 400) {
+                errors++;
+            }
+            requestBytes += block.getLong(Column.REQUEST_SIZE, row);
+            responseBytes += block.getLong(Column.RESPONSE_SIZE, row);
+            latency.record(block.getLong(Column.LATENCY, row));
+        }
+
+        ProxyEventsEndpointStats stats() {
+            return new ProxyEventsEndpointStats(endpoint, count, errors, requestBytes, responseBytes, latency.snapshot());
+        }
+    }
+
+}
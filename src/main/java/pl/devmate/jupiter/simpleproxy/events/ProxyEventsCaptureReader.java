@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.Column;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.*;
+
+/**
+ * Reads capture file written by {@link ProxyEventsCaptureWriter}. Blocks of the file are memory-mapped,
+ * so queries ({@link #query()}) read only the columns they need, events are decoded only when requested.
+ * Only block dictionaries are decoded when file is opened.
+ */
+public final class ProxyEventsCaptureReader implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProxyEventsCaptureReader.class);
+
+    private final FileChannel channel;
+    private final List<Block> blocks;
+    private final long[] firstEventIndexes;
+    private final long eventCount;
+
+    private ProxyEventsCaptureReader(FileChannel channel, List<Block> blocks) {
+        this.channel = channel;
+        this.blocks = List.copyOf(blocks);
+        this.firstEventIndexes = new long[blocks.size()];
+        long count = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            firstEventIndexes[i] = count;
+            count += blocks.get(i).events;
+        }
+        this.eventCount = count;
+    }
+
+    public static ProxyEventsCaptureReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            readFully(channel, fileHeader, 0);
+            if (fileHeader.getInt(0) != FILE_MAGIC || fileHeader.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Not a proxy events capture file (or unsupported version): " + file);
+            }
+            List<Block> blocks = new ArrayList<>();
+            long position = FILE_HEADER_BYTES;
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+            while (position + BLOCK_HEADER_BYTES <= size) {
+                blockHeader.clear();
+                readFully(channel, blockHeader, position);
+                long blockLength = blockHeader.getLong(6 * Integer.BYTES);
+                if (blockHeader.getInt(0) != BLOCK_MAGIC || blockLength > Integer.MAX_VALUE || position + blockLength > size) {
+                    log.warn("Skipping incomplete block at {} of capture file {}", position, file);
+                    break;
+                }
+                blocks.add(new Block(channel.map(FileChannel.MapMode.READ_ONLY, position, blockLength)));
+                position += blockLength;
+            }
+            return new ProxyEventsCaptureReader(channel, blocks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of capture file");
+            }
+        }
+    }
+
+    public long eventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Decode event at given position in file (in order of writing)
+     */
+    public ProxyEvent event(long index) {
+        if (index < 0 || index >= eventCount) {
+            throw new IndexOutOfBoundsException("Event index " + index + " out of bounds for " + eventCount + " events");
+        }
+        int blockIndex = Arrays.binarySearch(firstEventIndexes, index);
+        if (blockIndex < 0) {
+            blockIndex = -blockIndex - 2;
+        }
+        return blocks.get(blockIndex).event((int) (index - firstEventIndexes[blockIndex]));
+    }
+
+    /**
+     * Query of events in file, filters are evaluated on columns, without decoding events
+     */
+    public ProxyEventsCaptureQuery query() {
+        return new ProxyEventsCaptureQuery(blocks);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Memory-mapped block of capture file
+     */
+    static final class Block {
+
+        final int events;
+        private final ByteBuffer buffer;
+        private final String[] dictionary;
+        private final Map<String, Integer> ids;
+        private final int[] columnOffsets = new int[Column.ALL.length];
+        private final int variableOffset;
+        private final int bodyOffset;
+
+        private Block(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.events = buffer.getInt(Integer.BYTES);
+            int dictionarySize = buffer.getInt(2 * Integer.BYTES);
+            int columnsOffset = buffer.getInt(3 * Integer.BYTES);
+            this.variableOffset = buffer.getInt(4 * Integer.BYTES);
+            this.bodyOffset = buffer.getInt(5 * Integer.BYTES);
+
+            this.dictionary = new String[dictionarySize];
+            this.ids = new HashMap<>(dictionarySize * 2);
+            int position = BLOCK_HEADER_BYTES;
+            for (int i = 0; i < dictionarySize; i++) {
+                int length = buffer.getInt(position);
+                dictionary[i] = utf8(position + Integer.BYTES, length);
+                ids.put(dictionary[i], i);
+                position += Integer.BYTES + length;
+            }
+
+            int columnOffset = columnsOffset;
+            for (Column column : Column.ALL) {
+                columnOffsets[column.ordinal()] = columnOffset;
+                columnOffset += column.width * events;
+            }
+        }
+
+        long getLong(Column column, int row) {
+            return buffer.getLong(columnOffsets[column.ordinal()] + row * Long.BYTES);
+        }
+
+        int getInt(Column column, int row) {
+            return buffer.getInt(columnOffsets[column.ordinal()] + row * Integer.BYTES);
+        }
+
+        /**
+         * Dictionary id of string, {@link ProxyEventsCaptureFormat#ABSENT} if string is not used in block
+         */
+        int id(String value) {
+            return ids.getOrDefault(value, ABSENT);
+        }
+
+        String string(int id) {
+            return id == ABSENT ? null : dictionary[id];
+        }
+
+        String[] dictionary() {
+            return dictionary;
+        }
+
+        ProxyEvent event(int row) {
+            String uri = variableString(getInt(Column.URI, row));
+            ProxyEventRequest request = new ProxyEventRequest(
+                    instant(getLong(Column.REQUEST_INSTANT, row)),
+                    uri != null ? URI.create(uri) : null,
+                    string(getInt(Column.METHOD, row)),
+                    headers(getInt(Column.REQUEST_HEADERS, row)),
+                    bodyBytes(getInt(Column.REQUEST_BODY, row))
+            );
+            ProxyEventResponse response = new ProxyEventResponse(
+                    instant(getLong(Column.RESPONSE_INSTANT, row)),
+                    getInt(Column.STATUS, row),
+                    headers(getInt(Column.RESPONSE_HEADERS, row)),
+                    bodyBytes(getInt(Column.RESPONSE_BODY, row))
+            );
+            ProxyEventTimings timings = new ProxyEventTimings(
+                    getLong(Column.REQUEST_RECEIVED, row),
+                    getLong(Column.UPSTREAM_QUEUED, row),
+                    getLong(Column.UPSTREAM_CONNECTED, row),
+                    buffer.get(columnOffsets[Column.CONNECTION_REUSED.ordinal()] + row) != 0,
+                    getLong(Column.REQUEST_SENT, row),
+                    getLong(Column.RESPONSE_FIRST_BYTE, row),
+                    getLong(Column.RESPONSE_COMPLETE, row),
+                    getLong(Column.CLIENT_WRITE_COMPLETE, row)
+            );
+            return new ProxyEvent(request, response, timings);
+        }
+
+        private ProxyEventHttpHeaders headers(int offset) {
+            int position = variableOffset + offset;
+            int count = buffer.getInt(position);
+            if (count == ABSENT) {
+                return null;
+            }
+            position += Integer.BYTES;
+            List<ProxyEventHttpHeader> headers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = string(buffer.getInt(position));
+                int valuesCount = buffer.getInt(position + Integer.BYTES);
+                position += 2 * Integer.BYTES;
+                List<String> values = new ArrayList<>(valuesCount);
+                for (int j = 0; j < valuesCount; j++) {
+                    int length = buffer.getInt(position);
+                    position += Integer.BYTES;
+                    values.add(length == ABSENT ? null : utf8(position, length));
+                    position += Math.max(length, 0);
+                }
+                headers.add(new ProxyEventHttpHeader(name, values));
+            }
+            return new ProxyEventHttpHeaders(headers);
+        }
+
+        private byte[] bodyBytes(int offset) {
+            int position = bodyOffset + offset;
+            int length = buffer.getInt(position);
+            if (length == ABSENT) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position + Integer.BYTES, bytes);
+            return bytes;
+        }
+
+        private String variableString(int offset) {
+            int position = variableOffset + offset;
+            int length = buffer.getInt(position);
+            return length == ABSENT ? null : utf8(position + Integer.BYTES, length);
+        }
+
+        private String utf8(int position, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static Instant instant(long epochNanos) {
+            return epochNanos == ABSENT_INSTANT ? null : Instant.ofEpochSecond(0, epochNanos);
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.Column;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureFormat.*;
+
+/**
+ * Appends events registered in collector (as {@link ProxyEventsSink}) to columnar capture file,
+ * read with {@link ProxyEventsCaptureReader}. Events are handed off to background thread (up to
+ * {@value #MAX_PENDING_EVENTS} pending, more are dropped) and buffered in block written when it reaches
+ * {@value #BLOCK_EVENTS} events or {@value #BLOCK_VARIABLE_BYTES} bytes of uris, headers and bodies,
+ * when no event arrived for {@value #IDLE_FLUSH_MILLIS} ms, on {@link #flush()} and on {@link #close()}.
+ * When block could not be written, its events are dropped (and counted). Existing capture file is appended to.<br>
+ * WebSocket frames and tunnels are not written, streamed response is written with its retained content as body.
+ */
+public final class ProxyEventsCaptureWriter implements ProxyEventsSink, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProxyEventsCaptureWriter.class);
+    static final int BLOCK_EVENTS = 4096;
+    static final int BLOCK_VARIABLE_BYTES = 64 * 1024 * 1024;
+    static final int MAX_PENDING_EVENTS = 2 * BLOCK_EVENTS;
+    static final long IDLE_FLUSH_MILLIS = 1_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    private static final CompletableFuture<Void> CLOSE = new CompletableFuture<>();
+
+    private final FileChannel channel;
+    private final BlockingQueue<Object> pending = new ArrayBlockingQueue<>(MAX_PENDING_EVENTS);
+    private final LongAdder droppedEvents = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed = false;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> dictionaryStrings = new ArrayList<>();
+    private final ByteArrayOutputStream[] columns = new ByteArrayOutputStream[Column.ALL.length];
+    private final DataOutputStream[] columnsOut = new DataOutputStream[Column.ALL.length];
+    private final ByteArrayOutputStream variable = new ByteArrayOutputStream();
+    private final DataOutputStream variableOut = new DataOutputStream(variable);
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private int blockEvents = 0;
+    private volatile long writtenEvents = 0;
+
+    private ProxyEventsCaptureWriter(FileChannel channel) {
+        this.channel = channel;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ByteArrayOutputStream();
+            columnsOut[i] = new DataOutputStream(columns[i]);
+        }
+        this.writer = new Thread(this::writeBlocks, "simple-proxy-capture-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open capture file for appending, file is created if it does not exist
+     */
+    public static ProxyEventsCaptureWriter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(FILE_MAGIC).putInt(VERSION).flip();
+                writeFully(channel, header, 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                channel.read(header, 0);
+                if (header.getInt(0) != FILE_MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                    throw new IOException("Not a proxy events capture file (or unsupported version): " + file);
+                }
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ProxyEventsCaptureWriter(channel);
+    }
+
+    @Override
+    public void accept(ProxyEvent proxyEvent) {
+        if (closed || !pending.offer(proxyEvent)) {
+            droppedEvents.increment();
+        }
+    }
+
+    private void writeBlocks() {
+        while (true) {
+            Object next;
+            try {
+                next = pending.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                next = CLOSE;
+            }
+            if (next instanceof ProxyEvent proxyEvent) {
+                append(proxyEvent);
+                if (blockEvents >= BLOCK_EVENTS || variable.size() + body.size() >= BLOCK_VARIABLE_BYTES) {
+                    writeBlock();
+                }
+            } else {
+                // idle, flush or close requested
+                if (blockEvents > 0) {
+                    writeBlock();
+                }
+                if (next instanceof CompletableFuture<?> request) {
+                    if (request == CLOSE) {
+                        return;
+                    }
+                    request.complete(null);
+                }
+            }
+        }
+    }
+
+    private void append(ProxyEvent proxyEvent) {
+        try {
+            appendColumns(proxyEvent);
+        } catch (IOException e) {
+            // not thrown by in-memory streams
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendColumns(ProxyEvent proxyEvent) throws IOException {
+        ProxyEventRequest request = proxyEvent.clientToProxyRequest();
+        ProxyEventResponse response = proxyEvent.serverToProxyResponse();
+        ProxyEventTimings timings = proxyEvent.timings() != null ? proxyEvent.timings() : ProxyEventTimings.EMPTY;
+        URI uri = request.uri();
+
+        column(Column.REQUEST_INSTANT).writeLong(epochNanos(request.instant()));
+        column(Column.RESPONSE_INSTANT).writeLong(epochNanos(response.instant()));
+        column(Column.METHOD).writeInt(stringId(request.method()));
+        column(Column.HOST).writeInt(stringId(uri != null ? uri.getHost() : null));
+        column(Column.PORT).writeInt(uri != null ? uri.getPort() : ABSENT);
+        column(Column.PATH).writeInt(stringId(uri != null ? uri.getPath() : null));
+        column(Column.STATUS).writeInt(response.httpStatusCode());
+        column(Column.LATENCY).writeLong(ProxyEventsStatsRecorder.latencyNanos(proxyEvent));
+        column(Column.REQUEST_SIZE).writeLong(ProxyEventsStatsRecorder.requestBytes(proxyEvent));
+        column(Column.RESPONSE_SIZE).writeLong(ProxyEventsStatsRecorder.responseBytes(proxyEvent));
+        column(Column.REQUEST_RECEIVED).writeLong(timings.requestReceivedNanos());
+        column(Column.UPSTREAM_QUEUED).writeLong(timings.upstreamQueuedNanos());
+        column(Column.UPSTREAM_CONNECTED).writeLong(timings.upstreamConnectedNanos());
+        column(Column.REQUEST_SENT).writeLong(timings.requestSentNanos());
+        column(Column.RESPONSE_FIRST_BYTE).writeLong(timings.responseFirstByteNanos());
+        column(Column.RESPONSE_COMPLETE).writeLong(timings.responseCompleteNanos());
+        column(Column.CLIENT_WRITE_COMPLETE).writeLong(timings.clientWriteCompleteNanos());
+        column(Column.CONNECTION_REUSED).writeBoolean(timings.upstreamConnectionReused());
+
+        column(Column.URI).writeInt(variable.size());
+        writeBytes(variableOut, uri != null ? uri.toString().getBytes(StandardCharsets.UTF_8) : null);
+        column(Column.REQUEST_HEADERS).writeInt(variable.size());
+        writeHeaders(request.headers());
+        column(Column.RESPONSE_HEADERS).writeInt(variable.size());
+        writeHeaders(response.headers());
+        column(Column.REQUEST_BODY).writeInt(body.size());
+        writeBytes(bodyOut, request.requestBytes());
+        column(Column.RESPONSE_BODY).writeInt(body.size());
+        byte[] responseBytes = response.responseBytes();
+        if (responseBytes == null && proxyEvent.responseStream() != null) {
+            responseBytes = proxyEvent.responseStream().retainedContent();
+        }
+        writeBytes(bodyOut, responseBytes);
+        blockEvents++;
+    }
+
+    private DataOutputStream column(Column column) {
+        return columnsOut[column.ordinal()];
+    }
+
+    private int stringId(String value) {
+        if (value == null) {
+            return ABSENT;
+        }
+        return dictionary.computeIfAbsent(value, v -> {
+            dictionaryStrings.add(v);
+            return dictionaryStrings.size() - 1;
+        });
+    }
+
+    private void writeHeaders(ProxyEventHttpHeaders headers) throws IOException {
+        if (headers == null) {
+            variableOut.writeInt(ABSENT);
+            return;
+        }
+        variableOut.writeInt(headers.headers().size());
+        for (ProxyEventHttpHeader header : headers.headers()) {
+            variableOut.writeInt(stringId(header.headerName()));
+            List<String> values = header.headerValues() != null ? header.headerValues() : List.of();
+            variableOut.writeInt(values.size());
+            for (String value : values) {
+                writeBytes(variableOut, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(ABSENT);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Write events accepted so far to file, waits until they are written
+     */
+    public void flush() {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        try {
+            if (!closed && pending.offer(written, CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                written.get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Could not flush proxy events to capture file: {}", e.toString());
+        }
+    }
+
+    private void writeBlock() {
+        long blockPosition = -1;
+        try {
+            blockPosition = channel.size();
+            writeBlock(blockPosition);
+            writtenEvents += blockEvents;
+        } catch (IOException e) {
+            log.warn("Could not write {} proxy events to capture file: {}", blockEvents, e.toString());
+            droppedEvents.add(blockEvents);
+            truncate(blockPosition);
+        } finally {
+            for (ByteArrayOutputStream column : columns) {
+                column.reset();
+            }
+            variable.reset();
+            body.reset();
+            dictionary.clear();
+            dictionaryStrings.clear();
+            blockEvents = 0;
+        }
+    }
+
+    private void truncate(long blockPosition) {
+        // partially written block would hide blocks appended after it from reader
+        if (blockPosition < 0) {
+            return;
+        }
+        try {
+            channel.truncate(blockPosition);
+        } catch (IOException e) {
+            log.debug("Could not truncate partially written block of capture file", e);
+        }
+    }
+
+    private void writeBlock(long position) throws IOException {
+        ByteArrayOutputStream encodedDictionary = new ByteArrayOutputStream();
+        DataOutputStream dictionaryOut = new DataOutputStream(encodedDictionary);
+        for (String value : dictionaryStrings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dictionaryOut.writeInt(bytes.length);
+            dictionaryOut.write(bytes);
+        }
+        int columnsOffset = BLOCK_HEADER_BYTES + encodedDictionary.size();
+        int columnsBytes = 0;
+        for (ByteArrayOutputStream column : columns) {
+            columnsBytes += column.size();
+        }
+        int variableOffset = columnsOffset + columnsBytes;
+        int bodyOffset = variableOffset + variable.size();
+        long blockLength = (long) bodyOffset + body.size();
+
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES)
+                .putInt(BLOCK_MAGIC)
+                .putInt(blockEvents)
+                .putInt(dictionaryStrings.size())
+                .putInt(columnsOffset)
+                .putInt(variableOffset)
+                .putInt(bodyOffset)
+                .putLong(blockLength)
+                .flip();
+        position = writeFully(channel, header, position);
+        position = writeFully(channel, ByteBuffer.wrap(encodedDictionary.toByteArray()), position);
+        for (ByteArrayOutputStream column : columns) {
+            position = writeFully(channel, ByteBuffer.wrap(column.toByteArray()), position);
+        }
+        position = writeFully(channel, ByteBuffer.wrap(variable.toByteArray()), position);
+        writeFully(channel, ByteBuffer.wrap(body.toByteArray()), position);
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+
+    private static long epochNanos(Instant instant) {
+        if (instant == null) {
+            return ABSENT_INSTANT;
+        }
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Number of events written to file (excluding events pending or buffered in block not written yet)
+     */
+    public long writtenEvents() {
+        return writtenEvents;
+    }
+
+    /**
+     * Number of events dropped, because too many were pending, writer was closed or block could not be written
+     */
+    public long dropped() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Write pending events and close file
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            if (pending.offer(CLOSE, CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                writer.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -19,12 +19,23 @@ import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Proxy events and CONNECT tunnels captured since last reset
+ * @param proxyEvents captured requests and responses (including CONNECT requests)
+ * @param tunnels closed CONNECT tunnels
+ */
 public record ProxyEventsCaptured(
-        List<ProxyEvent> proxyEvents
+        List<ProxyEvent> proxyEvents,
+        List<ProxyEventTunnel> tunnels
 ) {
 
     public ProxyEventsCaptured {
         proxyEvents = List.copyOf(proxyEvents);
+        tunnels = List.copyOf(tunnels);
+    }
+
+    public ProxyEventsCaptured(List<ProxyEvent> proxyEvents) {
+        this(proxyEvents, List.of());
     }
 
     public List<ProxyEvent> proxyEventsMatching(Predicate<ProxyEvent> filter) {
@@ -43,7 +54,7 @@ public record ProxyEventsCaptured(
         String events = proxyEvents().stream()
                 .map(this::shortInfo)
                 .collect(Collectors.joining("\n\t", "\n\t", ""));
-        return "Captured " + proxyEvents().size() + " proxy events:" + events;
+        return "Captured " + proxyEvents().size() + " proxy events, " + tunnels().size() + " tunnels:" + events;
     }
 
     private String shortInfo(ProxyEvent pe) {
@@ -0,0 +1,337 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of captured proxy events, for passing events between JVMs.<br>
+ * Values are written with {@link DataOutput} (big-endian), strings and bodies are length-prefixed,
+ * nullable values are preceded by presence flag. Both sides must use the same library version.
+ */
+public final class ProxyEventsCodec {
+
+    private static final int MAGIC = 0x53504576; // "SPEv"
+    private static final int VERSION = 1;
+    private static final int ABSENT = -1;
+
+    private ProxyEventsCodec() {
+    }
+
+    public static void write(ProxyEventsCaptured eventsCaptured, DataOutput out) throws IOException {
+        writeHeader(out);
+        out.writeInt(eventsCaptured.proxyEvents().size());
+        for (ProxyEvent proxyEvent : eventsCaptured.proxyEvents()) {
+            writeEvent(proxyEvent, out);
+        }
+        out.writeInt(eventsCaptured.tunnels().size());
+        for (ProxyEventTunnel tunnel : eventsCaptured.tunnels()) {
+            writeTunnel(tunnel, out);
+        }
+    }
+
+    public static ProxyEventsCaptured read(DataInput in) throws IOException {
+        readHeader(in);
+        int eventsCount = readCount(in);
+        List<ProxyEvent> proxyEvents = new ArrayList<>(eventsCount);
+        for (int i = 0; i < eventsCount; i++) {
+            proxyEvents.add(readEvent(in));
+        }
+        int tunnelsCount = readCount(in);
+        List<ProxyEventTunnel> tunnels = new ArrayList<>(tunnelsCount);
+        for (int i = 0; i < tunnelsCount; i++) {
+            tunnels.add(readTunnel(in));
+        }
+        return new ProxyEventsCaptured(proxyEvents, tunnels);
+    }
+
+    /**
+     * Marker and version of encoding, written once at the beginning of encoded content (or stream of events)
+     */
+    public static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    public static void readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not encoded proxy events");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported proxy events encoding version: " + version);
+        }
+    }
+
+    public static void writeEvent(ProxyEvent proxyEvent, DataOutput out) throws IOException {
+        ProxyEventRequest request = proxyEvent.clientToProxyRequest();
+        writeInstant(request.instant(), out);
+        writeString(request.uri() != null ? request.uri().toString() : null, out);
+        writeString(request.method(), out);
+        writeHeaders(request.headers(), out);
+        writeBytes(request.requestBytes(), out);
+
+        ProxyEventResponse response = proxyEvent.serverToProxyResponse();
+        writeInstant(response.instant(), out);
+        out.writeInt(response.httpStatusCode());
+        writeHeaders(response.headers(), out);
+        writeBytes(response.responseBytes(), out);
+
+        writeTimings(proxyEvent.timings(), out);
+        writeWebSocket(proxyEvent.webSocket(), out);
+        writeStream(proxyEvent.responseStream(), out);
+    }
+
+    public static ProxyEvent readEvent(DataInput in) throws IOException {
+        Instant requestInstant = readInstant(in);
+        String uri = readString(in);
+        ProxyEventRequest request = new ProxyEventRequest(
+                requestInstant,
+                uri != null ? URI.create(uri) : null,
+                readString(in),
+                readHeaders(in),
+                readBytes(in)
+        );
+        ProxyEventResponse response = new ProxyEventResponse(
+                readInstant(in),
+                in.readInt(),
+                readHeaders(in),
+                readBytes(in)
+        );
+        return new ProxyEvent(request, response, readTimings(in), readWebSocket(in), readStream(in));
+    }
+
+    public static void writeTunnel(ProxyEventTunnel tunnel, DataOutput out) throws IOException {
+        writeInstant(tunnel.opened(), out);
+        writeString(tunnel.target(), out);
+        writeString(tunnel.serverName(), out);
+        out.writeLong(tunnel.bytesUp());
+        out.writeLong(tunnel.bytesDown());
+        writeDuration(tunnel.openDuration(), out);
+        writeDuration(tunnel.timeToFirstByte(), out);
+    }
+
+    public static ProxyEventTunnel readTunnel(DataInput in) throws IOException {
+        return new ProxyEventTunnel(
+                readInstant(in),
+                readString(in),
+                readString(in),
+                in.readLong(),
+                in.readLong(),
+                readDuration(in),
+                readDuration(in)
+        );
+    }
+
+    private static void writeHeaders(ProxyEventHttpHeaders headers, DataOutput out) throws IOException {
+        if (headers == null) {
+            out.writeInt(ABSENT);
+            return;
+        }
+        out.writeInt(headers.headers().size());
+        for (ProxyEventHttpHeader header : headers.headers()) {
+            writeString(header.headerName(), out);
+            List<String> values = header.headerValues() != null ? header.headerValues() : List.of();
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(value, out);
+            }
+        }
+    }
+
+    private static ProxyEventHttpHeaders readHeaders(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count == ABSENT) {
+            return null;
+        }
+        if (count < 0) {
+            throw new IOException("Invalid encoded count: " + count);
+        }
+        List<ProxyEventHttpHeader> headers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            int valuesCount = readCount(in);
+            List<String> values = new ArrayList<>(valuesCount);
+            for (int j = 0; j < valuesCount; j++) {
+                values.add(readString(in));
+            }
+            headers.add(new ProxyEventHttpHeader(name, values));
+        }
+        return new ProxyEventHttpHeaders(headers);
+    }
+
+    private static void writeTimings(ProxyEventTimings timings, DataOutput out) throws IOException {
+        ProxyEventTimings t = timings != null ? timings : ProxyEventTimings.EMPTY;
+        out.writeLong(t.requestReceivedNanos());
+        out.writeLong(t.upstreamQueuedNanos());
+        out.writeLong(t.upstreamConnectedNanos());
+        out.writeBoolean(t.upstreamConnectionReused());
+        out.writeLong(t.requestSentNanos());
+        out.writeLong(t.responseFirstByteNanos());
+        out.writeLong(t.responseCompleteNanos());
+        out.writeLong(t.clientWriteCompleteNanos());
+    }
+
+    private static ProxyEventTimings readTimings(DataInput in) throws IOException {
+        return new ProxyEventTimings(in.readLong(), in.readLong(), in.readLong(), in.readBoolean(),
+                in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    private static void writeWebSocket(ProxyEventWebSocket webSocket, DataOutput out) throws IOException {
+        out.writeBoolean(webSocket != null);
+        if (webSocket == null) {
+            return;
+        }
+        writeInstant(webSocket.opened(), out);
+        writeInstant(webSocket.closed(), out);
+        List<ProxyEventWebSocketFrame> frames = webSocket.frames();
+        out.writeInt(frames.size());
+        for (ProxyEventWebSocketFrame frame : frames) {
+            writeInstant(frame.timestamp(), out);
+            out.writeByte(frame.direction().ordinal());
+            out.writeByte(frame.opcode());
+            out.writeBoolean(frame.fin());
+            out.writeLong(frame.payloadLength());
+            writeBytes(frame.payload(), out);
+        }
+    }
+
+    private static ProxyEventWebSocket readWebSocket(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Instant opened = readInstant(in);
+        Instant closed = readInstant(in);
+        int count = readCount(in);
+        List<ProxyEventWebSocketFrame> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            frames.add(new ProxyEventWebSocketFrame(
+                    readInstant(in),
+                    ProxyEventWebSocketFrame.Direction.values()[in.readUnsignedByte()],
+                    in.readUnsignedByte(),
+                    in.readBoolean(),
+                    in.readLong(),
+                    readBytes(in)
+            ));
+        }
+        return new ProxyEventWebSocket(opened, closed, frames);
+    }
+
+    private static void writeStream(ProxyEventStream stream, DataOutput out) throws IOException {
+        out.writeBoolean(stream != null);
+        if (stream == null) {
+            return;
+        }
+        out.writeInt(stream.windowBytes());
+        out.writeLong(stream.totalBytes());
+        out.writeLong(stream.totalChunks());
+        writeInstant(stream.completed(), out);
+        List<ProxyEventStreamChunk> chunks = stream.chunks();
+        out.writeInt(chunks.size());
+        for (ProxyEventStreamChunk chunk : chunks) {
+            writeInstant(chunk.timestamp(), out);
+            out.writeLong(chunk.offset());
+            writeBytes(chunk.bytes(), out);
+        }
+    }
+
+    private static ProxyEventStream readStream(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int windowBytes = in.readInt();
+        long totalBytes = in.readLong();
+        long totalChunks = in.readLong();
+        Instant completed = readInstant(in);
+        int count = readCount(in);
+        List<ProxyEventStreamChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chunks.add(new ProxyEventStreamChunk(readInstant(in), in.readLong(), readBytes(in)));
+        }
+        return new ProxyEventStream(windowBytes, chunks, totalBytes, totalChunks, completed);
+    }
+
+    private static void writeInstant(Instant instant, DataOutput out) throws IOException {
+        out.writeBoolean(instant != null);
+        if (instant != null) {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInput in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeDuration(Duration duration, DataOutput out) throws IOException {
+        out.writeBoolean(duration != null);
+        if (duration != null) {
+            out.writeLong(duration.toNanos());
+        }
+    }
+
+    private static Duration readDuration(DataInput in) throws IOException {
+        return in.readBoolean() ? Duration.ofNanos(in.readLong()) : null;
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        writeBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null, out);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        if (bytes == null) {
+            out.writeInt(ABSENT);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid encoded count: " + count);
+        }
+        return count;
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == ABSENT) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid encoded length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+}
@@ -19,28 +19,229 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ProxyEventsCollector {
 
     private static final Logger log = LoggerFactory.getLogger(ProxyEventsCollector.class);
+    static final int MAX_PENDING_BODY_STORES = 1024;
     private final List<ProxyEvent> proxyEvents = new CopyOnWriteArrayList<>();
+    private final List<ProxyEventTunnel> tunnels = new CopyOnWriteArrayList<>();
+    private final ProxyEventsStatsRecorder statsRecorder = new ProxyEventsStatsRecorder();
+    private final LongAdder retainedBytes = new LongAdder();
+    private final Map<String, ProxyEventsCollector> partitions = new ConcurrentHashMap<>();
+    private final List<ProxyEventsSink> sinks;
+    private final ProxyEventBodyStore bodyStore;
+    private final ExecutorService bodyStoreExecutor;
 
     private final ProxyEventsCollectorConfig proxyEventsCollectorConfig;
 
     public ProxyEventsCollector(ProxyEventsCollectorConfig proxyEventsCollectorConfig) {
+        this(proxyEventsCollectorConfig, new CopyOnWriteArrayList<>());
+    }
+
+    private ProxyEventsCollector(ProxyEventsCollectorConfig proxyEventsCollectorConfig, List<ProxyEventsSink> sinks) {
         Objects.requireNonNull(proxyEventsCollectorConfig, "proxyEventsCollectorConfig cannot be null");
         this.proxyEventsCollectorConfig = proxyEventsCollectorConfig;
+        this.sinks = sinks;
+        if (proxyEventsCollectorConfig.compressBodies() || proxyEventsCollectorConfig.deduplicateBodies()) {
+            this.bodyStore = new ProxyEventBodyStore(proxyEventsCollectorConfig.bodyCompressionThreshold(), proxyEventsCollectorConfig.deduplicateBodies());
+            this.bodyStoreExecutor = newBodyStoreExecutor();
+        } else {
+            this.bodyStore = null;
+            this.bodyStoreExecutor = null;
+        }
+    }
+
+    private static ExecutorService newBodyStoreExecutor() {
+        // single thread, started only when there are bodies to store
+        return new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING_BODY_STORES), runnable -> {
+            Thread thread = new Thread(runnable, "simple-proxy-body-store");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> {
+            // backed up (or closed), bodies of event are kept as captured
+            log.debug("Body store is backed up, bodies of proxy event are not compressed nor deduplicated");
+        });
     }
 
     public void register(ProxyEvent proxyEvent) {
         log.trace("Registering proxy event, uri: {}, response code: {}", proxyEvent.clientToProxyRequest().uri(), proxyEvent.serverToProxyResponse().httpStatusCode());
-        this.proxyEvents.add(proxyEvent);
+        this.statsRecorder.record(proxyEvent);
+        for (ProxyEventsSink sink : sinks) {
+            sink.accept(proxyEvent);
+        }
+        if (proxyEventsCollectorConfig.storeEvents()) {
+            // event and its bodies counted together, so reset never leaves bodies of removed event counted
+            synchronized (this.proxyEvents) {
+                if (!replaceInProgress(proxyEvent)) {
+                    this.proxyEvents.add(proxyEvent);
+                }
+                this.retainedBytes.add(storedBodiesLength(proxyEvent));
+            }
+            if (bodyStore != null && hasBodyToStore(proxyEvent)) {
+                // bodies are compressed and deduplicated off the I/O thread, event is replaced when bodies are stored
+                bodyStoreExecutor.execute(() -> storeBodies(proxyEvent));
+            }
+        }
+    }
+
+    private boolean hasBodyToStore(ProxyEvent proxyEvent) {
+        return bodyStore.accepts(proxyEvent.clientToProxyRequest().requestBytes())
+                || bodyStore.accepts(proxyEvent.serverToProxyResponse().responseBytes());
+    }
+
+    private void storeBodies(ProxyEvent proxyEvent) {
+        ProxyEventRequest request = proxyEvent.clientToProxyRequest();
+        ProxyEventResponse response = proxyEvent.serverToProxyResponse();
+        long generation = bodyStore.generation();
+        ProxyEventStoredBody storedRequestBody;
+        ProxyEventStoredBody storedResponseBody;
+        try {
+            storedRequestBody = bodyStore.store(request.requestBytes(), generation);
+            storedResponseBody = bodyStore.store(response.responseBytes(), generation);
+        } catch (RuntimeException e) {
+            log.warn("Could not store bodies of proxy event, uri: {}", request.uri(), e);
+            return;
+        }
+        ProxyEvent storedEvent = new ProxyEvent(
+                request.withStoredRequestBody(storedRequestBody),
+                response.withStoredResponseBody(storedResponseBody),
+                proxyEvent.timings(),
+                proxyEvent.webSocket(),
+                proxyEvent.responseStream()
+        );
+        synchronized (this.proxyEvents) {
+            for (int i = this.proxyEvents.size() - 1; i >= 0; i--) {
+                if (this.proxyEvents.get(i) == proxyEvent) {
+                    this.proxyEvents.set(i, storedEvent);
+                    // bodies accepted by store are counted by store from now on
+                    long acceptedLength = (storedRequestBody == null ? 0 : storedRequestBody.length())
+                            + (storedResponseBody == null ? 0 : storedResponseBody.length());
+                    this.retainedBytes.add(-acceptedLength);
+                    return;
+                }
+            }
+        }
+        // event removed by reset in the meantime, release is ignored when store was cleared too
+        bodyStore.release(storedRequestBody, generation);
+        bodyStore.release(storedResponseBody, generation);
+    }
+
+    /**
+     * Publish event of streamed response still in progress, statistics are recorded only when the final event
+     * (with the same response stream) is registered, replacing this one
+     */
+    public void registerInProgress(ProxyEvent proxyEvent) {
+        Objects.requireNonNull(proxyEvent.responseStream(), "responseStream cannot be null");
+        log.trace("Registering proxy event in progress, uri: {}", proxyEvent.clientToProxyRequest().uri());
+        if (proxyEventsCollectorConfig.storeEvents()) {
+            this.proxyEvents.add(proxyEvent);
+        }
+    }
+
+    /**
+     * Replace event in progress with the final one, called holding lock of events, so lookup and replacement
+     * are not interleaved with reset or with bodies stored in background
+     */
+    private boolean replaceInProgress(ProxyEvent proxyEvent) {
+        ProxyEventStream responseStream = proxyEvent.responseStream();
+        if (responseStream == null) {
+            return false;
+        }
+        // in progress event is usually the latest one
+        for (int i = proxyEvents.size() - 1; i >= 0; i--) {
+            if (proxyEvents.get(i).responseStream() == responseStream) {
+                proxyEvents.set(i, proxyEvent);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void registerTunnel(ProxyEventTunnel tunnel) {
+        log.trace("Registering tunnel, target: {}, bytes up: {}, bytes down: {}", tunnel.target(), tunnel.bytesUp(), tunnel.bytesDown());
+        for (ProxyEventsSink sink : sinks) {
+            sink.acceptTunnel(tunnel);
+        }
+        if (proxyEventsCollectorConfig.storeEvents()) {
+            this.tunnels.add(tunnel);
+        }
+    }
+
+    /**
+     * Add sink receiving every registered event and tunnel (also of partitions), even if events are not stored.
+     * Events in progress are not passed to sinks, only the final ones.
+     */
+    public void addSink(ProxyEventsSink sink) {
+        Objects.requireNonNull(sink, "sink cannot be null");
+        sinks.add(sink);
+    }
+
+    public void removeSink(ProxyEventsSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Open partition - separate collector (with the same configuration) for events of single client,
+     * e.g., test JVM attached to shared proxy
+     * @return partition collector, existing one if partition was already opened
+     */
+    public ProxyEventsCollector openPartition(String partition) {
+        Objects.requireNonNull(partition, "partition cannot be null");
+        return partitions.computeIfAbsent(partition, p -> new ProxyEventsCollector(proxyEventsCollectorConfig, sinks));
+    }
+
+    public void closePartition(String partition) {
+        ProxyEventsCollector partitionCollector = partitions.remove(partition);
+        if (partitionCollector != null) {
+            partitionCollector.close();
+        }
+    }
+
+    public Optional<ProxyEventsCollector> findPartition(String partition) {
+        return Optional.ofNullable(partitions.get(partition));
+    }
+
+    /**
+     * Collector of opened partition, or this collector when partition is not opened
+     */
+    public ProxyEventsCollector partition(String partition) {
+        if (partition == null || partitions.isEmpty()) {
+            return this;
+        }
+        return partitions.getOrDefault(partition, this);
     }
 
     public void reset() {
-        this.proxyEvents.clear();
+        synchronized (this.proxyEvents) {
+            this.proxyEvents.clear();
+            this.retainedBytes.reset();
+            if (bodyStore != null) {
+                bodyStore.clear();
+            }
+        }
+        this.tunnels.clear();
+        this.statsRecorder.reset();
+    }
+
+    /**
+     * Stop background storing of bodies (also of opened partitions), events registered later keep bodies as captured
+     */
+    public void close() {
+        if (bodyStoreExecutor != null) {
+            bodyStoreExecutor.shutdown();
+        }
+        partitions.values().forEach(ProxyEventsCollector::close);
     }
 
     public ProxyEventsCollectorConfig config() {
@@ -48,7 +249,36 @@ public class ProxyEventsCollector {
     }
 
     public ProxyEventsCaptured eventsCaptured() {
-        return new ProxyEventsCaptured(proxyEvents);
+        return new ProxyEventsCaptured(proxyEvents, tunnels);
+    }
+
+    /**
+     * Statistics of events registered since last reset, available even if events are not stored
+     */
+    public ProxyEventsStats stats() {
+        return statsRecorder.snapshot();
+    }
+
+    /**
+     * Bytes of request and response bodies retained in stored events (including opened partitions),
+     * compressed size for bodies stored compressed, and bodies shared by events (deduplicated) counted once
+     */
+    public long retainedBytes() {
+        long partitionsRetainedBytes = 0;
+        for (ProxyEventsCollector partitionCollector : partitions.values()) {
+            partitionsRetainedBytes += partitionCollector.retainedBytes();
+        }
+        long storedBytes = bodyStore == null ? 0 : bodyStore.storedBytes();
+        return retainedBytes.sum() + storedBytes + partitionsRetainedBytes;
+    }
+
+    private static long storedBodiesLength(ProxyEvent proxyEvent) {
+        return bodyLength(proxyEvent.clientToProxyRequest().requestBytes())
+                + bodyLength(proxyEvent.serverToProxyResponse().responseBytes());
+    }
+
+    private static long bodyLength(byte[] body) {
+        return body == null ? 0 : body.length;
     }
 
 }
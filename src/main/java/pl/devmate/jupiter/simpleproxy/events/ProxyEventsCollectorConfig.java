@@ -15,9 +15,41 @@
  */
 package pl.devmate.jupiter.simpleproxy.events;
 
+/**
+ * Configuration of proxy events collector
+ * @param storeRequestBody should request body be captured in proxy events
+ * @param storeResponseBody should response body be captured in proxy events
+ * @param storeEvents should events be retained, when disabled only statistics are collected
+ * @param bodyCompressionThreshold stored bodies of at least this many bytes are compressed,
+ *                                 {@link #BODY_COMPRESSION_DISABLED} disables compression
+ * @param deduplicateBodies should identical stored bodies share single copy (content-addressed)
+ */
 public record ProxyEventsCollectorConfig (
         boolean storeRequestBody,
-        boolean storeResponseBody
+        boolean storeResponseBody,
+        boolean storeEvents,
+        int bodyCompressionThreshold,
+        boolean deduplicateBodies
 ) {
 
+    public static final int BODY_COMPRESSION_DISABLED = -1;
+
+    public ProxyEventsCollectorConfig {
+        if (bodyCompressionThreshold < BODY_COMPRESSION_DISABLED) {
+            throw new IllegalArgumentException("bodyCompressionThreshold must be -1 (disabled) or not negative");
+        }
+    }
+
+    public ProxyEventsCollectorConfig(boolean storeRequestBody, boolean storeResponseBody, boolean storeEvents) {
+        this(storeRequestBody, storeResponseBody, storeEvents, BODY_COMPRESSION_DISABLED, false);
+    }
+
+    public ProxyEventsCollectorConfig(boolean storeRequestBody, boolean storeResponseBody) {
+        this(storeRequestBody, storeResponseBody, true);
+    }
+
+    public boolean compressBodies() {
+        return bodyCompressionThreshold != BODY_COMPRESSION_DISABLED;
+    }
+
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.net.URI;
+
+/**
+ * Endpoint for which proxy events statistics are aggregated
+ * @param method http method
+ * @param host upstream server host (with port, if requested)
+ * @param path request path, without query
+ */
+public record ProxyEventsEndpoint(
+        String method,
+        String host,
+        String path
+) {
+
+    static ProxyEventsEndpoint of(ProxyEventRequest request) {
+        URI uri = request.uri();
+        String host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        return new ProxyEventsEndpoint(request.method(), host, uri.getPath());
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + host + path;
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+/**
+ * Statistics of proxy events of single endpoint
+ * @param endpoint aggregated endpoint
+ * @param count number of requests
+ * @param errors number of responses with status {@code 4xx} or {@code 5xx}
+ * @param requestBytes request body bytes (captured, or declared in {@code Content-Length} header)
+ * @param responseBytes response body bytes (captured, or declared in {@code Content-Length} header)
+ * @param latency latency histogram (from request received to response written to client)
+ */
+public record ProxyEventsEndpointStats(
+        ProxyEventsEndpoint endpoint,
+        long count,
+        long errors,
+        long requestBytes,
+        long responseBytes,
+        LatencyHistogram latency
+) {
+
+    public double errorRate() {
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    ProxyEventsEndpointStats merge(ProxyEventsEndpoint mergedEndpoint, ProxyEventsEndpointStats other) {
+        return new ProxyEventsEndpointStats(
+                mergedEndpoint,
+                count + other.count,
+                errors + other.errors,
+                requestBytes + other.requestBytes,
+                responseBytes + other.responseBytes,
+                latency.merge(other.latency)
+        );
+    }
+
+}
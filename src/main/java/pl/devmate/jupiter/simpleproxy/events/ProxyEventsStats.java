@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of proxy events statistics aggregated per endpoint (method, host and path).
+ */
+public record ProxyEventsStats(
+        List<ProxyEventsEndpointStats> endpoints
+) {
+
+    private static final ProxyEventsEndpoint ALL_ENDPOINTS = new ProxyEventsEndpoint("*", "*", "");
+
+    public ProxyEventsStats {
+        endpoints = List.copyOf(endpoints);
+    }
+
+    public Optional<ProxyEventsEndpointStats> endpoint(String method, String host, String path) {
+        ProxyEventsEndpoint endpoint = new ProxyEventsEndpoint(method, host, path);
+        return endpoints.stream()
+                .filter(stats -> stats.endpoint().equals(endpoint))
+                .findFirst();
+    }
+
+    /**
+     * Statistics merged for all endpoints
+     */
+    public ProxyEventsEndpointStats total() {
+        ProxyEventsEndpointStats empty = new ProxyEventsEndpointStats(ALL_ENDPOINTS, 0, 0, 0, 0, LatencyHistogram.EMPTY);
+        return endpoints.stream()
+                .reduce(empty, (total, stats) -> total.merge(ALL_ENDPOINTS, stats));
+    }
+
+    public String summary() {
+        String endpointsSummary = endpoints.stream()
+                .sorted(Comparator.comparing(stats -> stats.endpoint().toString()))
+                .map(this::shortInfo)
+                .collect(Collectors.joining("\n\t", "\n\t", ""));
+        return "Statistics of " + endpoints.size() + " endpoints:" + endpointsSummary;
+    }
+
+    private String shortInfo(ProxyEventsEndpointStats stats) {
+        return "%s, count: %d, errors: %d, p50: %s, p90: %s, p99: %s, max: %s".formatted(
+                stats.endpoint(),
+                stats.count(),
+                stats.errors(),
+                stats.latency().p50(),
+                stats.latency().p90(),
+                stats.latency().p99(),
+                stats.latency().max()
+        );
+    }
+
+}
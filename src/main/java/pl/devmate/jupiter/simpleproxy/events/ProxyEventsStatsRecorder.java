@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming, constant memory (per endpoint) statistics of registered proxy events.
+ * Updated concurrently on every registered event, without retaining the events.
+ */
+class ProxyEventsStatsRecorder {
+
+    private final Map<ProxyEventsEndpoint, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+
+    void record(ProxyEvent proxyEvent) {
+        ProxyEventsEndpoint endpoint = ProxyEventsEndpoint.of(proxyEvent.clientToProxyRequest());
+        endpoints.computeIfAbsent(endpoint, EndpointRecorder::new).record(proxyEvent);
+    }
+
+    void reset() {
+        endpoints.clear();
+    }
+
+    ProxyEventsStats snapshot() {
+        return new ProxyEventsStats(endpoints.values().stream()
+                .map(EndpointRecorder::snapshot)
+                .toList());
+    }
+
+    private static final class EndpointRecorder {
+
+        private final ProxyEventsEndpoint endpoint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyRecorder latency = new LatencyRecorder();
+
+        private EndpointRecorder(ProxyEventsEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void record(ProxyEvent proxyEvent) {
+            count.increment();
+            if (proxyEvent.serverToProxyResponse().httpStatusCode() >= 400) {
+                errors.increment();
+            }
+            requestBytes.add(requestBytes(proxyEvent));
+            responseBytes.add(responseBytes(proxyEvent));
+
+            latency.record(latencyNanos(proxyEvent));
+        }
+
+        private ProxyEventsEndpointStats snapshot() {
+            return new ProxyEventsEndpointStats(
+                    endpoint,
+                    count.sum(),
+                    errors.sum(),
+                    requestBytes.sum(),
+                    responseBytes.sum(),
+                    latency.snapshot()
+            );
+        }
+
+    }
+
+    static long requestBytes(ProxyEvent proxyEvent) {
+        ProxyEventRequest request = proxyEvent.clientToProxyRequest();
+        return bodyLength(request.requestBytes(), request.headers());
+    }
+
+    static long responseBytes(ProxyEvent proxyEvent) {
+        // streamed response body is not buffered, its length is counted by stream
+        if (proxyEvent.responseStream() != null) {
+            return proxyEvent.responseStream().totalBytes();
+        }
+        ProxyEventResponse response = proxyEvent.serverToProxyResponse();
+        return bodyLength(response.responseBytes(), response.headers());
+    }
+
+    static long latencyNanos(ProxyEvent proxyEvent) {
+        Duration total = proxyEvent.timings().total();
+        if (total != null) {
+            return Math.max(total.toNanos(), 0);
+        }
+        Duration between = Duration.between(proxyEvent.clientToProxyRequest().instant(), proxyEvent.serverToProxyResponse().instant());
+        return Math.max(between.toNanos(), 0);
+    }
+
+    private static long bodyLength(byte[] body, ProxyEventHttpHeaders headers) {
+        if (body != null && body.length > 0) {
+            return body.length;
+        }
+        return headers.findByName("Content-Length")
+                .map(ProxyEventHttpHeader::value)
+                .map(ProxyEventsStatsRecorder::parseLength)
+                .orElse(0L);
+    }
+
+    private static long parseLength(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink streaming events to {@link ProxyEventsAggregator} (e.g., in another JVM) over local TCP or unix domain socket.<br>
+ * Events are encoded with {@link ProxyEventsCodec} on proxy threads into current batch, batch is sent by background
+ * thread as length-prefixed frame when it reaches configured size or flush interval elapses.
+ * When aggregator is unreachable, batches are dropped (and counted), connection is retried with the next batch.
+ */
+public final class ProxyEventsStreamSink implements ProxyEventsSink, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProxyEventsStreamSink.class);
+    static final byte EVENT_RECORD = 1;
+    static final byte TUNNEL_RECORD = 2;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final ProxyEventsStreamSinkConfig config;
+    private final Object lock = new Object();
+    private ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private DataOutputStream batchOut = new DataOutputStream(batch);
+    private int batchRecords = 0;
+    private boolean closed = false;
+    private final LongAdder droppedRecords = new LongAdder();
+    private final LongAdder sentRecords = new LongAdder();
+    private final Thread writer;
+    private SocketChannel channel = null;
+
+    public ProxyEventsStreamSink(ProxyEventsStreamSinkConfig config) {
+        Objects.requireNonNull(config, "config cannot be null");
+        this.config = config;
+        this.writer = new Thread(this::writeBatches, "simple-proxy-events-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void accept(ProxyEvent proxyEvent) {
+        append(EVENT_RECORD, proxyEvent, null);
+    }
+
+    @Override
+    public void acceptTunnel(ProxyEventTunnel tunnel) {
+        append(TUNNEL_RECORD, null, tunnel);
+    }
+
+    private void append(byte recordType, ProxyEvent proxyEvent, ProxyEventTunnel tunnel) {
+        synchronized (lock) {
+            if (closed || batch.size() >= config.maxPendingBytes()) {
+                droppedRecords.increment();
+                return;
+            }
+            try {
+                batchOut.writeByte(recordType);
+                if (recordType == EVENT_RECORD) {
+                    ProxyEventsCodec.writeEvent(proxyEvent, batchOut);
+                } else {
+                    ProxyEventsCodec.writeTunnel(tunnel, batchOut);
+                }
+            } catch (IOException e) {
+                // not thrown by in-memory stream
+                throw new UncheckedIOException(e);
+            }
+            batchRecords++;
+            if (batch.size() >= config.batchBytes()) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void writeBatches() {
+        long flushIntervalNanos = config.flushInterval().toNanos();
+        while (true) {
+            byte[] frame;
+            int frameRecords;
+            boolean last;
+            synchronized (lock) {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                long remaining = flushIntervalNanos;
+                while (!closed && batch.size() < config.batchBytes() && remaining > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        closed = true;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+                frame = batch.toByteArray();
+                frameRecords = batchRecords;
+                batch = new ByteArrayOutputStream(Math.min(config.batchBytes(), frame.length));
+                batchOut = new DataOutputStream(batch);
+                batchRecords = 0;
+                last = closed;
+            }
+            if (frameRecords > 0) {
+                send(frame, frameRecords);
+            }
+            if (last) {
+                closeChannel();
+                return;
+            }
+        }
+    }
+
+    private void send(byte[] frame, int frameRecords) {
+        try {
+            if (channel == null) {
+                channel = SocketChannel.open(config.aggregatorAddress());
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                ProxyEventsCodec.writeHeader(new DataOutputStream(header));
+                writeFully(ByteBuffer.wrap(header.toByteArray()));
+            }
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(0, frame.length);
+            writeFully(length);
+            writeFully(ByteBuffer.wrap(frame));
+            sentRecords.add(frameRecords);
+        } catch (IOException e) {
+            log.warn("Could not send {} proxy events to aggregator {}: {}", frameRecords, config.aggregatorAddress(), e.toString());
+            droppedRecords.add(frameRecords);
+            closeChannel();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Could not close connection to aggregator", e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Number of events and tunnels sent to aggregator
+     */
+    public long sent() {
+        return sentRecords.sum();
+    }
+
+    /**
+     * Number of events and tunnels dropped, because too many were pending or aggregator was unreachable
+     */
+    public long dropped() {
+        return droppedRecords.sum();
+    }
+
+    /**
+     * Send pending batch and close connection to aggregator
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy.events;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration of {@link ProxyEventsStreamSink}
+ * @param aggregatorAddress address of {@link ProxyEventsAggregator}, TCP ({@link java.net.InetSocketAddress})
+ *                          or unix domain socket ({@link java.net.UnixDomainSocketAddress})
+ * @param batchBytes batch is sent when it reaches this size of encoded events, default {@code 65536}
+ * @param flushInterval batch is sent at least this often (if not empty), default 200 milliseconds
+ * @param maxPendingBytes events are dropped when this size of encoded events is waiting to be sent
+ *                        (e.g., aggregator is slow or unreachable), at most {@code 256 MiB} (max frame accepted
+ *                        by aggregator), default {@code 16 MiB}
+ */
+public record ProxyEventsStreamSinkConfig(
+        SocketAddress aggregatorAddress,
+        int batchBytes,
+        Duration flushInterval,
+        int maxPendingBytes
+) {
+
+    public ProxyEventsStreamSinkConfig {
+        Objects.requireNonNull(aggregatorAddress, "aggregatorAddress cannot be null");
+        if (batchBytes < 1) {
+            throw new IllegalArgumentException("batchBytes must be positive");
+        }
+        Objects.requireNonNull(flushInterval, "flushInterval cannot be null");
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+        if (maxPendingBytes < batchBytes) {
+            throw new IllegalArgumentException("maxPendingBytes cannot be lower than batchBytes");
+        }
+        if (maxPendingBytes > ProxyEventsAggregator.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("maxPendingBytes cannot be greater than " + ProxyEventsAggregator.MAX_FRAME_BYTES);
+        }
+    }
+
+    public static ProxyEventsStreamSinkConfig of(SocketAddress aggregatorAddress) {
+        return new ProxyEventsStreamSinkConfig(aggregatorAddress, 65536, Duration.ofMillis(200), 16 * 1024 * 1024);
+    }
+
+    public ProxyEventsStreamSinkConfig withBatching(int batchBytes, Duration flushInterval) {
+        return new ProxyEventsStreamSinkConfig(aggregatorAddress, batchBytes, flushInterval, Math.max(maxPendingBytes, batchBytes));
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+/**
+ * Guards bytes allocated by proxy threads per proxied request (measured with
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long[])}), so allocation on the hot path
+ * does not creep up unnoticed. Budgets are set with margin over measured values, when failing after
+ * a change, measure again and either fix the regression or raise the budget deliberately.
+ */
+@WireMockTest
+class SimpleHttpProxyAllocationBudgetTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleHttpProxyAllocationBudgetTest.class);
+    private static final String PROXY_THREAD_NAME_PREFIX = "simple-proxy";
+    private static final int WARMUP_REQUESTS = 300;
+    private static final int MEASURED_REQUESTS = 500;
+    private static final String BODY = "x".repeat(4096);
+
+    // bytes per request, measured: capture off ~14.6 KB, headers only ~15.6 KB, full body capture ~40.4 KB
+    private static final long CAPTURE_OFF_BUDGET = 20_000;
+    private static final long HEADERS_ONLY_BUDGET = 21_000;
+    private static final long FULL_BODY_CAPTURE_BUDGET = 52_000;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeEach
+    void setUp() {
+        assumeThat(threadMXBean.isThreadAllocatedMemorySupported()).isTrue();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        stubFor(post(urlEqualTo(MOCKED_PATH))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody(BODY)
+                        .withHeader("Content-Type", "text/plain")));
+    }
+
+    @Nested
+    class CaptureOff {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeEvents(false)
+                .build());
+
+        @Test
+        void shouldStayWithinAllocationBudget(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            assertThat(measureBytesPerRequest(wmRuntimeInfo, simpleProxyExtension)).isLessThanOrEqualTo(CAPTURE_OFF_BUDGET);
+        }
+
+    }
+
+    @Nested
+    class HeadersOnlyCapture {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .build());
+
+        @Test
+        void shouldStayWithinAllocationBudget(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            assertThat(measureBytesPerRequest(wmRuntimeInfo, simpleProxyExtension)).isLessThanOrEqualTo(HEADERS_ONLY_BUDGET);
+        }
+
+    }
+
+    @Nested
+    class FullBodyCapture {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeRequestBody(true)
+                .storeResponseBody(true)
+                .build());
+
+        @Test
+        void shouldStayWithinAllocationBudget(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            assertThat(measureBytesPerRequest(wmRuntimeInfo, simpleProxyExtension)).isLessThanOrEqualTo(FULL_BODY_CAPTURE_BUDGET);
+        }
+
+    }
+
+    private long measureBytesPerRequest(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        HttpClient client = HttpClient.newBuilder().proxy(simpleProxyExtension.buildHttpProxySelector()).build();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH))
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+
+        sendRequests(simpleProxyExtension, client, request, WARMUP_REQUESTS);
+        simpleProxyExtension.resetCapturedEvents();
+
+        Map<Long, Long> allocatedBefore = proxyThreadsAllocatedBytes();
+        sendRequests(simpleProxyExtension, client, request, MEASURED_REQUESTS);
+        Map<Long, Long> allocatedAfter = proxyThreadsAllocatedBytes();
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : allocatedAfter.entrySet()) {
+            allocated += entry.getValue() - allocatedBefore.getOrDefault(entry.getKey(), 0L);
+        }
+        long bytesPerRequest = allocated / MEASURED_REQUESTS;
+        log.info("Proxy threads allocated {} bytes per request", bytesPerRequest);
+        return bytesPerRequest;
+    }
+
+    private static void sendRequests(SimpleProxyExtension simpleProxyExtension, HttpClient client, HttpRequest request, int count) throws Exception {
+        long registered = simpleProxyExtension.eventsStats().total().count();
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+        // wait until proxy events of all requests are registered
+        awaitUntil(() -> simpleProxyExtension.eventsStats().total().count() == registered + count);
+    }
+
+    private Map<Long, Long> proxyThreadsAllocatedBytes() {
+        Map<Long, Long> allocatedBytes = new HashMap<>();
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(PROXY_THREAD_NAME_PREFIX))
+                .forEach(thread -> allocatedBytes.put(thread.getId(), threadMXBean.getThreadAllocatedBytes(thread.getId())));
+        return allocatedBytes;
+    }
+
+}
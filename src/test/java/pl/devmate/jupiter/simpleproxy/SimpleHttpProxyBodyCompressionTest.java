@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollector;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyBodyCompressionTest {
+
+    private static final String JSON_BODY = IntStream.range(0, 500)
+            .mapToObj(i -> "{\"id\":" + i + ",\"name\":\"item " + i + "\",\"status\":\"ACTIVE\",\"tags\":[\"fixture\",\"json\"]}")
+            .collect(Collectors.joining(",", "[", "]"));
+
+    @Nested
+    class WithCompression {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeRequestBody(true)
+                .storeResponseBody(true)
+                .bodyCompressionThreshold(1024)
+                .build());
+
+        @Test
+        void shouldStoreLargeBodiesCompressed(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            stubFor(post(urlEqualTo(MOCKED_PATH)).willReturn(okJson(JSON_BODY)));
+            stubFor(get(urlEqualTo(MOCKED_PATH)).willReturn(ok("small")));
+            String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+            sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, JSON_BODY);
+            sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url);
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 2);
+
+            long uncompressedBytes = 2L * JSON_BODY.length() + "small".length();
+            awaitUntil(() -> simpleProxyExtension.runtimeInfo().metrics().capturedBytesRetained() * 5 < uncompressedBytes);
+
+            ProxyEvent post = simpleProxyExtension.eventsCaptured().proxyEventsMatching(event -> event.clientToProxyRequest().method().equals("POST")).get(0);
+            assertThat(post.clientToProxyRequest().storedRequestBody().compressed()).isTrue();
+            assertThat(new String(post.clientToProxyRequest().requestBytes(), StandardCharsets.UTF_8)).isEqualTo(JSON_BODY);
+            assertThat(post.serverToProxyResponse().storedResponseBody().compressed()).isTrue();
+            assertThat(new String(post.serverToProxyResponse().responseBytes(), StandardCharsets.UTF_8)).isEqualTo(JSON_BODY);
+            assertThat(new String(post.serverToProxyResponse().decodedBody(), StandardCharsets.UTF_8)).isEqualTo(JSON_BODY);
+
+            ProxyEvent get = simpleProxyExtension.eventsCaptured().proxyEventsMatching(event -> event.clientToProxyRequest().method().equals("GET")).get(0);
+            assertThat(get.serverToProxyResponse().storedResponseBody()).isNull();
+            assertThat(new String(get.serverToProxyResponse().responseBytes(), StandardCharsets.UTF_8)).isEqualTo("small");
+
+            simpleProxyExtension.resetCapturedEvents();
+            assertThat(simpleProxyExtension.runtimeInfo().metrics().capturedBytesRetained()).isZero();
+        }
+
+    }
+
+    @Nested
+    class WithoutCompression {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeRequestBody(true)
+                .storeResponseBody(true)
+                .build());
+
+        @Test
+        void shouldStoreBodiesAsCaptured(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            stubFor(post(urlEqualTo(MOCKED_PATH)).willReturn(okJson(JSON_BODY)));
+            String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+            sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, JSON_BODY);
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 1);
+
+            assertThat(simpleProxyExtension.runtimeInfo().metrics().capturedBytesRetained()).isEqualTo(2L * JSON_BODY.length());
+        }
+
+    }
+
+    @Test
+    void shouldKeepBodiesAsCapturedWhenCollectorIsClosed() {
+        ProxyEventsCollector collector = new ProxyEventsCollector(new ProxyEventsCollectorConfig(true, true, true, 1024, false));
+        collector.close();
+        byte[] body = JSON_BODY.getBytes(StandardCharsets.UTF_8);
+
+        collector.register(proxyEvent(body, body));
+
+        ProxyEvent event = collector.eventsCaptured().proxyEvents().get(0);
+        assertThat(event.clientToProxyRequest().requestBytes()).isSameAs(body);
+        assertThat(event.serverToProxyResponse().storedResponseBody()).isNull();
+        assertThat(collector.retainedBytes()).isEqualTo(2L * body.length);
+    }
+
+    @Test
+    void shouldReadCompressedBodiesWithRecordAccessors() throws Exception {
+        ProxyEventsCollector collector = new ProxyEventsCollector(new ProxyEventsCollectorConfig(true, true, true, 1024, false));
+        byte[] body = JSON_BODY.getBytes(StandardCharsets.UTF_8);
+        try {
+            collector.register(proxyEvent(body, body));
+
+            ProxyEvent event = awaitStored(collector);
+            assertThat(event.serverToProxyResponse().storedResponseBody().compressed()).isTrue();
+            assertThat(event.clientToProxyRequest().requestBytes()).isEqualTo(body);
+            assertThat(event.serverToProxyResponse().responseBytes()).isEqualTo(body);
+        } finally {
+            collector.close();
+        }
+    }
+
+    @Test
+    void shouldCountOnlyCompressedBodiesOfEventInStore() throws Exception {
+        ProxyEventsCollector collector = new ProxyEventsCollector(new ProxyEventsCollectorConfig(true, true, true, 1024, false));
+        byte[] small = "small".getBytes(StandardCharsets.UTF_8);
+        try {
+            collector.register(proxyEvent(JSON_BODY.getBytes(StandardCharsets.UTF_8), small));
+
+            ProxyEvent event = awaitStored(collector);
+            assertThat(event.serverToProxyResponse().storedResponseBody()).isNull();
+            assertThat(collector.retainedBytes())
+                    .isEqualTo(event.clientToProxyRequest().storedRequestBody().storedLength() + small.length);
+        } finally {
+            collector.close();
+        }
+    }
+
+    @Test
+    void shouldIgnoreBodiesStoredForEventsRemovedByReset() throws Exception {
+        ProxyEventsCollector collector = new ProxyEventsCollector(new ProxyEventsCollectorConfig(true, true, true, 1024, false));
+        byte[] body = JSON_BODY.getBytes(StandardCharsets.UTF_8);
+        try {
+            for (int i = 0; i < 500; i++) {
+                collector.register(proxyEvent(body, body));
+            }
+            // bodies are stored in background, resets happen also while bodies of removed events are stored
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            while (System.nanoTime() < deadline) {
+                collector.reset();
+                assertThat(collector.retainedBytes()).isNotNegative();
+            }
+
+            // single store thread, when the last event is stored, bodies of removed events were stored before
+            collector.register(proxyEvent(body, null));
+            ProxyEvent event = awaitStored(collector);
+            assertThat(collector.retainedBytes()).isEqualTo(event.clientToProxyRequest().storedRequestBody().storedLength());
+            collector.reset();
+            assertThat(collector.retainedBytes()).isZero();
+        } finally {
+            collector.close();
+        }
+    }
+
+    private static ProxyEvent awaitStored(ProxyEventsCollector collector) throws InterruptedException {
+        awaitUntil(() -> collector.eventsCaptured().proxyEvents().get(0).clientToProxyRequest().storedRequestBody() != null);
+        ProxyEvent event = collector.eventsCaptured().proxyEvents().get(0);
+        assertThat(event.clientToProxyRequest().storedRequestBody().compressed()).isTrue();
+        return event;
+    }
+
+    private static ProxyEvent proxyEvent(byte[] requestBody, byte[] responseBody) {
+        ProxyEventHttpHeaders headers = new ProxyEventHttpHeaders(List.of());
+        return new ProxyEvent(
+                new ProxyEventRequest(Instant.now(), URI.create("http://localhost" + MOCKED_PATH), "POST", headers, requestBody),
+                new ProxyEventResponse(Instant.now(), 200, headers, responseBody));
+    }
+
+}
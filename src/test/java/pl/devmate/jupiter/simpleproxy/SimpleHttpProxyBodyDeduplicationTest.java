@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyBodyDeduplicationTest {
+
+    private static final String FIXTURE_BODY = "{\"token\":\"" + "a1b2c3d4".repeat(256) + "\"}";
+    private static final int REQUESTS = 20;
+
+    @Nested
+    class WithDeduplication {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeRequestBody(true)
+                .storeResponseBody(true)
+                .deduplicateBodies(true)
+                .build());
+
+        @Test
+        void shouldStoreIdenticalBodiesOnce(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockHttpServerPostResponse();
+            String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+            for (int i = 0; i < REQUESTS; i++) {
+                sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, FIXTURE_BODY);
+            }
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == REQUESTS);
+
+            long distinctBodiesBytes = FIXTURE_BODY.length() + MOCKED_POST_RESPONSE_BODY.length();
+            awaitUntil(() -> retainedBytes(simpleProxyExtension) == distinctBodiesBytes);
+
+            List<ProxyEvent> events = simpleProxyExtension.eventsCaptured().proxyEvents();
+            assertThat(events).allSatisfy(event -> {
+                assertThat(new String(event.clientToProxyRequest().requestBytes(), StandardCharsets.UTF_8)).isEqualTo(FIXTURE_BODY);
+                assertThat(new String(event.serverToProxyResponse().responseBytes(), StandardCharsets.UTF_8)).isEqualTo(MOCKED_POST_RESPONSE_BODY);
+            });
+
+            simpleProxyExtension.resetCapturedEvents();
+            assertThat(retainedBytes(simpleProxyExtension)).isZero();
+
+            sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, FIXTURE_BODY);
+            awaitUntil(() -> retainedBytes(simpleProxyExtension) == distinctBodiesBytes);
+        }
+
+    }
+
+    @Nested
+    class WithDeduplicationAndCompression {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeRequestBody(true)
+                .deduplicateBodies(true)
+                .bodyCompressionThreshold(1024)
+                .build());
+
+        @Test
+        void shouldStoreIdenticalBodiesOnceCompressed(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockHttpServerPostResponse();
+            String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+            for (int i = 0; i < REQUESTS; i++) {
+                sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, FIXTURE_BODY);
+            }
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == REQUESTS);
+
+            awaitUntil(() -> retainedBytes(simpleProxyExtension) > 0 && retainedBytes(simpleProxyExtension) < FIXTURE_BODY.length());
+            assertThat(simpleProxyExtension.eventsCaptured().proxyEvents())
+                    .allSatisfy(event -> assertThat(new String(event.clientToProxyRequest().requestBytes(), StandardCharsets.UTF_8)).isEqualTo(FIXTURE_BODY));
+        }
+
+    }
+
+    private static long retainedBytes(SimpleProxyExtension simpleProxyExtension) {
+        return simpleProxyExtension.runtimeInfo().metrics().capturedBytesRetained();
+    }
+
+}
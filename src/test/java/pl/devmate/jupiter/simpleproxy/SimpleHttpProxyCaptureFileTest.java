@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureReader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptureWriter;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyCaptureFileTest {
+
+    private static final Path CAPTURE_FILE = tempDirectory("simple-proxy-capture").resolve("capture.spc");
+
+    @RegisterExtension
+    static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+            .storeRequestBody(true)
+            .storeResponseBody(true)
+            .captureFile(CAPTURE_FILE)
+            .build());
+
+    @Test
+    void shouldAppendEventsToCaptureFile(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        mockHttpServerPostResponse();
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+        sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url);
+        sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, "captured request");
+        awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 2);
+        ProxyEventsStats liveStats = simpleProxyExtension.eventsStats();
+        // block is written when writer is idle
+        awaitUntil(() -> capturedEventCount(CAPTURE_FILE) == 2);
+
+        try (ProxyEventsCaptureReader reader = ProxyEventsCaptureReader.open(CAPTURE_FILE)) {
+            assertThat(reader.eventCount()).isEqualTo(2);
+            List<ProxyEvent> posts = reader.query().method("POST").events();
+            assertThat(posts).hasSize(1);
+            ProxyEvent post = posts.get(0);
+            assertThat(post.clientToProxyRequest().uri()).hasToString(url);
+            assertThat(new String(post.clientToProxyRequest().requestBytes(), StandardCharsets.UTF_8)).isEqualTo("captured request");
+            assertThat(new String(post.serverToProxyResponse().responseBytes(), StandardCharsets.UTF_8)).isEqualTo(MOCKED_POST_RESPONSE_BODY);
+            assertThat(post.serverToProxyResponse().headers().findByName("Content-Type")).isPresent();
+            assertThat(post.timings().total()).isPositive();
+
+            assertThat(reader.query().host("localhost").port(wmRuntimeInfo.getHttpPort()).pathStartingWith("/example").count()).isEqualTo(2);
+            assertThat(reader.query().host("unknown.host").count()).isZero();
+            assertThat(reader.query().status(500, 599).count()).isZero();
+
+            ProxyEventsStats fileStats = reader.query().stats();
+            assertThat(fileStats.endpoints()).hasSameSizeAs(liveStats.endpoints());
+            liveStats.endpoints().forEach(live -> assertThat(fileStats.endpoint(live.endpoint().method(), live.endpoint().host(), live.endpoint().path()))
+                    .hasValueSatisfying(stats -> {
+                        assertThat(stats.count()).isEqualTo(live.count());
+                        assertThat(stats.requestBytes()).isEqualTo(live.requestBytes());
+                        assertThat(stats.responseBytes()).isEqualTo(live.responseBytes());
+                        assertThat(stats.latency().sum()).isEqualTo(live.latency().sum());
+                    }));
+        }
+    }
+
+    @Test
+    void shouldQueryEventsOfManyBlocksAndAppendedWrites(@TempDir Path tempDir) throws Exception {
+        Path captureFile = tempDir.resolve("capture.spc");
+        try (ProxyEventsCaptureWriter writer = ProxyEventsCaptureWriter.open(captureFile)) {
+            for (int i = 0; i < 5000; i++) {
+                writer.accept(proxyEvent("/items/" + i, i % 10 == 0 ? 500 : 200, Duration.ofMillis(i % 100)));
+            }
+        }
+        try (ProxyEventsCaptureWriter writer = ProxyEventsCaptureWriter.open(captureFile)) {
+            writer.accept(proxyEvent("/appended", 201, Duration.ofSeconds(1)));
+        }
+        // incomplete block of crashed writer
+        Files.write(captureFile, new byte[]{0x53, 0x50, 0x43}, StandardOpenOption.APPEND);
+
+        try (ProxyEventsCaptureReader reader = ProxyEventsCaptureReader.open(captureFile)) {
+            assertThat(reader.eventCount()).isEqualTo(5001);
+            assertThat(reader.event(4500).clientToProxyRequest().uri().getPath()).isEqualTo("/items/4500");
+            assertThat(reader.event(5000).clientToProxyRequest().uri().getPath()).isEqualTo("/appended");
+            assertThat(reader.event(5000).clientToProxyRequest().headers().findByName("X-Test"))
+                    .map(ProxyEventHttpHeader::value)
+                    .hasValue("/appended");
+            assertThat(reader.event(4500).clientToProxyRequest().requestBytes()).isNull();
+            assertThat(reader.event(4500).serverToProxyResponse().responseBytes())
+                    .asString(StandardCharsets.UTF_8)
+                    .isEqualTo("/items/4500");
+
+            assertThat(reader.query().status(500, 599).count()).isEqualTo(500);
+            assertThat(reader.query().path("/items/4321").events())
+                    .extracting(event -> event.serverToProxyResponse().httpStatusCode())
+                    .containsExactly(200);
+            assertThat(reader.query().slowerThan(Duration.ofMillis(500)).events())
+                    .extracting(event -> event.clientToProxyRequest().uri().getPath())
+                    .containsExactly("/appended");
+            assertThat(reader.query().pathStartingWith("/items/").latency().count()).isEqualTo(5000);
+            assertThat(reader.query().latency().max()).isEqualTo(Duration.ofSeconds(1));
+        }
+    }
+
+    @Test
+    void shouldWriteEventsOnFlushAndDropEventsAcceptedAfterClose(@TempDir Path tempDir) throws Exception {
+        Path captureFile = tempDir.resolve("capture.spc");
+        ProxyEventsCaptureWriter writer = ProxyEventsCaptureWriter.open(captureFile);
+        writer.accept(proxyEvent("/flushed", 200, Duration.ofMillis(5)));
+        writer.flush();
+        assertThat(writer.writtenEvents()).isEqualTo(1);
+        try (ProxyEventsCaptureReader reader = ProxyEventsCaptureReader.open(captureFile)) {
+            assertThat(reader.eventCount()).isEqualTo(1);
+        }
+
+        writer.close();
+        writer.accept(proxyEvent("/late", 200, Duration.ofMillis(5)));
+
+        assertThat(writer.dropped()).isEqualTo(1);
+        try (ProxyEventsCaptureReader reader = ProxyEventsCaptureReader.open(captureFile)) {
+            assertThat(reader.eventCount()).isEqualTo(1);
+        }
+    }
+
+    private static long capturedEventCount(Path captureFile) {
+        try (ProxyEventsCaptureReader reader = ProxyEventsCaptureReader.open(captureFile)) {
+            return reader.eventCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ProxyEvent proxyEvent(String path, int status, Duration latency) {
+        Instant requested = Instant.parse("2025-01-01T00:00:00Z");
+        ProxyEventHttpHeaders headers = new ProxyEventHttpHeaders(List.of(new ProxyEventHttpHeader("X-Test", List.of(path))));
+        return new ProxyEvent(
+                new ProxyEventRequest(requested, URI.create("http://service.local:8080" + path), "GET", headers, null),
+                new ProxyEventResponse(requested.plus(latency), status, headers, path.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyDaemonTest {
+
+    @Test
+    void shouldCaptureEventsInPartitionOfAttachedClient(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        mockHttpServerPostResponse();
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+        SimpleProxyDaemon daemon = SimpleProxyDaemon.fromArgs("--control-port", "0", "--store-request-body", "--store-response-body");
+        daemon.start();
+        try (SimpleProxyDaemonClient first = SimpleProxyDaemonClient.attach(daemon.controlPort());
+             SimpleProxyDaemonClient second = SimpleProxyDaemonClient.attach(daemon.controlPort())) {
+            assertThat(first.partition()).isNotEqualTo(second.partition());
+            assertThat(first.proxyPort()).isNotEqualTo(second.proxyPort());
+
+            sendGetRequestWithProxy(first.buildHttpProxySelector(), url);
+            sendPostRequestWithProxy(second.buildHttpProxySelector(), url, "posted by second");
+
+            awaitUntil(() -> first.eventsCaptured().proxyEvents().size() == 1);
+            ProxyEvent firstEvent = first.eventsCaptured().proxyEvents().get(0);
+            assertThat(firstEvent.clientToProxyRequest().method()).isEqualTo("GET");
+            assertThat(firstEvent.clientToProxyRequest().uri()).hasToString(url);
+            assertThat(firstEvent.serverToProxyResponse().httpStatusCode()).isEqualTo(200);
+            assertThat(new String(firstEvent.serverToProxyResponse().responseBytes())).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+            assertThat(firstEvent.timings().total()).isPositive();
+
+            awaitUntil(() -> second.eventsCaptured().proxyEvents().size() == 1);
+            ProxyEvent secondEvent = second.eventsCaptured().proxyEvents().get(0);
+            assertThat(secondEvent.clientToProxyRequest().method()).isEqualTo("POST");
+            assertThat(new String(secondEvent.clientToProxyRequest().requestBytes())).isEqualTo("posted by second");
+
+            first.reset();
+            assertThat(first.eventsCaptured().proxyEvents()).isEmpty();
+            assertThat(second.eventsCaptured().proxyEvents()).hasSize(1);
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    void shouldStopAcceptingRequestsOnPartitionPortWhenClientIsClosed(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        SimpleProxyDaemon daemon = new SimpleProxyDaemon(SimpleProxyConfig.DEFAULT, 0);
+        daemon.start();
+        try {
+            SimpleProxyDaemonClient client = SimpleProxyDaemonClient.attach(daemon.controlPort());
+            sendGetRequestWithProxy(client.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH);
+            client.close();
+
+            assertThatThrownBy(() -> sendGetRequestWithProxy(client.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH))
+                    .isInstanceOf(IOException.class);
+            assertThatThrownBy(client::eventsCaptured)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("404");
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownOption() {
+        assertThatThrownBy(() -> SimpleProxyDaemon.fromArgs("--unknown"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("--unknown");
+    }
+
+}
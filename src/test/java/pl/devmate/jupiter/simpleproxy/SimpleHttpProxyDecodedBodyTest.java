@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(storeResponseBody = true)
+class SimpleHttpProxyDecodedBodyTest {
+
+    private static final String BODY = "{\"message\":\"" + "compressed ".repeat(100) + "\"}";
+
+    @Test
+    void shouldCaptureCompressedBodyAndDecodeItOnce(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        byte[] gzipped = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        stubFor(get(urlEqualTo(MOCKED_PATH)).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzipped)));
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+        sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url);
+
+        ProxyEventResponse response = simpleProxyExtension.eventsCaptured().proxyEventsWithUrlContaining(MOCKED_PATH).get(0).serverToProxyResponse();
+        assertThat(response.responseBytes()).isEqualTo(gzipped);
+        byte[] decoded = response.decodedBody();
+        assertThat(new String(decoded, StandardCharsets.UTF_8)).isEqualTo(BODY);
+        assertThat(response.decodedBody()).isSameAs(decoded);
+    }
+
+    @Test
+    void shouldDecodeBodyAccordingToContentEncoding() throws Exception {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(response(body, null).decodedBody()).isSameAs(body);
+        assertThat(response(body, "identity").decodedBody()).isSameAs(body);
+        assertThat(response(deflate(body), "deflate").decodedBody()).isEqualTo(body);
+        assertThat(response(deflate(gzip(body)), "gzip, deflate").decodedBody()).isEqualTo(body);
+        assertThat(response(null, "gzip").decodedBody()).isNull();
+        assertThatThrownBy(() -> response(body, "br").decodedBody())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("br");
+    }
+
+    private static ProxyEventResponse response(byte[] body, String contentEncoding) {
+        List<ProxyEventHttpHeader> headers = contentEncoding == null
+                ? List.of()
+                : List.of(new ProxyEventHttpHeader("Content-Encoding", List.of(contentEncoding)));
+        return new ProxyEventResponse(Instant.now(), 200, new ProxyEventHttpHeaders(headers), body);
+    }
+
+    private static byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(body);
+        }
+        return out.toByteArray();
+    }
+
+}
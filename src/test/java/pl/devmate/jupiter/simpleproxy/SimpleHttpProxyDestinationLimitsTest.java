@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyDestinationLimitsTest {
+
+    @Nested
+    class WithRateLimit {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .destinationLimits(SimpleProxyDestinationLimits.requestsPerSecond(0.01))
+                .build());
+
+        @Test
+        void shouldRejectRequestsOverRateLimit(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockHttpServerGetResponse();
+            String endpointUrl = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+            HttpResponse<String> response1 = sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), endpointUrl);
+            HttpResponse<String> response2 = sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), endpointUrl);
+
+            assertThat(response1.statusCode()).isEqualTo(200);
+            assertThat(response2.statusCode()).isEqualTo(429);
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 2);
+            List<ProxyEvent> events = simpleProxyExtension.eventsCaptured().proxyEvents();
+            assertThat(events).hasSize(2);
+            assertThat(events.get(1).serverToProxyResponse().httpStatusCode()).isEqualTo(429);
+            verify(1, getRequestedFor(urlEqualTo(MOCKED_PATH)));
+        }
+
+    }
+
+    @Nested
+    class WithInFlightLimit {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .destinationLimits(new SimpleProxyDestinationLimits(1, 0, 1, Duration.ofSeconds(10)))
+                .build());
+
+        @Test
+        void shouldQueueConcurrentRequestsOverInFlightLimit(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            stubFor(get(urlEqualTo(MOCKED_PATH))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withFixedDelay(200)
+                            .withBody(MOCKED_GET_RESPONSE_BODY)));
+            HttpClient client = HttpClient.newBuilder().proxy(simpleProxyExtension.buildHttpProxySelector()).build();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH))
+                    .GET()
+                    .build();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, 3)
+                    .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .toList();
+
+            assertThat(responses)
+                    .extracting(response -> response.get().statusCode())
+                    .containsOnly(200);
+            // one request in flight at a time, each reaches upstream only after the previous (delayed) response
+            List<Long> received = getAllServeEvents().stream()
+                    .map(serveEvent -> serveEvent.getRequest().getLoggedDate().getTime())
+                    .sorted()
+                    .toList();
+            assertThat(received).hasSize(3);
+            for (int i = 1; i < received.size(); i++) {
+                assertThat(received.get(i) - received.get(i - 1)).isGreaterThanOrEqualTo(190);
+            }
+        }
+
+    }
+
+    @Nested
+    class WithRateAndInFlightLimit {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .destinationLimits(new SimpleProxyDestinationLimits(1, 0.01, 2, Duration.ZERO))
+                .build());
+
+        @Test
+        void shouldNotConsumeRateTokenOfRequestRejectedOverInFlightLimit(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            stubFor(get(urlEqualTo(MOCKED_PATH))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withFixedDelay(500)
+                            .withBody(MOCKED_GET_RESPONSE_BODY)));
+            HttpClient client = HttpClient.newBuilder().proxy(simpleProxyExtension.buildHttpProxySelector()).build();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH))
+                    .GET()
+                    .build();
+
+            CompletableFuture<HttpResponse<String>> slow = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            awaitUntil(() -> !findAll(getRequestedFor(urlEqualTo(MOCKED_PATH))).isEmpty());
+            HttpResponse<String> rejected = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertThat(rejected.statusCode()).isEqualTo(429);
+            assertThat(slow.get().statusCode()).isEqualTo(200);
+            assertThat(client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+        }
+
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsAggregator;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCollectorConfig;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStreamSink;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStreamSinkConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyExtension.LOCALHOST;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyEventsAggregatorTest {
+
+    private static final ProxyEventsCollectorConfig COLLECTOR_CONFIG = new ProxyEventsCollectorConfig(true, true);
+
+    @Nested
+    class OverTcp {
+
+        static ProxyEventsAggregator aggregator = startAggregator(new InetSocketAddress(LOCALHOST, 0));
+
+        // proxies of two forked test JVMs
+        @RegisterExtension
+        static SimpleProxyExtension first = proxyStreamingTo(aggregator);
+        @RegisterExtension
+        static SimpleProxyExtension second = proxyStreamingTo(aggregator);
+
+        @AfterAll
+        static void stopAggregator() throws IOException {
+            aggregator.close();
+        }
+
+        @Test
+        void shouldMergeEventsOfManyProxies(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            assertEventsOfManyProxiesMerged(wmRuntimeInfo, aggregator, first, second);
+        }
+
+    }
+
+    @Nested
+    class OverUnixDomainSocket {
+
+        static ProxyEventsAggregator aggregator = startAggregator(UnixDomainSocketAddress.of(tempDirectory("simple-proxy-aggregator").resolve("aggregator.sock")));
+
+        @RegisterExtension
+        static SimpleProxyExtension first = proxyStreamingTo(aggregator);
+        @RegisterExtension
+        static SimpleProxyExtension second = proxyStreamingTo(aggregator);
+
+        @AfterAll
+        static void stopAggregator() throws IOException {
+            aggregator.close();
+        }
+
+        @Test
+        void shouldMergeEventsOfManyProxies(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            assertEventsOfManyProxiesMerged(wmRuntimeInfo, aggregator, first, second);
+        }
+
+    }
+
+    @Nested
+    class WithResponseBodyOnly {
+
+        static ProxyEventsAggregator aggregator = startAggregator(new InetSocketAddress(LOCALHOST, 0));
+
+        // proxy storing response bodies, but not request bodies
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = proxyStreamingTo(aggregator);
+
+        @AfterAll
+        static void stopAggregator() throws IOException {
+            aggregator.close();
+        }
+
+        @Test
+        void shouldStoreAndStreamResponseBodyWithoutRequestBody(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockHttpServerPostResponse();
+            sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH, "request body");
+
+            awaitUntil(() -> aggregator.eventsCaptured().proxyEvents().size() == 1);
+            assertThat(List.of(simpleProxyExtension.eventsCaptured().proxyEvents().get(0), aggregator.eventsCaptured().proxyEvents().get(0)))
+                    .allSatisfy(event -> {
+                        assertThat(event.clientToProxyRequest().requestBytes()).isEmpty();
+                        assertThat(new String(event.serverToProxyResponse().responseBytes())).isEqualTo(MOCKED_POST_RESPONSE_BODY);
+                    });
+        }
+
+    }
+
+    private static void assertEventsOfManyProxiesMerged(WireMockRuntimeInfo wmRuntimeInfo, ProxyEventsAggregator aggregator,
+                                                        SimpleProxyExtension first, SimpleProxyExtension second) throws Exception {
+        mockHttpServerGetResponse();
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+        sendGetRequestWithProxy(first.buildHttpProxySelector(), url);
+        sendGetRequestWithProxy(second.buildHttpProxySelector(), url);
+        sendGetRequestWithProxy(second.buildHttpProxySelector(), url);
+
+        awaitUntil(() -> aggregator.eventsCaptured().proxyEvents().size() == 3);
+        assertThat(aggregator.eventsCaptured().proxyEvents())
+                .allSatisfy(event -> {
+                    assertThat(event.clientToProxyRequest().uri()).hasToString(url);
+                    assertThat(new String(event.serverToProxyResponse().responseBytes())).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+                });
+        assertThat(aggregator.stats().endpoint("GET", "localhost:" + wmRuntimeInfo.getHttpPort(), MOCKED_PATH))
+                .hasValueSatisfying(stats -> {
+                    assertThat(stats.count()).isEqualTo(3);
+                    assertThat(stats.latency().max()).isPositive();
+                });
+
+        aggregator.reset();
+        assertThat(aggregator.eventsCaptured().proxyEvents()).isEmpty();
+    }
+
+    @Test
+    void shouldSendPendingEventsWhenSinkIsClosed() throws Exception {
+        try (ProxyEventsAggregator aggregator = ProxyEventsAggregator.start(new InetSocketAddress(LOCALHOST, 0), COLLECTOR_CONFIG)) {
+            ProxyEventsStreamSink sink = new ProxyEventsStreamSink(ProxyEventsStreamSinkConfig.of(aggregator.address())
+                    .withBatching(1024 * 1024, Duration.ofMinutes(1)));
+            sink.accept(proxyEvent("/one"));
+            sink.accept(proxyEvent("/two"));
+            sink.close();
+
+            assertThat(sink.sent()).isEqualTo(2);
+            awaitUntil(() -> aggregator.eventsCaptured().proxyEvents().size() == 2);
+            assertThat(aggregator.eventsCaptured().proxyEvents())
+                    .extracting(event -> event.clientToProxyRequest().uri().getPath())
+                    .containsExactly("/one", "/two");
+        }
+    }
+
+    @Test
+    void shouldDropEventsWhenAggregatorIsUnreachable() throws Exception {
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            closedPort = serverSocket.getLocalPort();
+        }
+        ProxyEventsStreamSink sink = new ProxyEventsStreamSink(ProxyEventsStreamSinkConfig.of(new InetSocketAddress(LOCALHOST, closedPort))
+                .withBatching(1024, Duration.ofMillis(20)));
+        try {
+            sink.accept(proxyEvent("/lost"));
+            awaitUntil(() -> sink.dropped() == 1);
+            assertThat(sink.sent()).isZero();
+        } finally {
+            sink.close();
+        }
+    }
+
+    @Test
+    void shouldRejectMaxPendingBytesOverMaxFrameOfAggregator() {
+        InetSocketAddress address = new InetSocketAddress(LOCALHOST, 0);
+        assertThatThrownBy(() -> new ProxyEventsStreamSinkConfig(address, 65536, Duration.ofMillis(200), Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new ProxyEventsStreamSinkConfig(address, 65536, Duration.ofMillis(200), 256 * 1024 * 1024).maxPendingBytes())
+                .isEqualTo(256 * 1024 * 1024);
+    }
+
+    private static ProxyEventsAggregator startAggregator(SocketAddress address) {
+        try {
+            return ProxyEventsAggregator.start(address, COLLECTOR_CONFIG);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SimpleProxyExtension proxyStreamingTo(ProxyEventsAggregator aggregator) {
+        return new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .storeResponseBody(true)
+                .eventsSink(ProxyEventsStreamSinkConfig.of(aggregator.address()).withBatching(64 * 1024, Duration.ofMillis(50)))
+                .build());
+    }
+
+    private static ProxyEvent proxyEvent(String path) {
+        ProxyEventHttpHeaders headers = new ProxyEventHttpHeaders(List.of());
+        return new ProxyEvent(
+                new ProxyEventRequest(Instant.now(), URI.create("http://localhost" + path), "GET", headers, null),
+                new ProxyEventResponse(Instant.now(), 200, headers, null)
+        );
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsEndpointStats;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventsStats;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(storeEvents = false)
+class SimpleHttpProxyEventsStatsTest {
+
+    @Test
+    void shouldAggregateStatisticsWithoutStoringEvents(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        mockHttpServerGetResponse();
+        mockHttpServerPostResponse();
+        String endpointUrl = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+
+        for (int i = 0; i < 3; i++) {
+            sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), endpointUrl);
+        }
+        sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), endpointUrl, "request body");
+        sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + "/not-mocked");
+
+        awaitUntil(() -> simpleProxyExtension.eventsStats().total().count() == 5);
+        assertThat(simpleProxyExtension.eventsCaptured().proxyEvents()).isEmpty();
+
+        ProxyEventsStats stats = simpleProxyExtension.eventsStats();
+        String host = "localhost:" + wmRuntimeInfo.getHttpPort();
+        assertThat(stats.endpoints()).hasSize(3);
+
+        ProxyEventsEndpointStats getStats = stats.endpoint("GET", host, MOCKED_PATH).orElseThrow();
+        assertThat(getStats.count()).isEqualTo(3);
+        assertThat(getStats.errorRate()).isZero();
+        assertThat(getStats.latency().count()).isEqualTo(3);
+        assertThat(getStats.latency().p50()).isPositive().isLessThanOrEqualTo(getStats.latency().p99());
+        assertThat(getStats.latency().p99()).isLessThanOrEqualTo(getStats.latency().max());
+
+        ProxyEventsEndpointStats postStats = stats.endpoint("POST", host, MOCKED_PATH).orElseThrow();
+        assertThat(postStats.count()).isEqualTo(1);
+        assertThat(postStats.requestBytes()).isEqualTo("request body".length());
+
+        ProxyEventsEndpointStats notMockedStats = stats.endpoint("GET", host, "/not-mocked").orElseThrow();
+        assertThat(notMockedStats.errorRate()).isEqualTo(1.0);
+
+        ProxyEventsEndpointStats total = stats.total();
+        assertThat(total.count()).isEqualTo(5);
+        assertThat(total.errors()).isEqualTo(1);
+        assertThat(total.latency().max()).isGreaterThan(Duration.ZERO);
+    }
+
+}
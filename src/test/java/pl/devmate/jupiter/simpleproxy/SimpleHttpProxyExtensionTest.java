@@ -23,12 +23,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventTimings;
 import pl.devmate.jupiter.simpleproxy.events.ProxyEventsCaptured;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static pl.devmate.jupiter.simpleproxy.SimpleProxy.SIMPLE_PROXY_VISITED_HEADER;
@@ -83,6 +85,7 @@ class SimpleHttpProxyExtensionTest {
         assertThat(response.statusCode()).isEqualTo(200);
         assertThat(response.headers().firstValue(SIMPLE_PROXY_VISITED_HEADER)).hasValue("true");
         assertThat(response.body()).isEqualTo(MOCKED_POST_RESPONSE_BODY);
+        awaitUntil(() -> !SimpleProxy.eventsCaptured().proxyEvents().isEmpty());
         assertThat(SimpleProxy.eventsCaptured().proxyEvents()).hasSize(1);
 
         ProxyEvent event = SimpleProxy.eventsCaptured().proxyEvents().get(0);
@@ -108,6 +111,37 @@ class SimpleHttpProxyExtensionTest {
         assertThat(serverResponseHeaders.findByName("Content-Type")).isPresent();
         assertThat(event.serverToProxyResponse().responseBytes()).isNotEmpty();
         assertThat(event.clientToProxyRequest().requestBytes()).isNotEmpty();
+
+        ProxyEventTimings timings = event.timings();
+        assertThat(timings.upstreamConnect()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(timings.requestSend()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(timings.timeToFirstByte()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(timings.responseTransfer()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(timings.clientWrite()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(timings.total()).isPositive();
+    }
+
+    @Test
+    void metricsShouldReflectProxiedTraffic(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerPostResponse();
+        SimpleProxyMetrics metrics = simpleProxyExtension.runtimeInfo().metrics();
+        long requestsBefore = metrics.totalRequests();
+
+        sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH, "request body");
+
+        awaitUntil(() -> metrics.capturedBytesRetained() > 0);
+        assertThat(metrics.totalRequests()).isEqualTo(requestsBefore + 1);
+        assertThat(metrics.totalClientConnections()).isPositive();
+        assertThat(metrics.totalUpstreamConnections()).isPositive();
+        assertThat(metrics.clientBytesIn()).isPositive();
+        assertThat(metrics.clientBytesOut()).isPositive();
+        assertThat(metrics.upstreamBytesIn()).isPositive();
+        assertThat(metrics.upstreamBytesOut()).isPositive();
+        assertThat(metrics.upstreamConnectionReuseRatio()).isBetween(0.0, 1.0);
+        assertThat(metrics.serverThreadPoolUtilization()).isBetween(0.0, 1.0);
+        assertThat(metrics.clientThreadPoolUtilization()).isBetween(0.0, 1.0);
+        assertThat(metrics.capturedBytesRetained())
+                .isEqualTo("request body".length() + MOCKED_POST_RESPONSE_BODY.length());
     }
 
     @Test
@@ -126,6 +160,7 @@ class SimpleHttpProxyExtensionTest {
         client.send(request, HttpResponse.BodyHandlers.ofString());
 
         // --- check captured events
+        awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().isEmpty());
         ProxyEventsCaptured events = simpleProxyExtension.eventsCaptured();
 
         events.proxyEvents().forEach(event -> log.debug("proxy event: {}", event));
@@ -135,6 +170,8 @@ class SimpleHttpProxyExtensionTest {
         assertThat(proxyEvent.clientToProxyRequest().requestBytes()).isNull();
         assertThat(proxyEvent.serverToProxyResponse().responseBytes()).isNull();
         assertThat(proxyEvent.serverToProxyResponse().httpStatusCode()).isEqualTo(200);
+        assertThat(proxyEvent.timings().upstreamConnect()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(proxyEvent.timings().timeToFirstByte()).isNull();
     }
 
 }
@@ -68,6 +68,7 @@ class SimpleHttpProxyExtensionUsingAnnotationTest {
         assertThat(response2.statusCode()).isEqualTo(200);
 
         // --- check captured events
+        awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 2);
         ProxyEventsCaptured events = simpleProxyExtension.eventsCaptured();
 
         assertThat(events.proxyEvents()).hasSize(2);
@@ -76,12 +77,14 @@ class SimpleHttpProxyExtensionUsingAnnotationTest {
         assertThat(event1.clientToProxyRequest().method()).isEqualTo("GET");
         assertThat(event1.clientToProxyRequest().requestBytes()).isNull();
         assertThat(event1.serverToProxyResponse().responseBytes()).isNotEmpty();
+        assertThat(event1.timings().upstreamConnectionReused()).isFalse();
 
 
         ProxyEvent event2 = events.proxyEvents().get(1);
         assertThat(event2.clientToProxyRequest().method()).isEqualTo("POST");
         assertThat(event2.clientToProxyRequest().requestBytes()).isNotEmpty();
         assertThat(event2.serverToProxyResponse().responseBytes()).isNotEmpty();
+        assertThat(event2.timings().upstreamConnectionReused()).isTrue();
     }
 
 }
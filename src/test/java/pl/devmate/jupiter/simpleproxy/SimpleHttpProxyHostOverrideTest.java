@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.SocketAddressResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyHostOverrideTest {
+
+    private static final String STAND_IN_HOST = "stand-in.simple-proxy.test";
+    private static final List<String> resolvedHosts = new CopyOnWriteArrayList<>();
+
+    @RegisterExtension
+    static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+            .overrideHost(STAND_IN_HOST, "localhost")
+            .socketAddressResolver((host, port, promise) -> {
+                resolvedHosts.add(host);
+                new SocketAddressResolver.Sync().resolve(host, port, promise);
+            })
+            .build()
+    );
+
+    @Test
+    void shouldRedirectOverriddenHostToLocalServer(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        String endpointUrl = "http://" + STAND_IN_HOST + ":" + wmRuntimeInfo.getHttpPort() + MOCKED_PATH;
+
+        HttpResponse<String> response = sendGetRequestWithProxy(
+                simpleProxyExtension.buildHttpProxySelector(),
+                endpointUrl);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+        assertThat(resolvedHosts).contains("localhost").doesNotContain(STAND_IN_HOST);
+
+        awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().isEmpty());
+        ProxyEvent event = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+        assertThat(event.clientToProxyRequest().uri().getHost()).isEqualTo(STAND_IN_HOST);
+    }
+
+    @Test
+    void shouldResolveAgainAfterTtlAndSweepExpiredResolutions() throws Exception {
+        List<String> resolved = new CopyOnWriteArrayList<>();
+        SimpleProxySocketAddressResolver resolver = new SimpleProxySocketAddressResolver((host, port, promise) -> {
+            resolved.add(host + ":" + port);
+            promise.succeeded(List.of(InetSocketAddress.createUnresolved(host, port)));
+        }, Map.of(), Duration.ofMillis(200));
+
+        resolve(resolver, "first.test", 80);
+        resolve(resolver, "first.test", 80);
+        assertThat(resolved).containsExactly("first.test:80");
+
+        Thread.sleep(300);
+        resolve(resolver, "first.test", 80);
+        assertThat(resolved).containsExactly("first.test:80", "first.test:80");
+
+        Thread.sleep(300);
+        resolve(resolver, "second.test", 80);
+        assertThat(resolver.cachedResolutions()).isEqualTo(1);
+    }
+
+    private static List<InetSocketAddress> resolve(SimpleProxySocketAddressResolver resolver, String host, int port) throws Exception {
+        CompletableFuture<List<InetSocketAddress>> addresses = new CompletableFuture<>();
+        resolver.resolve(host, port, Promise.from(addresses::complete, addresses::completeExceptionally));
+        return addresses.get();
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.SimpleProxyJfrEvents.PREFIX;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(storeRequestBody = true, storeResponseBody = true)
+class SimpleHttpProxyJfrEventsTest {
+
+    private static final List<String> EVENT_NAMES = List.of("RequestStart", "Request", "UpstreamConnect", "FirstByte", "Tunnel", "EventCapture");
+
+    @Test
+    void shouldEmitFlightRecorderEvents(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension, @TempDir Path tempDir) throws Exception {
+        mockHttpServerGetResponse();
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+        Path recordingFile = tempDir.resolve("simple-proxy.jfr");
+        List<RecordedEvent> recorded = new ArrayList<>();
+        try (Recording recording = new Recording()) {
+            EVENT_NAMES.forEach(name -> recording.enable(PREFIX + name));
+            recording.start();
+
+            sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url);
+            sendRequestThroughTunnel(simpleProxyExtension, wmRuntimeInfo.getHttpPort());
+
+            // tunnel event is committed when tunnel connections are closed
+            awaitUntil(() -> {
+                recorded.clear();
+                recorded.addAll(dumpEvents(recording, recordingFile));
+                return recordedEvent(recorded, "Tunnel") != null;
+            });
+        }
+
+        recorded.removeIf(event -> event.hasField("url") && !url.equals(event.getString("url")));
+        RecordedEvent request = recordedEvent(recorded, "Request");
+        assertThat(request.getString("method")).isEqualTo("GET");
+        assertThat(request.getInt("status")).isEqualTo(200);
+        assertThat(request.getDuration()).isPositive();
+        assertThat(recordedEvent(recorded, "RequestStart").getString("method")).isEqualTo("GET");
+        assertThat(recordedEvent(recorded, "UpstreamConnect").getBoolean("connectionReused")).isFalse();
+        assertThat(recordedEvent(recorded, "FirstByte").getDuration()).isPositive();
+        assertThat(recordedEvent(recorded, "EventCapture").getLong("capturedBytes")).isEqualTo(MOCKED_GET_RESPONSE_BODY.length());
+
+        RecordedEvent tunnel = recordedEvent(recorded, "Tunnel");
+        assertThat(tunnel.getString("destination")).isEqualTo("localhost:" + wmRuntimeInfo.getHttpPort());
+        assertThat(tunnel.getLong("bytesFromClient")).isPositive();
+        assertThat(tunnel.getLong("bytesFromServer")).isGreaterThan(MOCKED_GET_RESPONSE_BODY.length());
+    }
+
+    private static List<RecordedEvent> dumpEvents(Recording recording, Path recordingFile) {
+        try {
+            recording.dump(recordingFile);
+            return RecordingFile.readAllEvents(recordingFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sendRequestThroughTunnel(SimpleProxyExtension simpleProxyExtension, int port) throws Exception {
+        try (Socket socket = new Socket("localhost", simpleProxyExtension.runtimeInfo().httpPort())) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(("CONNECT localhost:" + port + " HTTP/1.1\r\nHost: localhost:" + port + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            readUntil(in, "\r\n\r\n");
+            out.write(("GET " + MOCKED_PATH + " HTTP/1.1\r\nHost: localhost:" + port + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).contains(MOCKED_GET_RESPONSE_BODY);
+        }
+    }
+
+    private static void readUntil(InputStream in, String terminator) throws Exception {
+        StringBuilder received = new StringBuilder();
+        while (!received.toString().endsWith(terminator)) {
+            int b = in.read();
+            if (b < 0) {
+                break;
+            }
+            received.append((char) b);
+        }
+    }
+
+    private static RecordedEvent recordedEvent(List<RecordedEvent> recorded, String name) {
+        return recorded.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+                .findFirst()
+                .orElse(null);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(metricsEndpoint = true)
+class SimpleHttpProxyMetricsEndpointTest {
+
+    @Test
+    void shouldServeMetricsInPrometheusFormat(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        mockHttpServerGetResponse();
+        sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH);
+        awaitUntil(() -> simpleProxyExtension.eventsStats().total().count() == 1);
+
+        HttpResponse<String> response = getMetrics(simpleProxyExtension, "/metrics");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                contentType -> assertThat(contentType).startsWith("text/plain; version=0.0.4"));
+        String endpointLabels = "method=\"GET\",host=\"localhost:" + wmRuntimeInfo.getHttpPort() + "\",path=\"" + MOCKED_PATH + "\"";
+        assertThat(response.body())
+                .contains("# TYPE simple_proxy_requests_total counter\nsimple_proxy_requests_total 1\n")
+                .contains("simple_proxy_upstream_connections_total 1\n")
+                .contains("simple_proxy_thread_pool_utilization{pool=\"server\"} ")
+                .contains("simple_proxy_endpoint_requests_total{" + endpointLabels + "} 1\n")
+                .contains("simple_proxy_endpoint_latency_seconds{" + endpointLabels + ",quantile=\"0.99\"} ")
+                .contains("simple_proxy_endpoint_latency_seconds_count{" + endpointLabels + "} 1\n");
+    }
+
+    @Test
+    void shouldNotProxyRequestsToMetricsPort(SimpleProxyExtension simpleProxyExtension) throws Exception {
+        HttpResponse<String> response = getMetrics(simpleProxyExtension, "/other");
+
+        assertThat(response.statusCode()).isEqualTo(404);
+        assertThat(simpleProxyExtension.eventsStats().total().count()).isZero();
+    }
+
+    private static HttpResponse<String> getMetrics(SimpleProxyExtension simpleProxyExtension, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + simpleProxyExtension.runtimeInfo().metricsPort() + path))
+                .GET()
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeader;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventHttpHeaders;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventRequest;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(storeRequestBody = true)
+class SimpleHttpProxyReplayTest {
+
+    @Test
+    void shouldReplayCapturedRequestsAgainstTarget(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        mockHttpServerGetResponse();
+        mockHttpServerPostResponse();
+        String url = wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH;
+        sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url);
+        sendPostRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), url, "replayed body");
+        awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 2);
+        resetAllRequests();
+
+        SimpleProxyReplayResult result = SimpleProxyReplay.of(simpleProxyExtension.eventsCaptured())
+                .pacing(SimpleProxyReplayPacing.maxThroughput(2))
+                .run();
+
+        assertThat(result.requests()).isEqualTo(2);
+        assertThat(result.statuses()).containsEntry(200, 2L);
+        assertThat(result.errors()).isZero();
+        assertThat(result.latency().count()).isEqualTo(2);
+        verify(1, getRequestedFor(urlEqualTo(MOCKED_PATH)));
+        verify(1, postRequestedFor(urlEqualTo(MOCKED_PATH)).withRequestBody(equalTo("replayed body")));
+    }
+
+    @Test
+    void shouldReplayWithOriginalOrFasterTiming(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        stubFor(get(urlPathMatching("/paced/.*")).willReturn(ok()));
+        List<ProxyEvent> events = IntStream.range(0, 4)
+                .mapToObj(i -> proxyEvent("/paced/" + i, Duration.ofMillis(300L * i)))
+                .toList();
+        URI target = URI.create(wmRuntimeInfo.getHttpBaseUrl());
+
+        SimpleProxyReplayResult original = SimpleProxyReplay.of(events).target(target).run();
+        SimpleProxyReplayResult faster = SimpleProxyReplay.of(events).target(target)
+                .pacing(SimpleProxyReplayPacing.speed(10))
+                .run();
+
+        assertThat(original.statuses()).containsEntry(200, 4L);
+        assertThat(original.duration()).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        assertThat(faster.statuses()).containsEntry(200, 4L);
+        assertThat(faster.duration()).isLessThan(Duration.ofMillis(900));
+        verify(2, getRequestedFor(urlEqualTo("/paced/3")));
+    }
+
+    @Test
+    void shouldReportErrorsAndFailures(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        stubFor(get(urlPathMatching("/unavailable/.*")).willReturn(serviceUnavailable()));
+        List<ProxyEvent> events = IntStream.range(0, 20)
+                .mapToObj(i -> proxyEvent("/unavailable/" + i, Duration.ZERO))
+                .toList();
+
+        SimpleProxyReplayResult unavailable = SimpleProxyReplay.of(events)
+                .target(URI.create(wmRuntimeInfo.getHttpBaseUrl() + "/"))
+                .pacing(SimpleProxyReplayPacing.maxThroughput(4))
+                .run();
+        assertThat(unavailable.statuses()).containsOnlyKeys(503).containsEntry(503, 20L);
+        assertThat(unavailable.errorRate()).isEqualTo(1.0);
+        verify(20, getRequestedFor(urlPathMatching("/unavailable/.*")));
+
+        SimpleProxyReplayResult unreachable = SimpleProxyReplay.of(events)
+                .target(URI.create("http://localhost:1"))
+                .pacing(SimpleProxyReplayPacing.maxThroughput(4))
+                .run();
+        assertThat(unreachable.statuses()).isEmpty();
+        assertThat(unreachable.failures()).containsEntry("ConnectException", 20L);
+        assertThat(unreachable.errors()).isEqualTo(20);
+    }
+
+    private static ProxyEvent proxyEvent(String path, Duration offset) {
+        Instant requested = Instant.parse("2025-01-01T00:00:00Z").plus(offset);
+        ProxyEventHttpHeaders headers = new ProxyEventHttpHeaders(List.of(
+                new ProxyEventHttpHeader("Host", List.of("service.local:8080")),
+                new ProxyEventHttpHeader("X-Test", List.of(path))));
+        return new ProxyEvent(
+                new ProxyEventRequest(requested, URI.create("http://service.local:8080" + path), "GET", headers, null),
+                new ProxyEventResponse(requested, 200, headers, null)
+        );
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.awaitUntil;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.freePort;
+
+class SimpleHttpProxyReverseProxyTest {
+
+    private static final List<String> BACKENDS = List.of("b1", "b2", "b3");
+    private static final int BACKEND_PORT = freePort();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @RegisterExtension
+    static WireMockExtension backend = WireMockExtension.newInstance()
+            .options(wireMockConfig().port(BACKEND_PORT))
+            .configureStaticDsl(true)
+            .build();
+
+    @Nested
+    class RoundRobin {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = reverseProxy(
+                SimpleProxyReverseProxy.of(SimpleProxyLoadBalancing.ROUND_ROBIN, backendUris(BACKENDS)));
+
+        @Test
+        void shouldBalanceRequestsRoundRobin() throws Exception {
+            mockBackends(BACKENDS);
+            for (int i = 0; i < 6; i++) {
+                assertThat(send(simpleProxyExtension, "/item", Map.of()).statusCode()).isEqualTo(200);
+            }
+
+            BACKENDS.forEach(backend -> verify(2, getRequestedFor(urlEqualTo("/" + backend + "/item"))));
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 6);
+            assertThat(simpleProxyExtension.eventsCaptured().proxyEvents())
+                    .extracting(event -> event.clientToProxyRequest().uri().getPath())
+                    .containsOnly("/b1/item", "/b2/item", "/b3/item");
+            assertThat(simpleProxyExtension.eventsStats().endpoint("GET", "localhost:" + BACKEND_PORT, "/b1/item"))
+                    .hasValueSatisfying(stats -> assertThat(stats.count()).isEqualTo(2));
+        }
+
+    }
+
+    @Nested
+    class ConsistentHash {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = reverseProxy(
+                SimpleProxyReverseProxy.of(SimpleProxyLoadBalancing.CONSISTENT_HASH, backendUris(BACKENDS))
+                        .withHashHeader("X-User"));
+
+        @Test
+        void shouldSendSameKeyToSameBackend() throws Exception {
+            mockBackends(BACKENDS);
+            Map<String, String> backendPerUser = new HashMap<>();
+            for (int i = 0; i < 30; i++) {
+                String user = "user-" + i;
+                backendPerUser.put(user, send(simpleProxyExtension, "/item", Map.of("X-User", user)).body());
+            }
+            for (int i = 0; i < 30; i++) {
+                String user = "user-" + i;
+                assertThat(send(simpleProxyExtension, "/item", Map.of("X-User", user)).body()).isEqualTo(backendPerUser.get(user));
+            }
+            assertThat(new HashSet<>(backendPerUser.values())).hasSizeGreaterThan(1);
+        }
+
+    }
+
+    @Nested
+    class Ejection {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = reverseProxy(
+                SimpleProxyReverseProxy.of(SimpleProxyLoadBalancing.ROUND_ROBIN, backendUris(List.of("b1", "b2")))
+                        .withEjection(2, Duration.ofMinutes(1)));
+
+        @Test
+        void shouldEjectBackendFailingConsecutiveRequests() throws Exception {
+            mockBackends(List.of("b1"));
+            stubFor(get(urlPathMatching("/b2/.*")).willReturn(aResponse().withStatus(503)));
+            for (int i = 0; i < 10; i++) {
+                send(simpleProxyExtension, "/item", Map.of());
+            }
+
+            verify(2, getRequestedFor(urlEqualTo("/b2/item")));
+            verify(8, getRequestedFor(urlEqualTo("/b1/item")));
+        }
+
+    }
+
+    @Nested
+    class LeastInFlight {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = reverseProxy(
+                SimpleProxyReverseProxy.of(SimpleProxyLoadBalancing.LEAST_IN_FLIGHT, backendUris(List.of("b1", "b2"))));
+
+        @Test
+        void shouldPreferBackendWithLeastRequestsInFlight() throws Exception {
+            mockBackends(List.of("b1", "b2"));
+            stubFor(get(urlPathMatching("/b[12]/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(1000)));
+            CompletableFuture<HttpResponse<String>> slow = client.sendAsync(request(simpleProxyExtension, "/slow", Map.of()),
+                    HttpResponse.BodyHandlers.ofString());
+            awaitUntil(() -> !findAll(getRequestedFor(urlPathMatching("/b[12]/slow"))).isEmpty());
+            String slowBackend = findAll(getRequestedFor(urlPathMatching("/b[12]/slow"))).get(0).getUrl().substring(1, 3);
+
+            Set<String> fastBackends = new HashSet<>();
+            for (int i = 0; i < 4; i++) {
+                fastBackends.add(send(simpleProxyExtension, "/fast", Map.of()).body());
+            }
+
+            assertThat(fastBackends).hasSize(1).doesNotContain(slowBackend);
+            assertThat(slow.get().statusCode()).isEqualTo(200);
+        }
+
+    }
+
+    private static void mockBackends(List<String> backends) {
+        backends.forEach(backend -> stubFor(get(urlPathMatching("/" + backend + "/.*"))
+                .willReturn(aResponse().withStatus(200).withBody(backend))));
+    }
+
+    private static String[] backendUris(List<String> backends) {
+        return backends.stream()
+                .map(backend -> "http://localhost:" + BACKEND_PORT + "/" + backend)
+                .toArray(String[]::new);
+    }
+
+    private static SimpleProxyExtension reverseProxy(SimpleProxyReverseProxy reverseProxy) {
+        return new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .reverseProxy(reverseProxy)
+                .build());
+    }
+
+    private HttpResponse<String> send(SimpleProxyExtension simpleProxyExtension, String path, Map<String, String> headers) throws Exception {
+        return client.send(request(simpleProxyExtension, path, headers), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest request(SimpleProxyExtension simpleProxyExtension, String path, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + simpleProxyExtension.runtimeInfo().httpPort() + path))
+                .GET();
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+}
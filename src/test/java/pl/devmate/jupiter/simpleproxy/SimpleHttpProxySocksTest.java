@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventTunnel;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+@SimpleProxyTest(socksProxy = true)
+class SimpleHttpProxySocksTest {
+
+    @Test
+    void shouldRelayAndCountSocksTunnelTraffic(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        mockHttpServerGetResponse();
+        String target = "localhost:" + wmRuntimeInfo.getHttpPort();
+
+        try (Socket socket = new Socket(simpleProxyExtension.buildSocksProxy())) {
+            // unresolved address is sent to proxy as domain name
+            socket.connect(InetSocketAddress.createUnresolved("localhost", wmRuntimeInfo.getHttpPort()));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + MOCKED_PATH + " HTTP/1.1\r\nHost: " + target + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertThat(new String(socket.getInputStream().readAllBytes(), StandardCharsets.US_ASCII))
+                    .startsWith("HTTP/1.1 200")
+                    .contains(MOCKED_GET_RESPONSE_BODY);
+        }
+
+        awaitUntil(() -> !simpleProxyExtension.eventsCaptured().tunnels().isEmpty());
+        assertThat(simpleProxyExtension.eventsCaptured().proxyEvents()).isEmpty();
+        ProxyEventTunnel tunnel = simpleProxyExtension.eventsCaptured().tunnels().get(0);
+        assertThat(tunnel.target()).isEqualTo(target);
+        assertThat(tunnel.serverName()).isNull();
+        assertThat(tunnel.bytesUp()).isPositive();
+        assertThat(tunnel.bytesDown()).isGreaterThan(MOCKED_GET_RESPONSE_BODY.length());
+        assertThat(tunnel.timeToFirstByte()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(tunnel.openDuration()).isGreaterThanOrEqualTo(tunnel.timeToFirstByte());
+    }
+
+    @Test
+    void shouldRejectUnsupportedCommand(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        int port = wmRuntimeInfo.getHttpPort();
+
+        try (Socket socket = new Socket("localhost", simpleProxyExtension.runtimeInfo().socksPort())) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(new byte[]{0x05, 0x01, 0x00});
+            out.flush();
+            assertThat(in.readNBytes(2)).containsExactly(0x05, 0x00);
+
+            // BIND 127.0.0.1
+            out.write(new byte[]{0x05, 0x02, 0x00, 0x01, 127, 0, 0, 1, (byte) (port >> 8), (byte) port});
+            out.flush();
+            byte[] reply = in.readNBytes(10);
+            assertThat(reply[0]).isEqualTo((byte) 0x05);
+            assertThat(reply[1]).isEqualTo((byte) 0x07);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+        assertThat(simpleProxyExtension.eventsCaptured().tunnels()).isEmpty();
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventStream;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventStreamChunk;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyStreamingCaptureTest {
+
+    private static final String EVENTS = "data: one\n\ndata: two\n\ndata: three\n\ndata: four\n\n";
+
+    @Nested
+    class WithDefaultWindow {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .streamingCapture(true)
+                .build());
+
+        @Test
+        void shouldPublishEventInProgressAndCaptureChunksOfServerSentEvents(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockEventStream();
+            CompletableFuture<HttpResponse<String>> response = sendGetAsync(simpleProxyExtension, wmRuntimeInfo);
+
+            awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().isEmpty());
+            ProxyEvent inProgress = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+            assertThat(inProgress.inProgress()).isTrue();
+            assertThat(inProgress.serverToProxyResponse().httpStatusCode()).isEqualTo(200);
+            assertThat(simpleProxyExtension.eventsStats().total().count()).isZero();
+            awaitUntil(() -> !inProgress.responseStream().chunks().isEmpty());
+            assertThat(response).isNotDone();
+
+            assertThat(response.get(10, TimeUnit.SECONDS).body()).isEqualTo(EVENTS);
+            awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().get(0).inProgress());
+            List<ProxyEvent> events = simpleProxyExtension.eventsCaptured().proxyEvents();
+            assertThat(events).hasSize(1);
+            ProxyEventStream stream = events.get(0).responseStream();
+            assertThat(stream).isSameAs(inProgress.responseStream());
+            assertThat(stream.completed()).isNotNull();
+            assertThat(stream.totalChunks()).isGreaterThan(1);
+            assertThat(stream.chunks()).extracting(ProxyEventStreamChunk::timestamp).isSorted();
+            assertThat(new String(stream.retainedContent(), StandardCharsets.UTF_8)).isEqualTo(EVENTS);
+            assertThat(simpleProxyExtension.eventsStats().total().count()).isEqualTo(1);
+            assertThat(simpleProxyExtension.eventsStats().total().responseBytes()).isEqualTo(EVENTS.length());
+        }
+
+    }
+
+    @Nested
+    class WithSmallWindow {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .streamingCapture(true)
+                .streamingCaptureWindowBytes(16)
+                .build());
+
+        @Test
+        void shouldRetainOnlyLatestChunksInWindow(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+            mockEventStream();
+            assertThat(sendGetAsync(simpleProxyExtension, wmRuntimeInfo).get(10, TimeUnit.SECONDS).body()).isEqualTo(EVENTS);
+
+            awaitUntil(() -> simpleProxyExtension.eventsStats().total().count() == 1);
+            ProxyEventStream stream = simpleProxyExtension.eventsCaptured().proxyEvents().get(0).responseStream();
+            assertThat(stream.totalBytes()).isEqualTo(EVENTS.length());
+            assertThat(stream.retainedContent().length).isLessThanOrEqualTo(16);
+            assertThat(EVENTS).endsWith(new String(stream.retainedContent(), StandardCharsets.UTF_8));
+            ProxyEventStreamChunk latest = stream.chunks().get(stream.chunks().size() - 1);
+            assertThat(latest.offset() + latest.bytes().length).isEqualTo(EVENTS.length());
+        }
+
+    }
+
+    @Test
+    void shouldRetainTailOfChunkLargerThanWindow() {
+        ProxyEventStream stream = new ProxyEventStream(4);
+        stream.append("ab".getBytes(StandardCharsets.UTF_8));
+        stream.append("cdefghij".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(stream.totalBytes()).isEqualTo(10);
+        assertThat(stream.totalChunks()).isEqualTo(2);
+        assertThat(stream.chunks()).singleElement().satisfies(chunk -> {
+            assertThat(chunk.text()).isEqualTo("ghij");
+            assertThat(chunk.offset()).isEqualTo(6);
+        });
+    }
+
+    private static void mockEventStream() {
+        stubFor(get(urlEqualTo(MOCKED_PATH))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(EVENTS)
+                        .withChunkedDribbleDelay(4, 1200)));
+    }
+
+    private static CompletableFuture<HttpResponse<String>> sendGetAsync(SimpleProxyExtension simpleProxyExtension, WireMockRuntimeInfo wmRuntimeInfo) {
+        HttpClient client = HttpClient.newBuilder().proxy(simpleProxyExtension.buildHttpProxySelector()).build();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH))
+                .GET()
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+}
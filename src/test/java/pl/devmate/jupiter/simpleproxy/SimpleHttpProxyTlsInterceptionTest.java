@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import javax.net.ssl.SSLContext;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest(httpsEnabled = true)
+class SimpleHttpProxyTlsInterceptionTest {
+
+    private static final String INTERCEPTED_HOST = "intercepted.simple-proxy.test";
+
+    @RegisterExtension
+    static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+            .storeRequestBody(true)
+            .storeResponseBody(true)
+            .tlsInterception(true)
+            .overrideHost(INTERCEPTED_HOST, "localhost")
+            .build()
+    );
+
+    @Test
+    void shouldCaptureHttpsRequestSentThroughConnectTunnel(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+
+        HttpResponse<String> response = sendGetRequestTrustingProxyAuthority(wmRuntimeInfo.getHttpsBaseUrl() + MOCKED_PATH);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+        assertIssuedByProxyAuthority(response, "localhost");
+
+        ProxyEvent event = awaitInterceptedEvent();
+        assertThat(event.clientToProxyRequest().uri()).hasScheme("https").hasHost("localhost").hasPath(MOCKED_PATH);
+        assertThat(event.serverToProxyResponse().httpStatusCode()).isEqualTo(200);
+        assertThat(new String(event.serverToProxyResponse().responseBytes())).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+    }
+
+    @Test
+    void shouldMintCertificateForServerNameIndication(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        String endpointUrl = "https://" + INTERCEPTED_HOST + ":" + wmRuntimeInfo.getHttpsPort() + MOCKED_PATH;
+
+        HttpResponse<String> response = sendGetRequestTrustingProxyAuthority(endpointUrl);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+        assertIssuedByProxyAuthority(response, INTERCEPTED_HOST);
+
+        ProxyEvent event = awaitInterceptedEvent();
+        assertThat(event.clientToProxyRequest().uri()).hasScheme("https").hasHost(INTERCEPTED_HOST);
+    }
+
+    private static HttpResponse<String> sendGetRequestTrustingProxyAuthority(String endpointUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .proxy(simpleProxyExtension.buildHttpProxySelector())
+                .sslContext(simpleProxyExtension.runtimeInfo().certificateAuthority().clientSslContext())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(endpointUrl))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void shouldServeCertificateAndKeyOfTheSameLeafWhenHostIsEvictedDuringHandshake() throws Exception {
+        SimpleProxyMitmKeyManager keyManager = new SimpleProxyMitmKeyManager(
+                SimpleProxyCertificateAuthority.generate("Test CA"), new SimpleProxyKeyPairPool(1, Runnable::run), 1);
+        List<String> hosts = List.of("first.simple-proxy.test", "second.simple-proxy.test");
+        keyManager.registerTunnel(1001, hosts.get(0));
+        keyManager.registerTunnel(1002, hosts.get(1));
+        SSLContext sslContext = SSLContext.getDefault();
+
+        for (int i = 0; i < 4; i++) {
+            int current = i % 2;
+            String alias = keyManager.chooseEngineServerAlias("EC", null, sslContext.createSSLEngine("localhost", 1001 + current));
+            PrivateKey privateKey = keyManager.getPrivateKey(alias);
+            // concurrent handshake of the other host evicts leaf of this one from single entry cache
+            keyManager.chooseEngineServerAlias("EC", null, sslContext.createSSLEngine("localhost", 1002 - current));
+            X509Certificate leaf = keyManager.getCertificateChain(alias)[0];
+            assertThat(leaf.getSubjectAlternativeNames()).contains(List.of(2, hosts.get(current)));
+            Signature signature = Signature.getInstance("SHA256withECDSA");
+            signature.initSign(privateKey);
+            signature.update(alias.getBytes(StandardCharsets.UTF_8));
+            byte[] signed = signature.sign();
+            signature.initVerify(leaf.getPublicKey());
+            signature.update(alias.getBytes(StandardCharsets.UTF_8));
+            assertThat(signature.verify(signed)).isTrue();
+        }
+        assertThat(keyManager.cachedCertificates()).isEqualTo(1);
+    }
+
+    private static void assertIssuedByProxyAuthority(HttpResponse<?> response, String host) throws Exception {
+        X509Certificate leaf = (X509Certificate) response.sslSession().orElseThrow().getPeerCertificates()[0];
+        X509Certificate authority = simpleProxyExtension.runtimeInfo().certificateAuthority().certificate();
+        assertThat(leaf.getIssuerX500Principal()).isEqualTo(authority.getSubjectX500Principal());
+        assertThat(leaf.getSubjectAlternativeNames()).contains(List.of(2, host));
+        leaf.verify(authority.getPublicKey());
+    }
+
+    private static ProxyEvent awaitInterceptedEvent() throws InterruptedException {
+        awaitUntil(() -> interceptedEvents().size() == 1);
+        return interceptedEvents().get(0);
+    }
+
+    private static List<ProxyEvent> interceptedEvents() {
+        return simpleProxyExtension.eventsCaptured().proxyEvents().stream()
+                .filter(event -> "GET".equals(event.clientToProxyRequest().method()))
+                .toList();
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest(httpsEnabled = true)
+class SimpleHttpProxyTlsSessionTest {
+
+    private static final SimpleProxyConfig CONFIG = SimpleProxyConfig.builder()
+            .tlsSessionCacheSize(17)
+            .build();
+
+    // proxies of two test classes with the same session settings
+    @RegisterExtension
+    static SimpleProxyExtension first = new SimpleProxyExtension(CONFIG);
+    @RegisterExtension
+    static SimpleProxyExtension second = new SimpleProxyExtension(CONFIG);
+
+    @Test
+    void shouldShareSslContextsBetweenProxiesWithSameSessionSettings() {
+        SSLContext client = SimpleProxySslContexts.trustAllClient(64, Duration.ofMinutes(5));
+        SSLContext server = SimpleProxySslContexts.server(64, Duration.ofMinutes(5));
+
+        assertThat(SimpleProxySslContexts.trustAllClient(64, Duration.ofMinutes(5))).isSameAs(client);
+        assertThat(SimpleProxySslContexts.server(64, Duration.ofMinutes(5))).isSameAs(server);
+        assertThat(SimpleProxySslContexts.trustAllClient(128, Duration.ofMinutes(5))).isNotSameAs(client);
+        assertThat(client.getClientSessionContext().getSessionCacheSize()).isEqualTo(64);
+        assertThat(client.getClientSessionContext().getSessionTimeout()).isEqualTo(300);
+        assertThat(server.getServerSessionContext().getSessionCacheSize()).isEqualTo(64);
+    }
+
+    @Test
+    void shouldCacheUpstreamTlsSessionsInContextSharedByProxies(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        SSLSessionContext sessionContext = SimpleProxySslContexts.trustAllClient(17, CONFIG.tlsSessionTimeout()).getClientSessionContext();
+
+        String firstResponse = sendAbsoluteFormGet(first.runtimeInfo().httpPort(), wmRuntimeInfo.getHttpsPort());
+        Set<Long> firstHandshakes = sessionCreationTimes(sessionContext, wmRuntimeInfo.getHttpsPort());
+        // full handshake after this pause would create session with later creation time
+        Thread.sleep(50);
+        String secondResponse = sendAbsoluteFormGet(second.runtimeInfo().httpPort(), wmRuntimeInfo.getHttpsPort());
+
+        assertThat(firstResponse).startsWith("HTTP/1.1 200").contains(MOCKED_GET_RESPONSE_BODY);
+        assertThat(secondResponse).startsWith("HTTP/1.1 200").contains(MOCKED_GET_RESPONSE_BODY);
+        // resumed session (TLS 1.3 ticket has its own id) keeps creation time of the session it resumes
+        assertThat(firstHandshakes).hasSize(1);
+        assertThat(sessionCreationTimes(sessionContext, wmRuntimeInfo.getHttpsPort())).isEqualTo(firstHandshakes);
+    }
+
+    @Test
+    void shouldRejectTlsSessionTimeoutShorterThanSecond() {
+        assertThatThrownBy(() -> SimpleProxyConfig.builder().tlsSessionTimeout(Duration.ZERO).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SimpleProxyConfig.builder().tlsSessionTimeout(Duration.ofMillis(-1)).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SimpleProxyConfig.builder().tlsSessionTimeout(Duration.ofMillis(500)).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Set<Long> sessionCreationTimes(SSLSessionContext sessionContext, int peerPort) {
+        return Collections.list(sessionContext.getIds()).stream()
+                .map(sessionContext::getSession)
+                .filter(session -> session != null && session.getPeerPort() == peerPort)
+                .map(SSLSession::getCreationTime)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Request with absolute https url (not CONNECT tunnel), so proxy connects to upstream with its own TLS client
+     */
+    private static String sendAbsoluteFormGet(int proxyPort, int httpsPort) throws Exception {
+        String authority = "localhost:" + httpsPort;
+        try (Socket socket = new Socket("localhost", proxyPort)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET https://" + authority + MOCKED_PATH + " HTTP/1.1\r\nHost: " + authority + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+
+}
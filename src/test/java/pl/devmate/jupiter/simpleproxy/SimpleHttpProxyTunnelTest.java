@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventTunnel;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest(httpsEnabled = true)
+@SimpleProxyTest
+class SimpleHttpProxyTunnelTest {
+
+    private static final String SERVER_NAME = "tunnel.simple-proxy.test";
+
+    @Test
+    void shouldCountTunnelTrafficWithoutDecryption(WireMockRuntimeInfo wmRuntimeInfo, SimpleProxyExtension simpleProxyExtension) throws Exception {
+        mockHttpServerGetResponse();
+        String target = "localhost:" + wmRuntimeInfo.getHttpsPort();
+
+        try (Socket socket = new Socket("localhost", simpleProxyExtension.runtimeInfo().httpPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("CONNECT " + target + " HTTP/1.1\r\nHost: " + target + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            skipResponseHeaders(socket.getInputStream());
+
+            try (SSLSocket sslSocket = (SSLSocket) prepareAcceptAllSslContext().getSocketFactory()
+                    .createSocket(socket, "localhost", wmRuntimeInfo.getHttpsPort(), true)) {
+                SSLParameters sslParameters = sslSocket.getSSLParameters();
+                sslParameters.setServerNames(List.of(new SNIHostName(SERVER_NAME)));
+                sslSocket.setSSLParameters(sslParameters);
+                sslSocket.getOutputStream().write(("GET " + MOCKED_PATH + " HTTP/1.1\r\nHost: " + target + "\r\nConnection: close\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                sslSocket.getOutputStream().flush();
+                assertThat(new String(sslSocket.getInputStream().readAllBytes(), StandardCharsets.US_ASCII))
+                        .contains(MOCKED_GET_RESPONSE_BODY);
+            }
+        }
+
+        awaitUntil(() -> !simpleProxyExtension.eventsCaptured().tunnels().isEmpty());
+        assertThat(simpleProxyExtension.eventsCaptured().proxyEvents())
+                .extracting(event -> event.clientToProxyRequest().method())
+                .containsExactly("CONNECT");
+        assertThat(simpleProxyExtension.eventsCaptured().tunnels()).hasSize(1);
+        ProxyEventTunnel tunnel = simpleProxyExtension.eventsCaptured().tunnels().get(0);
+        assertThat(tunnel.target()).isEqualTo(target);
+        assertThat(tunnel.serverName()).isEqualTo(SERVER_NAME);
+        assertThat(tunnel.bytesUp()).isPositive();
+        assertThat(tunnel.bytesDown()).isGreaterThan(MOCKED_GET_RESPONSE_BODY.length());
+        assertThat(tunnel.timeToFirstByte()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(tunnel.openDuration()).isGreaterThanOrEqualTo(tunnel.timeToFirstByte());
+        assertThat(tunnel.opened()).isNotNull();
+    }
+
+    private static void skipResponseHeaders(InputStream in) throws Exception {
+        int matched = 0;
+        byte[] terminator = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        while (matched < terminator.length) {
+            int b = in.read();
+            if (b < 0) {
+                return;
+            }
+            matched = b == terminator[matched] ? matched + 1 : (b == terminator[0] ? 1 : 0);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.eclipse.jetty.client.ContentResponse;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.Transport;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+@WireMockTest
+class SimpleHttpProxyUnixDomainSocketTest {
+
+    private static final String STAND_IN_HOST = "stand-in.simple-proxy.test";
+    private static final String STAND_IN_RESPONSE_BODY = "Response from unix socket stand-in";
+
+    private static final Path SOCKETS_DIRECTORY = tempDirectory("simple-proxy-uds");
+    private static final Path PROXY_SOCKET_PATH = SOCKETS_DIRECTORY.resolve("proxy.sock");
+    private static final Path STAND_IN_SOCKET_PATH = SOCKETS_DIRECTORY.resolve("stand-in.sock");
+    private static Server standIn;
+
+    @RegisterExtension
+    static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+            .unixSocketPath(PROXY_SOCKET_PATH)
+            .upstreamUnixSocket(STAND_IN_HOST, 80, STAND_IN_SOCKET_PATH)
+            .build());
+
+    @BeforeAll
+    static void startStandIn() throws Exception {
+        standIn = startStandIn(STAND_IN_SOCKET_PATH);
+    }
+
+    @AfterAll
+    static void stopStandIn() throws Exception {
+        standIn.stop();
+    }
+
+    @Test
+    void shouldProxyRequestsReceivedOnUnixSocket(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        mockHttpServerGetResponse();
+        HttpClient client = new HttpClient();
+        client.start();
+        try {
+            assertThat(simpleProxyExtension.runtimeInfo().unixSocketPath()).isEqualTo(PROXY_SOCKET_PATH);
+
+            ContentResponse response = client.newRequest(wmRuntimeInfo.getHttpBaseUrl() + MOCKED_PATH)
+                    .transport(new Transport.TCPUnix(PROXY_SOCKET_PATH))
+                    .send();
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(MOCKED_GET_RESPONSE_BODY);
+            awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().isEmpty());
+            ProxyEvent event = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+            assertThat(event.clientToProxyRequest().uri().getPort()).isEqualTo(wmRuntimeInfo.getHttpPort());
+            assertThat(event.serverToProxyResponse().httpStatusCode()).isEqualTo(200);
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void shouldReachUpstreamStandInThroughUnixSocket() throws Exception {
+        HttpResponse<String> response = sendGetRequestWithProxy(
+                simpleProxyExtension.buildHttpProxySelector(),
+                "http://" + STAND_IN_HOST + MOCKED_PATH);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(STAND_IN_RESPONSE_BODY);
+        awaitUntil(() -> !simpleProxyExtension.eventsCaptured().proxyEvents().isEmpty());
+        assertThat(simpleProxyExtension.eventsCaptured().proxyEvents().get(0).clientToProxyRequest().uri().getHost())
+                .isEqualTo(STAND_IN_HOST);
+    }
+
+    private static Server startStandIn(Path socketPath) throws Exception {
+        Server server = new Server();
+        UnixDomainServerConnector connector = new UnixDomainServerConnector(server, new HttpConnectionFactory());
+        connector.setUnixDomainPath(socketPath);
+        server.addConnector(connector);
+        server.setHandler(new Handler.Abstract.NonBlocking() {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) {
+                response.setStatus(HttpStatus.OK_200);
+                response.write(true, ByteBuffer.wrap(STAND_IN_RESPONSE_BODY.getBytes(StandardCharsets.UTF_8)), callback);
+                return true;
+            }
+        });
+        server.start();
+        return server;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+
+class SimpleHttpProxyUpstreamProtocolTest {
+
+    private static final int UPSTREAM_PORT = freePort();
+    private static final String UPSTREAM_URL = "http://localhost:" + UPSTREAM_PORT + MOCKED_PATH;
+
+    @RegisterExtension
+    static WireMockExtension upstream = WireMockExtension.newInstance()
+            .options(wireMockConfig().port(UPSTREAM_PORT))
+            .configureStaticDsl(true)
+            .build();
+
+    @Nested
+    class ByDefault {
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.DEFAULT);
+
+        @Test
+        void shouldSendHttp11ToCleartextUpstream() throws Exception {
+            mockHttpServerGetResponse();
+            HttpResponse<String> response = sendGetRequestWithProxy(simpleProxyExtension.buildHttpProxySelector(), UPSTREAM_URL);
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(upstreamProtocols()).containsOnly("HTTP/1.1");
+        }
+
+    }
+
+    @Nested
+    class WithH2cUpstream {
+
+        private static final int MAX_STREAMS = 8;
+        private static final int UPSTREAM_DELAY_MILLIS = 500;
+
+        @RegisterExtension
+        static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+                .upstreamProtocol("localhost", UPSTREAM_PORT, SimpleProxyUpstreamProtocol.HTTP_2)
+                .upstreamMaxConnectionsPerDestination(1)
+                .upstreamMaxStreamsPerConnection(MAX_STREAMS)
+                .build());
+
+        @Test
+        void shouldMultiplexRequestsOverSingleUpstreamConnection() throws Exception {
+            stubFor(get(urlEqualTo(MOCKED_PATH))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withFixedDelay(UPSTREAM_DELAY_MILLIS)
+                            .withBody(MOCKED_GET_RESPONSE_BODY)));
+            HttpClient client = HttpClient.newBuilder().proxy(simpleProxyExtension.buildHttpProxySelector()).build();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(UPSTREAM_URL))
+                    .GET()
+                    .build();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, MAX_STREAMS + 4)
+                    .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .toList();
+
+            assertThat(responses)
+                    .extracting(response -> response.get().statusCode())
+                    .containsOnly(200);
+            assertThat(upstreamProtocols()).hasSize(MAX_STREAMS + 4).containsOnly("HTTP/2.0");
+            assertThat(simpleProxyExtension.runtimeInfo().metrics().totalUpstreamConnections()).isEqualTo(1);
+            // streams over the limit wait until first requests are responded
+            assertThat(requestsReceivedWithinMillis(UPSTREAM_DELAY_MILLIS / 2)).isEqualTo(MAX_STREAMS);
+        }
+
+        private static long requestsReceivedWithinMillis(long millis) {
+            List<Long> received = getAllServeEvents().stream()
+                    .map(serveEvent -> serveEvent.getRequest().getLoggedDate().getTime())
+                    .toList();
+            long first = received.stream().mapToLong(Long::longValue).min().orElseThrow();
+            return received.stream().filter(time -> time - first < millis).count();
+        }
+
+    }
+
+    private static List<String> upstreamProtocols() {
+        return getAllServeEvents().stream()
+                .map(ServeEvent::getRequest)
+                .map(LoggedRequest::getProtocol)
+                .toList();
+    }
+
+}
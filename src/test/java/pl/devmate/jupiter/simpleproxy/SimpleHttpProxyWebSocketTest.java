@@ -0,0 +1,348 @@
+/*
+ * Copyright © 2025 Mariusz Materna
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.devmate.jupiter.simpleproxy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEvent;
+import pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocketFrame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static pl.devmate.jupiter.simpleproxy.TestHelper.*;
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocketFrame.Direction.CLIENT_TO_SERVER;
+import static pl.devmate.jupiter.simpleproxy.events.ProxyEventWebSocketFrame.Direction.SERVER_TO_CLIENT;
+
+@WireMockTest
+class SimpleHttpProxyWebSocketTest {
+
+    private static final String WEBSOCKET_KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+    private static final String WEBSOCKET_ACCEPT = "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=";
+
+    @RegisterExtension
+    static SimpleProxyExtension simpleProxyExtension = new SimpleProxyExtension(SimpleProxyConfig.builder()
+            .webSocketFrameCapture(true)
+            .webSocketFramePayloadLimit(8)
+            .build());
+
+    private EchoWebSocketServer echoServer;
+
+    @BeforeEach
+    void startEchoServer() throws IOException {
+        echoServer = new EchoWebSocketServer();
+    }
+
+    @AfterEach
+    void stopEchoServer() throws IOException {
+        echoServer.close();
+    }
+
+    @Test
+    void shouldRelayWebSocketFramesAndCaptureThem() throws Exception {
+        try (Socket client = new Socket("localhost", simpleProxyExtension.runtimeInfo().httpPort())) {
+            String authority = "localhost:" + echoServer.port();
+            OutputStream out = client.getOutputStream();
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            out.write(upgradeRequest("http://" + authority + "/chat", authority).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String responseHead = readHead(in);
+            assertThat(responseHead)
+                    .startsWith("HTTP/1.1 101")
+                    .contains("Sec-WebSocket-Accept: " + WEBSOCKET_ACCEPT);
+
+            writeFrame(out, ProxyEventWebSocketFrame.TEXT, "hello websocket".getBytes(StandardCharsets.UTF_8), true);
+            assertThat(new String(readFramePayload(in), StandardCharsets.UTF_8)).isEqualTo("hello websocket");
+            writeFrame(out, ProxyEventWebSocketFrame.CLOSE, new byte[]{0x03, (byte) 0xE8}, true);
+            assertThat(readFramePayload(in)).containsExactly(0x03, 0xE8);
+
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 1
+                    && simpleProxyExtension.eventsCaptured().proxyEvents().get(0).webSocket().frames().size() == 4);
+            ProxyEvent event = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+            assertThat(event.serverToProxyResponse().httpStatusCode()).isEqualTo(101);
+            List<ProxyEventWebSocketFrame> frames = event.webSocket().frames();
+            assertThat(frames)
+                    .extracting(ProxyEventWebSocketFrame::direction, ProxyEventWebSocketFrame::opcode, ProxyEventWebSocketFrame::payloadLength)
+                    .containsExactly(
+                            tuple(CLIENT_TO_SERVER, ProxyEventWebSocketFrame.TEXT, 15L),
+                            tuple(SERVER_TO_CLIENT, ProxyEventWebSocketFrame.TEXT, 15L),
+                            tuple(CLIENT_TO_SERVER, ProxyEventWebSocketFrame.CLOSE, 2L),
+                            tuple(SERVER_TO_CLIENT, ProxyEventWebSocketFrame.CLOSE, 2L));
+            assertThat(frames.get(0).payloadText()).isEqualTo("hello we");
+            assertThat(frames.get(0).payloadTruncated()).isTrue();
+            assertThat(frames.get(1).payloadText()).isEqualTo("hello we");
+            assertThat(frames.get(2).payload()).containsExactly(0x03, 0xE8);
+        }
+    }
+
+    @Test
+    void shouldBridgeHttp2ExtendedConnectToHttp11Upstream() throws Exception {
+        HTTP2Client http2Client = new HTTP2Client();
+        http2Client.start();
+        try {
+            CountDownLatch connectProtocolEnabled = new CountDownLatch(1);
+            Session session = http2Client.connect(new InetSocketAddress("localhost", simpleProxyExtension.runtimeInfo().httpPort()), new Session.Listener() {
+                @Override
+                public void onSettings(Session session, SettingsFrame frame) {
+                    if (Integer.valueOf(1).equals(frame.getSettings().get(SettingsFrame.ENABLE_CONNECT_PROTOCOL))) {
+                        connectProtocolEnabled.countDown();
+                    }
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertThat(connectProtocolEnabled.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<MetaData.Response> response = new CompletableFuture<>();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            MetaData.ConnectRequest request = new MetaData.ConnectRequest(HttpScheme.HTTP,
+                    new HostPortHttpField("localhost:" + echoServer.port()), "/chat",
+                    HttpFields.build().put(HttpHeader.SEC_WEBSOCKET_VERSION, "13"), "websocket");
+            Stream stream = session.newStream(new HeadersFrame(request, null, false), new Stream.Listener() {
+                @Override
+                public void onHeaders(Stream stream, HeadersFrame frame) {
+                    response.complete((MetaData.Response) frame.getMetaData());
+                    stream.demand();
+                }
+
+                @Override
+                public void onDataAvailable(Stream stream) {
+                    Stream.Data data = stream.readData();
+                    if (data != null) {
+                        synchronized (received) {
+                            received.writeBytes(BufferUtil.toArray(data.frame().getByteBuffer()));
+                        }
+                        data.release();
+                    }
+                    stream.demand();
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertThat(response.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+            assertThat(response.get().getHttpFields().contains(HttpHeader.SEC_WEBSOCKET_ACCEPT)).isFalse();
+
+            stream.data(new DataFrame(stream.getId(),
+                    ByteBuffer.wrap(frame(ProxyEventWebSocketFrame.TEXT, "over h2".getBytes(StandardCharsets.UTF_8), true)), false))
+                    .get(5, TimeUnit.SECONDS);
+
+            awaitUntil(() -> {
+                synchronized (received) {
+                    return received.size() == 2 + "over h2".length();
+                }
+            });
+            byte[] echo;
+            synchronized (received) {
+                echo = readFramePayload(new DataInputStream(new ByteArrayInputStream(received.toByteArray())));
+            }
+            assertThat(new String(echo, StandardCharsets.UTF_8)).isEqualTo("over h2");
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 1
+                    && simpleProxyExtension.eventsCaptured().proxyEvents().get(0).webSocket().frames().size() == 2);
+            ProxyEvent event = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+            assertThat(event.clientToProxyRequest().method()).isEqualTo("CONNECT");
+            assertThat(event.webSocket().frames())
+                    .extracting(ProxyEventWebSocketFrame::direction, ProxyEventWebSocketFrame::payloadText)
+                    .containsExactly(tuple(CLIENT_TO_SERVER, "over h2"), tuple(SERVER_TO_CLIENT, "over h2"));
+        } finally {
+            http2Client.stop();
+        }
+    }
+
+    @Test
+    void shouldRelayUpstreamResponseWhenUpgradeIsRejected(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        stubFor(get(urlEqualTo(MOCKED_PATH))
+                .willReturn(aResponse()
+                        .withStatus(403)
+                        .withBody("no websockets")));
+        try (Socket client = new Socket("localhost", simpleProxyExtension.runtimeInfo().httpPort())) {
+            String authority = "localhost:" + wmRuntimeInfo.getHttpPort();
+            OutputStream out = client.getOutputStream();
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            out.write(upgradeRequest("http://" + authority + MOCKED_PATH, authority).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            assertThat(readHead(in)).startsWith("HTTP/1.1 403");
+            awaitUntil(() -> simpleProxyExtension.eventsCaptured().proxyEvents().size() == 1);
+            ProxyEvent event = simpleProxyExtension.eventsCaptured().proxyEvents().get(0);
+            assertThat(event.serverToProxyResponse().httpStatusCode()).isEqualTo(403);
+            assertThat(event.webSocket()).isNull();
+            verify(1, getRequestedFor(urlEqualTo(MOCKED_PATH)).withHeader("Upgrade", equalTo("websocket")));
+        }
+    }
+
+    private static String upgradeRequest(String url, String authority) {
+        return "GET " + url + " HTTP/1.1\r\n"
+                + "Host: " + authority + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + WEBSOCKET_KEY + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+    }
+
+    private static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int read = in.read();
+            if (read < 0) {
+                throw new IOException("Connection closed before end of head: " + head);
+            }
+            head.write(read);
+        }
+        return head.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload, boolean masked) throws IOException {
+        out.write(frame(opcode, payload, masked));
+        out.flush();
+    }
+
+    /**
+     * Frame with payload length below 126, masked when sent by client
+     */
+    private static byte[] frame(int opcode, byte[] payload, boolean masked) {
+        byte[] mask = {0x11, 0x22, 0x33, 0x44};
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x80 | opcode);
+        frame.write((masked ? 0x80 : 0) | payload.length);
+        if (masked) {
+            frame.writeBytes(mask);
+        }
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(masked ? payload[i] ^ mask[i % 4] : payload[i]);
+        }
+        return frame.toByteArray();
+    }
+
+    /**
+     * Read frame with payload length below 126, returns unmasked payload
+     */
+    private static byte[] readFramePayload(DataInputStream in) throws IOException {
+        in.readUnsignedByte();
+        int lengthByte = in.readUnsignedByte();
+        byte[] mask = new byte[4];
+        boolean masked = (lengthByte & 0x80) != 0;
+        if (masked) {
+            in.readFully(mask);
+        }
+        byte[] payload = new byte[lengthByte & 0x7F];
+        in.readFully(payload);
+        for (int i = 0; masked && i < payload.length; i++) {
+            payload[i] ^= mask[i % 4];
+        }
+        return payload;
+    }
+
+    /**
+     * Minimal upstream WebSocket server, echoes frames of single connection until close frame
+     */
+    private static class EchoWebSocketServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final Thread thread = new Thread(this::serve, "echo-websocket-server");
+
+        private EchoWebSocketServer() throws IOException {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void serve() {
+            try (Socket socket = serverSocket.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                String head = readHead(in);
+                String key = head.lines()
+                        .filter(line -> line.toLowerCase().startsWith("sec-websocket-key:"))
+                        .map(line -> line.substring(line.indexOf(':') + 1).trim())
+                        .findAny()
+                        .orElseThrow();
+                out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                        + "Upgrade: websocket\r\n"
+                        + "Connection: Upgrade\r\n"
+                        + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                while (true) {
+                    int opcode = in.read() & 0x0F;
+                    byte[] payload = readPayloadAfterFirstByte(in);
+                    writeFrame(out, opcode, payload, false);
+                    if (opcode == ProxyEventWebSocketFrame.CLOSE) {
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                // connection closed by test
+            }
+        }
+
+        private static byte[] readPayloadAfterFirstByte(DataInputStream in) throws IOException {
+            int lengthByte = in.readUnsignedByte();
+            byte[] mask = new byte[4];
+            in.readFully(mask);
+            byte[] payload = new byte[lengthByte & 0x7F];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            return payload;
+        }
+
+        private static String accept(String key) throws Exception {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+}